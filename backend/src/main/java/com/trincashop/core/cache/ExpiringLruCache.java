@@ -0,0 +1,60 @@
+package com.trincashop.core.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache em memória com limite de entradas (LRU) e expiração por entrada.
+ * Thread-safe via sincronização simples: as operações são O(1) e curtas.
+ */
+public class ExpiringLruCache<K, V> {
+
+    private record Entrada<V>(V valor, long expiraEmMillis) {
+    }
+
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+
+    public ExpiringLruCache(int maxEntradas) {
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+    }
+
+    public synchronized V get(K chave) {
+        Entrada<V> entrada = entradas.get(chave);
+        if (entrada == null) {
+            return null;
+        }
+        if (entrada.expiraEmMillis() <= System.currentTimeMillis()) {
+            entradas.remove(chave);
+            return null;
+        }
+        return entrada.valor();
+    }
+
+    public synchronized void put(K chave, V valor, long expiraEmMillis) {
+        entradas.put(chave, new Entrada<>(valor, expiraEmMillis));
+    }
+
+    public synchronized void remove(K chave) {
+        entradas.remove(chave);
+    }
+
+    public synchronized int size() {
+        return entradas.size();
+    }
+
+    public synchronized void removerExpirados() {
+        long agora = System.currentTimeMillis();
+        Iterator<Entrada<V>> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expiraEmMillis() <= agora) {
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.trincashop.core.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Tamanho do pool em spring.task.scheduling.pool.size (application.yml); o
+// ThreadPoolTaskScheduler é o auto-configurado pelo Spring Boot
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
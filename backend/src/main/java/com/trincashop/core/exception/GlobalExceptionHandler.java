@@ -1,5 +1,6 @@
 package com.trincashop.core.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -31,6 +32,35 @@ public class GlobalExceptionHandler {
                 "timestamp", LocalDateTime.now().toString()));
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String, Object>> handleTooManyRequests(TooManyRequestsException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSegundos()))
+                .body(Map.of(
+                        "erro", ex.getMessage(),
+                        "status", 429,
+                        "timestamp", LocalDateTime.now().toString()));
+    }
+
+    // Sem corpo: quem recebe costuma ser um EventSource (Accept: text/event-stream),
+    // para o qual não há conversor de JSON
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Void> handleServiceUnavailable(ServiceUnavailableException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSegundos()))
+                .build();
+    }
+
+    // Token inválido, expirado, revogado ou com claims malformados, repassado pelo
+    // JwtAuthFilter
+    @ExceptionHandler(io.jsonwebtoken.JwtException.class)
+    public ResponseEntity<Map<String, Object>> handleJwt(io.jsonwebtoken.JwtException ex) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of(
+                "erro", "Token inválido ou expirado",
+                "status", 401,
+                "timestamp", LocalDateTime.now().toString()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidation(MethodArgumentNotValidException ex) {
         List<String> erros = ex.getBindingResult().getFieldErrors().stream()
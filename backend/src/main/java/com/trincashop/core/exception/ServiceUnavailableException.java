@@ -0,0 +1,16 @@
+package com.trincashop.core.exception;
+
+// Capacidade esgotada (assinantes de stream, esperas): 503 com Retry-After
+public class ServiceUnavailableException extends RuntimeException {
+
+    private final long retryAfterSegundos;
+
+    public ServiceUnavailableException(String message, long retryAfterSegundos) {
+        super(message);
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    public long getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+}
@@ -0,0 +1,16 @@
+package com.trincashop.core.exception;
+
+// Limite por cliente excedido: 429 com Retry-After
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSegundos;
+
+    public TooManyRequestsException(String message, long retryAfterSegundos) {
+        super(message);
+        this.retryAfterSegundos = retryAfterSegundos;
+    }
+
+    public long getRetryAfterSegundos() {
+        return retryAfterSegundos;
+    }
+}
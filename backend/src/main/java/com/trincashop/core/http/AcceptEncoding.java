@@ -0,0 +1,55 @@
+package com.trincashop.core.http;
+
+import java.util.Locale;
+
+/**
+ * Leitura do header {@code Accept-Encoding} (RFC 9110, seção 12.5.3). Um
+ * {@code contains("gzip")} aceitaria {@code gzip;q=0}, que quer dizer justamente
+ * "não mande gzip".
+ */
+public final class AcceptEncoding {
+
+    private AcceptEncoding() {
+    }
+
+    // gzip (ou x-gzip) com q > 0; sem menção a gzip, vale o q de "*"
+    public static boolean aceitaGzip(String header) {
+        if (header == null || header.isBlank()) {
+            return false;
+        }
+        Double qGzip = null;
+        Double qCuringa = null;
+        for (String item : header.split(",")) {
+            String[] partes = item.split(";");
+            String codificacao = partes[0].trim().toLowerCase(Locale.ROOT);
+            double q = qualidade(partes);
+            if (codificacao.equals("gzip") || codificacao.equals("x-gzip")) {
+                qGzip = qGzip == null ? q : Math.max(qGzip, q);
+            } else if (codificacao.equals("*")) {
+                qCuringa = q;
+            }
+        }
+        if (qGzip != null) {
+            return qGzip > 0;
+        }
+        return qCuringa != null && qCuringa > 0;
+    }
+
+    // Sem parâmetro q, 1; valor inválido conta como 0 (não aceito)
+    private static double qualidade(String[] partes) {
+        for (int i = 1; i < partes.length; i++) {
+            String parametro = partes[i].trim();
+            int igual = parametro.indexOf('=');
+            if (igual < 0 || !parametro.substring(0, igual).trim().equalsIgnoreCase("q")) {
+                continue;
+            }
+            try {
+                double q = Double.parseDouble(parametro.substring(igual + 1).trim());
+                return q >= 0 && q <= 1 ? q : 0;
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+        return 1;
+    }
+}
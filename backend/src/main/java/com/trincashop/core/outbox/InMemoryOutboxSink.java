@@ -0,0 +1,64 @@
+package com.trincashop.core.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Destino em memória para testes e ambiente local: guarda as últimas mensagens
+ * recebidas e pode falhar de propósito ({@code failure-rate}) para exercitar as
+ * novas tentativas do despachante.
+ */
+@Component
+@ConditionalOnProperty(name = "trincashop.outbox.memory-sink.enabled", havingValue = "true")
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final Deque<OutboxMessage> recebidas = new ArrayDeque<>();
+    private final AtomicLong total = new AtomicLong();
+    private final int capacidade;
+    private final double taxaFalha;
+
+    public InMemoryOutboxSink(@Value("${trincashop.outbox.memory-sink.capacity:10000}") int capacidade,
+            @Value("${trincashop.outbox.memory-sink.failure-rate:0}") double taxaFalha) {
+        this.capacidade = capacidade;
+        this.taxaFalha = taxaFalha;
+    }
+
+    @Override
+    public String nome() {
+        return "memoria";
+    }
+
+    @Override
+    public void entregar(OutboxMessage mensagem) {
+        if (taxaFalha > 0 && ThreadLocalRandom.current().nextDouble() < taxaFalha) {
+            throw new IllegalStateException("Falha simulada");
+        }
+        synchronized (recebidas) {
+            if (recebidas.size() >= capacidade) {
+                recebidas.removeFirst();
+            }
+            recebidas.addLast(mensagem);
+        }
+        total.incrementAndGet();
+    }
+
+    // Mais antigas primeiro
+    public List<OutboxMessage> recebidas() {
+        synchronized (recebidas) {
+            return new ArrayList<>(recebidas);
+        }
+    }
+
+    // Inclui as repetidas (entrega pelo menos uma vez) e as já descartadas da lista
+    public long total() {
+        return total.get();
+    }
+}
@@ -0,0 +1,7 @@
+package com.trincashop.core.outbox;
+
+import java.util.UUID;
+
+// Mensagem entregue a um OutboxSink; payload é o JSON gravado junto com o evento
+public record OutboxMessage(UUID eventId, String tipo, String payload, int tentativa) {
+}
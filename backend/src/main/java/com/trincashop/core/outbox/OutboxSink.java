@@ -0,0 +1,17 @@
+package com.trincashop.core.outbox;
+
+/**
+ * Destino das mensagens do outbox (webhook, fila, memória). Cada destino ativo
+ * recebe sua própria cópia de cada evento e tem tentativas independentes.
+ * <p>
+ * {@link #entregar} só deve retornar quando o destino confirmou o recebimento;
+ * qualquer exceção conta como falha e a mensagem é reenviada mais tarde. A mesma
+ * mensagem pode chegar mais de uma vez: o destino deduplica pelo eventId.
+ */
+public interface OutboxSink {
+
+    // Gravado na coluna sink de cada linha; não pode mudar entre versões
+    String nome();
+
+    void entregar(OutboxMessage mensagem) throws Exception;
+}
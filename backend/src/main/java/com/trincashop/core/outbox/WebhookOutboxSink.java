@@ -0,0 +1,81 @@
+package com.trincashop.core.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.HexFormat;
+
+/**
+ * Entrega cada mensagem com um POST JSON para {@code trincashop.outbox.webhook.url}.
+ * Qualquer resposta 2xx confirma a entrega; o resto (inclusive timeout) é falha.
+ * <p>
+ * Cabeçalhos: {@code X-Trincashop-Event-Id}, {@code X-Trincashop-Event-Type} e,
+ * se houver segredo configurado, {@code X-Trincashop-Signature: sha256=<HMAC do corpo>}.
+ */
+@Component
+@ConditionalOnExpression("'${trincashop.outbox.webhook.url:}' != ''")
+public class WebhookOutboxSink implements OutboxSink {
+
+    private final HttpClient httpClient;
+    private final URI url;
+    private final byte[] segredo;
+    private final Duration timeout;
+
+    public WebhookOutboxSink(@Value("${trincashop.outbox.webhook.url}") String url,
+            @Value("${trincashop.outbox.webhook.secret:}") String segredo,
+            @Value("${trincashop.outbox.webhook.timeout-ms:5000}") long timeoutMs) {
+        this.url = URI.create(url);
+        this.segredo = segredo.isBlank() ? null : segredo.getBytes(StandardCharsets.UTF_8);
+        this.timeout = Duration.ofMillis(timeoutMs);
+        // Um cliente para todas as threads do despachante: as conexões são reaproveitadas
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(this.timeout)
+                .build();
+    }
+
+    @Override
+    public String nome() {
+        return "webhook";
+    }
+
+    @Override
+    public void entregar(OutboxMessage mensagem) throws IOException, InterruptedException {
+        byte[] corpo = mensagem.payload().getBytes(StandardCharsets.UTF_8);
+        HttpRequest.Builder requisicao = HttpRequest.newBuilder(url)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("X-Trincashop-Event-Id", mensagem.eventId().toString())
+                .header("X-Trincashop-Event-Type", mensagem.tipo())
+                .POST(HttpRequest.BodyPublishers.ofByteArray(corpo));
+        if (segredo != null) {
+            requisicao.header("X-Trincashop-Signature", "sha256=" + assinar(corpo));
+        }
+
+        HttpResponse<Void> resposta = httpClient.send(requisicao.build(), HttpResponse.BodyHandlers.discarding());
+        if (resposta.statusCode() / 100 != 2) {
+            throw new IOException("Webhook respondeu HTTP " + resposta.statusCode());
+        }
+    }
+
+    private String assinar(byte[] corpo) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(segredo, "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(corpo));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponível", e);
+        }
+    }
+}
@@ -12,9 +12,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.MalformedJwtException;
-import io.jsonwebtoken.security.SignatureException;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 
@@ -50,36 +49,41 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             if (jwtUtil.isBlacklisted(token)) {
                 // Ao lançar a exceção, o fluxo vai pro catch lá embaixo que repassa ao resolver
                 // (401 global)
-                throw new IllegalArgumentException("Token revogado permanentemente (invalidado via logout)");
+                throw new JwtException("Token revogado permanentemente (invalidado via logout)");
             }
 
-            final String email = jwtUtil.extractEmail(token);
+            // Uma única verificação (assinatura, expiração e formato das roles) por requisição
+            final JwtUtil.TokenVerificado verificado = jwtUtil.verificar(token);
+            final String email = verificado.email();
 
             // Só autentica se ainda não há autenticação no contexto
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 // Em vez de ir no banco, lemos as roles do próprio token
-                if (jwtUtil.validateToken(token, email)) {
-                    java.util.List<String> roles = jwtUtil.extractRoles(token);
+                java.util.List<org.springframework.security.core.authority.SimpleGrantedAuthority> authorities = verificado
+                        .roles()
+                        .stream()
+                        .map(org.springframework.security.core.authority.SimpleGrantedAuthority::new)
+                        .collect(java.util.stream.Collectors.toList());
 
-                    java.util.List<org.springframework.security.core.authority.SimpleGrantedAuthority> authorities = roles
-                            .stream()
-                            .map(org.springframework.security.core.authority.SimpleGrantedAuthority::new)
-                            .collect(java.util.stream.Collectors.toList());
+                UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+                        email, "", authorities); // Senha vazia pois já autenticamos via token
 
-                    UserDetails userDetails = new org.springframework.security.core.userdetails.User(
-                            email, "", authorities); // Senha vazia pois já autenticamos via token
-
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, authorities);
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        userDetails, null, authorities);
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
-            filterChain.doFilter(request, response);
-        } catch (ExpiredJwtException | MalformedJwtException | SignatureException | IllegalArgumentException e) {
+        } catch (JwtException e) {
             // Delega a exceção para o HandlerExceptionResolver para que caia no
-            // GlobalExceptionHandler ou retorne erro formatado
+            // GlobalExceptionHandler (401)
             resolver.resolveException(request, response, null, e);
+            return;
+        } catch (IllegalArgumentException e) {
+            // Token vazio no parser ou authority vazia: também é token inválido
+            resolver.resolveException(request, response, null, new MalformedJwtException(e.getMessage(), e));
+            return;
         }
+        // Fora do try: exceções do resto da cadeia não são confundidas com token inválido
+        filterChain.doFilter(request, response);
     }
 }
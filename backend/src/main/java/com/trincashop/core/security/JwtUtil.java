@@ -1,17 +1,26 @@
 package com.trincashop.core.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.springframework.security.core.GrantedAuthority;
 
@@ -27,10 +36,38 @@ public class JwtUtil {
     @Value("${jwt.refreshExpiration:604800000}") // Default 7 dias
     private long refreshExpirationMs;
 
+    // 0 desliga o cache de tokens verificados
+    @Value("${jwt.claims-cache.max-entries:10000}")
+    private int maxTokensVerificados = 10000;
+
     private final Set<String> blacklistedTokens = ConcurrentHashMap.newKeySet();
 
+    /**
+     * Dados de um token já verificado (assinatura e expiração).
+     */
+    public record TokenVerificado(String email, List<String> roles) {
+    }
+
+    private record Verificado(TokenVerificado token, long expiraEmMillis) {
+    }
+
+    // Chave e parser montados uma vez: o JwtParser é imutável e thread-safe
+    private javax.crypto.SecretKey signingKey;
+    private JwtParser parser;
+
+    // Tokens já verificados, pelo SHA-256 do token, até o exp de cada um. Um acerto
+    // troca o parse do JSON e o HMAC por um SHA-256 e uma leitura sem trava. Cheio,
+    // o mapa só volta a aceitar tokens quando a limpeza tira os expirados.
+    private final Map<String, Verificado> verificados = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+    }
+
     private javax.crypto.SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secretKey.getBytes());
+        return signingKey;
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -56,28 +93,78 @@ public class JwtUtil {
                 .compact();
     }
 
+    // Verifica o token uma única vez (assinatura e expiração) e devolve e-mail e
+    // roles. Lança as mesmas exceções do parser (ExpiredJwtException, SignatureException...)
+    // para token inválido, e MalformedJwtException se roles não for uma lista de
+    // textos; a revogação é conferida à parte, por isBlacklisted.
+    public TokenVerificado verificar(String token) {
+        if (maxTokensVerificados <= 0) {
+            return verificarNoParser(parser.parseSignedClaims(token).getPayload());
+        }
+        String chave = digest(token);
+        Verificado verificado = verificados.get(chave);
+        long agora = System.currentTimeMillis();
+        if (verificado != null) {
+            if (verificado.expiraEmMillis() > agora) {
+                return verificado.token();
+            }
+            verificados.remove(chave, verificado);
+        }
+        // Expirado (no cache ou não), o parser lança ExpiredJwtException como sempre
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        TokenVerificado resultado = verificarNoParser(claims);
+        // Sem exp o token não é guardado
+        Date expiracao = claims.getExpiration();
+        if (expiracao != null && verificados.size() < maxTokensVerificados) {
+            verificados.put(chave, new Verificado(resultado, expiracao.getTime()));
+        }
+        return resultado;
+    }
+
+    private static TokenVerificado verificarNoParser(Claims claims) {
+        return new TokenVerificado(claims.getSubject(), roles(claims.get("roles")));
+    }
+
+    // O claim vem do JSON do token: qualquer tipo é possível, e um elemento que não
+    // é texto viraria ClassCastException (500) mais adiante, no filtro
+    private static List<String> roles(Object claim) {
+        if (claim == null) {
+            return List.of();
+        }
+        if (!(claim instanceof List<?> lista)) {
+            throw new MalformedJwtException("Claim roles deve ser uma lista");
+        }
+        List<String> roles = new ArrayList<>(lista.size());
+        for (Object role : lista) {
+            if (!(role instanceof String texto) || texto.isBlank()) {
+                throw new MalformedJwtException("Claim roles deve conter apenas textos não vazios");
+            }
+            roles.add(texto);
+        }
+        return List.copyOf(roles);
+    }
+
     public String extractEmail(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verificar(token).email();
     }
 
-    @SuppressWarnings("unchecked")
     public List<String> extractRoles(String token) {
-        Claims claims = extractAllClaims(token);
-        return (List<String>) claims.get("roles");
+        return verificar(token).roles();
     }
 
+    // O parser já rejeita token expirado ao verificar
     public boolean validateToken(String token, String email) {
         if (isBlacklisted(token))
             return false;
         final String tokenEmail = extractEmail(token);
-        return tokenEmail.equals(email) && !isTokenExpired(token);
+        return tokenEmail.equals(email);
     }
 
     public boolean validateToken(String token) {
         if (isBlacklisted(token))
             return false;
         try {
-            extractAllClaims(token);
+            verificar(token);
             return true;
         } catch (Exception e) {
             return false;
@@ -86,25 +173,29 @@ public class JwtUtil {
 
     public void blacklistToken(String token) {
         blacklistedTokens.add(token);
+        verificados.remove(digest(token));
     }
 
     public boolean isBlacklisted(String token) {
         return blacklistedTokens.contains(token);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractClaim(token, Claims::getExpiration).before(new Date());
+    @Scheduled(fixedDelayString = "${jwt.claims-cache.cleanup-interval-ms:600000}")
+    public void removerExpirados() {
+        long agora = System.currentTimeMillis();
+        verificados.values().removeIf(verificado -> verificado.expiraEmMillis() <= agora);
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        return claimsResolver.apply(extractAllClaims(token));
+    int tokensEmCache() {
+        return verificados.size();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
     }
 }
@@ -0,0 +1,190 @@
+package com.trincashop.core.sse;
+
+import com.trincashop.core.exception.ServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Distribui eventos SSE para vários assinantes em memória.
+ * <p>
+ * Cada assinante tem uma fila limitada e é servido por uma thread de envio
+ * própria enquanto houver eventos na fila. Quem publica só enfileira e nunca
+ * espera a rede: se a fila de um assinante enche, ele é desconectado (o
+ * EventSource do cliente reconecta e recarrega o estado).
+ * <p>
+ * A vaga do assinante é reservada antes de o emitter existir e devolvida uma
+ * única vez, quando ele sai do conjunto: o limite vale mesmo com várias
+ * assinaturas ao mesmo tempo.
+ */
+public class SseBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(SseBroadcaster.class);
+
+    // Sugestão de espera devolvida quando o limite de assinantes está cheio
+    private static final long RETRY_AFTER_SEGUNDOS = 30;
+
+    private final String nome;
+    private final int capacidadeFila;
+    private final long timeoutMs;
+    private final int maxAssinantes;
+    private final Set<Assinante> assinantes = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger vagasOcupadas = new AtomicInteger();
+    private final AtomicLong sequencia = new AtomicLong();
+    private final AtomicInteger threads = new AtomicInteger();
+    private final ExecutorService envio;
+
+    public SseBroadcaster(String nome, int capacidadeFila, long timeoutMs, int maxAssinantes) {
+        this.nome = nome;
+        this.capacidadeFila = capacidadeFila;
+        this.timeoutMs = timeoutMs;
+        this.maxAssinantes = maxAssinantes;
+        this.envio = Executors.newCachedThreadPool(tarefa -> {
+            Thread thread = new Thread(tarefa, "sse-" + nome + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter assinar() {
+        if (envio.isShutdown()) {
+            throw new ServiceUnavailableException("Stream " + nome + " encerrado", RETRY_AFTER_SEGUNDOS);
+        }
+        if (vagasOcupadas.incrementAndGet() > maxAssinantes) {
+            vagasOcupadas.decrementAndGet();
+            throw new ServiceUnavailableException("Limite de assinantes do stream " + nome + " atingido",
+                    RETRY_AFTER_SEGUNDOS);
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Assinante assinante = new Assinante(emitter);
+        emitter.onCompletion(() -> remover(assinante));
+        emitter.onTimeout(() -> desconectar(assinante));
+        emitter.onError(erro -> desconectar(assinante));
+        assinantes.add(assinante);
+        return emitter;
+    }
+
+    public void publicar(String evento, Object dados) {
+        if (assinantes.isEmpty()) {
+            return;
+        }
+        // O builder não é thread-safe: o evento é montado uma vez e as partes
+        // prontas são compartilhadas entre as filas
+        Set<ResponseBodyEmitter.DataWithMediaType> sse = SseEmitter.event()
+                .id(Long.toString(sequencia.incrementAndGet()))
+                .name(evento)
+                .data(dados, MediaType.APPLICATION_JSON)
+                .build();
+        assinantes.forEach(assinante -> assinante.enfileirar(sse));
+    }
+
+    // Comentário SSE periódico: mantém proxies com a conexão aberta e
+    // detecta clientes que já foram embora
+    public void heartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        assinantes.forEach(assinante -> assinante.enfileirar(ping));
+    }
+
+    public int quantidadeAssinantes() {
+        return assinantes.size();
+    }
+
+    public void encerrar() {
+        assinantes.forEach(this::desconectar);
+        envio.shutdown();
+    }
+
+    // complete() disputa o mesmo monitor de um send() em andamento, então
+    // roda na thread de envio para não prender quem chamou. Depois do encerrar
+    // não há mais envio em andamento e ele roda aqui mesmo
+    private boolean desconectar(Assinante assinante) {
+        if (!remover(assinante)) {
+            return false;
+        }
+        assinante.fila.clear();
+        if (!executar(assinante.emitter::complete)) {
+            assinante.emitter.complete();
+        }
+        return true;
+    }
+
+    // Só quem tira o assinante do conjunto devolve a vaga
+    private boolean remover(Assinante assinante) {
+        if (!assinantes.remove(assinante)) {
+            return false;
+        }
+        vagasOcupadas.decrementAndGet();
+        return true;
+    }
+
+    // false se o executor já foi encerrado
+    private boolean executar(Runnable tarefa) {
+        try {
+            envio.execute(tarefa);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private final class Assinante {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> fila =
+                new ArrayBlockingQueue<>(capacidadeFila);
+        private final AtomicBoolean enviando = new AtomicBoolean();
+
+        private Assinante(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private void enfileirar(Set<ResponseBodyEmitter.DataWithMediaType> evento) {
+            if (!fila.offer(evento)) {
+                if (desconectar(this)) {
+                    log.warn("Assinante lento desconectado do stream {} (fila com {} eventos)", nome, capacidadeFila);
+                }
+                return;
+            }
+            agendarEnvio();
+        }
+
+        private void agendarEnvio() {
+            if (enviando.compareAndSet(false, true) && !executar(this::enviar)) {
+                enviando.set(false);
+                desconectar(this);
+            }
+        }
+
+        private void enviar() {
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> evento;
+                while ((evento = fila.poll()) != null) {
+                    emitter.send(evento);
+                }
+            } catch (IOException | IllegalStateException e) {
+                desconectar(this);
+                return;
+            } finally {
+                enviando.set(false);
+            }
+            // Evento enfileirado entre o último poll e a liberação da flag
+            if (!fila.isEmpty()) {
+                agendarEnvio();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.trincashop.features.admin.controller;
+
+import com.trincashop.features.products.dto.FridgeInventoryResponse;
+import com.trincashop.features.products.dto.FridgeRequest;
+import com.trincashop.features.products.dto.FridgeResponse;
+import com.trincashop.features.products.dto.FridgeStockRequest;
+import com.trincashop.features.products.service.FridgeInventoryService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/fridges")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminFridgeController {
+
+    private final FridgeInventoryService fridgeInventoryService;
+
+    public AdminFridgeController(FridgeInventoryService fridgeInventoryService) {
+        this.fridgeInventoryService = fridgeInventoryService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<FridgeResponse>> listar() {
+        return ResponseEntity.ok(fridgeInventoryService.listarGeladeiras());
+    }
+
+    @PostMapping
+    public ResponseEntity<FridgeResponse> criar(@Valid @RequestBody FridgeRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(FridgeResponse.fromEntity(fridgeInventoryService.criarGeladeira(request)));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<FridgeResponse> atualizar(@PathVariable Long id, @Valid @RequestBody FridgeRequest request) {
+        return ResponseEntity.ok(FridgeResponse.fromEntity(fridgeInventoryService.atualizarGeladeira(id, request)));
+    }
+
+    @GetMapping("/{id}/inventory")
+    public ResponseEntity<List<FridgeInventoryResponse>> listarInventario(@PathVariable Long id) {
+        return ResponseEntity.ok(fridgeInventoryService.listarInventario(id));
+    }
+
+    // Reposição: define o estoque do produto nesta geladeira
+    @PutMapping("/{id}/inventory/{productId}")
+    public ResponseEntity<FridgeInventoryResponse> definirEstoque(@PathVariable Long id,
+            @PathVariable Long productId, @Valid @RequestBody FridgeStockRequest request) {
+        return ResponseEntity.ok(fridgeInventoryService.definirEstoque(id, productId, request.getStock()));
+    }
+}
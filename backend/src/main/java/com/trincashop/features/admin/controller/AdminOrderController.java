@@ -1,18 +1,37 @@
 package com.trincashop.features.admin.controller;
 
+import com.trincashop.core.http.AcceptEncoding;
+import com.trincashop.core.pagination.CursorPage;
+import com.trincashop.features.orders.dto.BulkUpdateOrderStatusRequest;
+import com.trincashop.features.orders.dto.BulkUpdateOrderStatusResponse;
 import com.trincashop.features.orders.dto.OrderResponse;
+import com.trincashop.features.orders.dto.OrderStatusHistoryResponse;
 import com.trincashop.features.orders.dto.UpdateOrderStatusRequest;
 import com.trincashop.features.orders.model.OrderStatus;
+import com.trincashop.features.orders.repository.OutboxRepository;
+import com.trincashop.features.orders.service.OrderExportService;
+import com.trincashop.features.orders.service.OrderHistoryService;
+import com.trincashop.features.orders.service.OrderOutboxService;
 import com.trincashop.features.orders.service.OrderService;
+import com.trincashop.features.orders.service.OrderStatsService;
+import com.trincashop.features.orders.service.OrderStreamService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -21,24 +40,78 @@ import java.util.Map;
 public class AdminOrderController {
 
     private final OrderService orderService;
+    private final OrderStatsService orderStatsService;
+    private final OrderStreamService orderStreamService;
+    private final OrderHistoryService orderHistoryService;
+    private final OrderOutboxService orderOutboxService;
+    private final OrderExportService orderExportService;
 
-    public AdminOrderController(OrderService orderService) {
+    public AdminOrderController(OrderService orderService, OrderStatsService orderStatsService,
+            OrderStreamService orderStreamService, OrderHistoryService orderHistoryService,
+            OrderOutboxService orderOutboxService, OrderExportService orderExportService) {
         this.orderService = orderService;
+        this.orderStatsService = orderStatsService;
+        this.orderStreamService = orderStreamService;
+        this.orderHistoryService = orderHistoryService;
+        this.orderOutboxService = orderOutboxService;
+        this.orderExportService = orderExportService;
     }
 
     @GetMapping
     public ResponseEntity<Page<OrderResponse>> listarPedidos(
             @RequestParam(required = false) OrderStatus status,
             @PageableDefault(size = 20, sort = "createdAt") Pageable pageable) {
-        Page<OrderResponse> page;
-        if (status != null) {
-            page = orderService.listarPorStatus(status, pageable).map(OrderResponse::fromEntity);
-        } else {
-            page = orderService.listarTodos(pageable).map(OrderResponse::fromEntity);
-        }
+        Page<OrderResponse> page = status != null
+                ? orderService.listarPorStatus(status, pageable)
+                : orderService.listarTodos(pageable);
         return ResponseEntity.ok(page);
     }
 
+    // Mesma ordem da listagem acima (createdAt, id), sem OFFSET nem COUNT(*):
+    // o custo de cada página não cresce com a profundidade
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<OrderResponse>> listarPedidosPorCursor(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(orderService.listarPorCursor(status, cursor, size));
+    }
+
+    // Todos os pedidos do período, em ordem (createdAt, id), escritos na resposta à
+    // medida que saem do banco. Com gzip aceito em Accept-Encoding (q > 0), a resposta vem compactada.
+    // O tipo de retorno precisa ser ResponseEntity<StreamingResponseBody> para o Spring
+    // reconhecer o corpo em streaming.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportarPedidos(
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+            @RequestParam(defaultValue = "CSV") OrderExportService.Formato formato,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            NativeWebRequest request) {
+        boolean gzip = AcceptEncoding.aceitaGzip(acceptEncoding);
+        // 429 se já houver max-concurrent exportações em andamento
+        OrderExportService.Exportacao corpo = orderExportService.preparar(status, de, ate, formato, gzip);
+        // A vaga já é desta requisição: se o corpo não chegar a rodar (timeout, erro,
+        // cliente que caiu), volta no fim do processamento assíncrono
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(corpo, corpo);
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .contentType(formato.tipo())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"pedidos." + formato.extensao() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return resposta.body(corpo);
+    }
+
+    // Eventos order-created e order-status-changed em tempo real (SSE)
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPedidos() {
+        return orderStreamService.assinar();
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<OrderResponse> atualizarStatus(@PathVariable Long id,
             @Valid @RequestBody UpdateOrderStatusRequest request) {
@@ -46,17 +119,46 @@ public class AdminOrderController {
                 orderService.atualizarStatus(id, request.getStatus())));
     }
 
+    // Transições do pedido em ordem; as do último segundo podem ainda estar na fila
+    @GetMapping("/{id}/history")
+    public ResponseEntity<List<OrderStatusHistoryResponse>> historico(@PathVariable Long id) {
+        return ResponseEntity.ok(orderHistoryService.listar(id).stream()
+                .map(OrderStatusHistoryResponse::fromEntity)
+                .toList());
+    }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<BulkUpdateOrderStatusResponse> atualizarStatusEmLote(
+            @Valid @RequestBody BulkUpdateOrderStatusRequest request) {
+        return ResponseEntity.ok(orderService.atualizarStatusEmLote(request.getIds(), request.getStatus()));
+    }
+
     @GetMapping("/stats")
-    public ResponseEntity<Map<String, Object>> estatisticas(Pageable pageable) {
-        long totalPedidos = orderService.listarTodos(pageable).getTotalElements();
-        long pendentes = orderService.listarPorStatus(OrderStatus.PENDING, pageable).getTotalElements();
-        long pagos = orderService.listarPorStatus(OrderStatus.PAID, pageable).getTotalElements();
-        BigDecimal totalArrecadado = orderService.calcularTotalArrecadado();
+    public ResponseEntity<Map<String, Object>> estatisticas() {
+        Map<OrderStatus, OrderStatsService.Totais> totais = orderStatsService.totaisPorStatus();
+        long totalPedidos = totais.values().stream().mapToLong(OrderStatsService.Totais::quantidade).sum();
 
         return ResponseEntity.ok(Map.of(
                 "totalPedidos", totalPedidos,
-                "pedidosPendentes", pendentes,
-                "pedidosPagos", pagos,
-                "totalArrecadado", totalArrecadado));
+                "pedidosPendentes", totais.get(OrderStatus.PENDING).quantidade(),
+                "pedidosPagos", totais.get(OrderStatus.PAID).quantidade(),
+                "totalArrecadado", totais.get(OrderStatus.PAID).valor()));
+    }
+
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<Map<String, Object>> reconstruirEstatisticas() {
+        orderStatsService.reconstruir();
+        return estatisticas();
+    }
+
+    // Situação do outbox por destino: pendentes, entregues (até a limpeza) e que esgotaram as tentativas
+    @GetMapping("/outbox")
+    public ResponseEntity<List<OutboxRepository.ResumoPorDestino>> resumoOutbox() {
+        return ResponseEntity.ok(orderOutboxService.resumir());
+    }
+
+    @PostMapping("/outbox/retry")
+    public ResponseEntity<Map<String, Object>> reenfileirarOutbox() {
+        return ResponseEntity.ok(Map.of("reenfileirados", orderOutboxService.reenfileirarFalhas()));
     }
 }
@@ -1,45 +1,90 @@
 package com.trincashop.features.admin.controller;
 
+import com.trincashop.core.exception.BadRequestException;
+import com.trincashop.features.products.dto.LowStockResponse;
+import com.trincashop.features.products.dto.ProductImportResponse;
 import com.trincashop.features.products.dto.ProductRequest;
 import com.trincashop.features.products.dto.ProductResponse;
+import com.trincashop.features.products.service.LowStockMonitor;
+import com.trincashop.features.products.service.ProductImportService;
 import com.trincashop.features.products.service.ProductService;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.InputStream;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/admin/products")
 @PreAuthorize("hasRole('ADMIN')")
 public class AdminProductController {
 
+    private static final int LIMITE_MAXIMO_ESTOQUE_BAIXO = 500;
+
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final LowStockMonitor lowStockMonitor;
 
-    public AdminProductController(ProductService productService) {
+    public AdminProductController(ProductService productService, ProductImportService productImportService,
+            LowStockMonitor lowStockMonitor) {
         this.productService = productService;
+        this.productImportService = productImportService;
+        this.lowStockMonitor = lowStockMonitor;
     }
 
     @GetMapping
     public ResponseEntity<Page<ProductResponse>> listarTodos(
             @PageableDefault(size = 20, sort = "id") Pageable pageable) {
-        Page<ProductResponse> page = productService.listarTodos(pageable)
-                .map(ProductResponse::fromEntity);
-        return ResponseEntity.ok(page);
+        return ResponseEntity.ok(productService.listarTodos(pageable));
+    }
+
+    // Produtos com estoque igual ou abaixo do limite, do mais perto de acabar,
+    // servidos da memória sem consultar o banco
+    @GetMapping("/low-stock")
+    public ResponseEntity<List<LowStockResponse>> listarEstoqueBaixo(@RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > LIMITE_MAXIMO_ESTOQUE_BAIXO) {
+            throw new BadRequestException("O limite deve estar entre 1 e " + LIMITE_MAXIMO_ESTOQUE_BAIXO);
+        }
+        return ResponseEntity.ok(lowStockMonitor.listar(limit));
+    }
+
+    // Eventos low-stock e stock-restored em tempo real (SSE)
+    @GetMapping(path = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEstoqueBaixo() {
+        return lowStockMonitor.assinar();
     }
 
     @PostMapping
     public ResponseEntity<ProductResponse> criar(@Valid @RequestBody ProductRequest request) {
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(ProductResponse.fromEntity(productService.criarDeRequest(request)));
+                .body(productService.respostaDe(productService.criarDeRequest(request)));
+    }
+
+    // Arquivo CSV (cabeçalho com name, price, stock e, opcionalmente, id e active) ou
+    // NDJSON no corpo da requisição, lido em streaming. Linhas inválidas vêm no resultado
+    // e não impedem as demais.
+    @PostMapping("/import")
+    public ResponseEntity<ProductImportResponse> importar(
+            @RequestParam(defaultValue = "CSV") ProductImportService.Formato formato, InputStream corpo) {
+        return ResponseEntity.ok(productImportService.importar(corpo, formato));
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<ProductResponse> atualizar(@PathVariable Long id,
             @Valid @RequestBody ProductRequest request) {
-        return ResponseEntity.ok(ProductResponse.fromEntity(productService.atualizarDeRequest(id, request)));
+        return ResponseEntity.ok(productService.respostaDe(productService.atualizarDeRequest(id, request)));
+    }
+
+    @PutMapping("/{id}/flash-sale")
+    public ResponseEntity<ProductResponse> alterarFlashSale(@PathVariable Long id, @RequestParam boolean ativo) {
+        return ResponseEntity.ok(productService.respostaDe(productService.alterarFlashSale(id, ativo)));
     }
 }
@@ -0,0 +1,60 @@
+package com.trincashop.features.admin.controller;
+
+import com.trincashop.features.orders.service.SalesRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/reports")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminReportController {
+
+    private final SalesRollupService salesRollupService;
+
+    public AdminReportController(SalesRollupService salesRollupService) {
+        this.salesRollupService = salesRollupService;
+    }
+
+    // Período [de, ate) em data e hora ISO, ex.: ?de=2024-03-01T00:00&ate=2024-04-01T00:00
+    @GetMapping("/revenue")
+    public ResponseEntity<Map<String, Object>> receitaPorPeriodo(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate,
+            @RequestParam(defaultValue = "DIA") SalesRollupService.Granularidade granularidade) {
+        List<SalesRollupService.Periodo> periodos = salesRollupService.totaisPorPeriodo(de, ate, granularidade);
+
+        return ResponseEntity.ok(Map.of(
+                "de", de,
+                "ate", ate,
+                "granularidade", granularidade,
+                "totalPedidos", periodos.stream().mapToLong(SalesRollupService.Periodo::pedidos).sum(),
+                "totalUnidadesVendidas", periodos.stream()
+                        .mapToLong(SalesRollupService.Periodo::unidadesVendidas).sum(),
+                "totalArrecadado", periodos.stream().map(SalesRollupService.Periodo::receita)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add),
+                "periodos", periodos));
+    }
+
+    @GetMapping("/products")
+    public ResponseEntity<List<SalesRollupService.VendasProduto>> vendasPorProduto(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime de,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime ate) {
+        return ResponseEntity.ok(salesRollupService.totaisPorProduto(de, ate));
+    }
+
+    // Recalcula o consolidado dos dias [de, ate) a partir dos pedidos; sem datas, todo o histórico
+    @PostMapping("/rollup/backfill")
+    public ResponseEntity<SalesRollupService.ResultadoBackfill> backfill(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        return ResponseEntity.ok(salesRollupService.backfill(de, ate));
+    }
+}
@@ -1,32 +1,76 @@
 package com.trincashop.features.orders.controller;
 
+import com.trincashop.features.orders.dto.CreateCartOrderRequest;
 import com.trincashop.features.orders.dto.CreateOrderRequest;
 import com.trincashop.features.orders.dto.OrderResponse;
 import com.trincashop.features.orders.model.Order;
+import com.trincashop.features.orders.model.OrderStatus;
+import com.trincashop.features.orders.service.IdempotencyService;
+import com.trincashop.features.orders.service.OrderAwaitService;
 import com.trincashop.features.orders.service.OrderService;
+import com.trincashop.features.orders.service.PedidoIdempotente;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+    private final OrderAwaitService orderAwaitService;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, IdempotencyService idempotencyService,
+            OrderAwaitService orderAwaitService) {
         this.orderService = orderService;
+        this.idempotencyService = idempotencyService;
+        this.orderAwaitService = orderAwaitService;
     }
 
     @PostMapping
-    public ResponseEntity<OrderResponse> criarPedido(@Valid @RequestBody CreateOrderRequest request) {
-        Order order = orderService.criarPedido(request.getProductId());
-        return ResponseEntity.status(HttpStatus.CREATED).body(OrderResponse.fromEntity(order));
+    public ResponseEntity<OrderResponse> criarPedido(@Valid @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            Order order = orderService.criarPedido(request.getProductId(), request.getFridgeId());
+            return ResponseEntity.status(HttpStatus.CREATED).body(OrderResponse.fromEntity(order));
+        }
+        PedidoIdempotente pedido = idempotencyService.criarPedido(idempotencyKey, request.getProductId(),
+                request.getFridgeId());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Idempotent-Replayed", String.valueOf(pedido.repetido()))
+                .body(pedido.resposta());
+    }
+
+    @PostMapping("/cart")
+    public ResponseEntity<List<OrderResponse>> criarPedidoCarrinho(
+            @Valid @RequestBody CreateCartOrderRequest request) {
+        List<OrderResponse> pedidos = orderService.criarPedidoCarrinho(request.getItens(), request.getFridgeId())
+                .stream()
+                .map(OrderResponse::fromEntity)
+                .collect(Collectors.toList());
+        return ResponseEntity.status(HttpStatus.CREATED).body(pedidos);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<OrderResponse> buscarPedido(@PathVariable Long id) {
-        return ResponseEntity.ok(OrderResponse.fromEntity(orderService.buscarPorId(id)));
+        return ResponseEntity.ok(orderService.buscarResposta(id));
+    }
+
+    // Long-poll para o quiosque: responde quando o pedido chega ao status (ou não
+    // pode mais chegar) ou com o estado atual ao fim do timeout (ex.: 30s, máx. 60s).
+    // Pública, como a consulta acima; o limite de esperas é por IP e por pedido.
+    @GetMapping("/{id}/await")
+    public DeferredResult<OrderResponse> aguardarPedido(@PathVariable Long id,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String timeout,
+            HttpServletRequest request) {
+        return orderAwaitService.aguardar(id, status, timeout, request.getRemoteAddr());
     }
 }
@@ -0,0 +1,34 @@
+package com.trincashop.features.orders.dto;
+
+import com.trincashop.features.orders.model.OrderStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class BulkUpdateOrderStatusRequest {
+
+    @NotEmpty(message = "Informe ao menos um pedido")
+    @Size(max = 500, message = "No máximo 500 pedidos por vez")
+    private List<@NotNull Long> ids;
+
+    @NotNull(message = "Status é obrigatório")
+    private OrderStatus status;
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+}
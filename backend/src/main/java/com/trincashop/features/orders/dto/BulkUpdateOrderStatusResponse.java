@@ -0,0 +1,41 @@
+package com.trincashop.features.orders.dto;
+
+import com.trincashop.features.orders.model.OrderStatus;
+
+import java.util.List;
+
+public class BulkUpdateOrderStatusResponse {
+
+    private final OrderStatus status;
+    private final int atualizados;
+    private final int rejeitados;
+    private final List<Resultado> resultados;
+
+    public BulkUpdateOrderStatusResponse(OrderStatus status, List<Resultado> resultados) {
+        this.status = status;
+        this.resultados = resultados;
+        this.atualizados = (int) resultados.stream().filter(Resultado::sucesso).count();
+        this.rejeitados = resultados.size() - atualizados;
+    }
+
+    // Resultado de cada ID, na ordem do pedido; erro é nulo quando deu certo
+    public record Resultado(Long id, boolean sucesso, OrderStatus statusAnterior, String erro) {
+    }
+
+    // Getters
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public int getAtualizados() {
+        return atualizados;
+    }
+
+    public int getRejeitados() {
+        return rejeitados;
+    }
+
+    public List<Resultado> getResultados() {
+        return resultados;
+    }
+}
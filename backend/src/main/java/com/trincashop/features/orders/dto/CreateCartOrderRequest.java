@@ -0,0 +1,34 @@
+package com.trincashop.features.orders.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class CreateCartOrderRequest {
+
+    @NotEmpty(message = "O carrinho deve ter ao menos um item")
+    @Size(max = 20, message = "O carrinho deve ter no máximo 20 itens")
+    @Valid
+    private List<CartItemRequest> itens;
+
+    // Todos os itens saem da mesma geladeira; sem ela, do estoque central
+    private Long fridgeId;
+
+    public List<CartItemRequest> getItens() {
+        return itens;
+    }
+
+    public void setItens(List<CartItemRequest> itens) {
+        this.itens = itens;
+    }
+
+    public Long getFridgeId() {
+        return fridgeId;
+    }
+
+    public void setFridgeId(Long fridgeId) {
+        this.fridgeId = fridgeId;
+    }
+}
@@ -7,6 +7,9 @@ public class CreateOrderRequest {
     @NotNull(message = "ID do produto é obrigatório")
     private Long productId;
 
+    // Geladeira do quiosque; sem ela a unidade sai do estoque central
+    private Long fridgeId;
+
     public Long getProductId() {
         return productId;
     }
@@ -14,4 +17,12 @@ public class CreateOrderRequest {
     public void setProductId(Long productId) {
         this.productId = productId;
     }
+
+    public Long getFridgeId() {
+        return fridgeId;
+    }
+
+    public void setFridgeId(Long fridgeId) {
+        this.fridgeId = fridgeId;
+    }
 }
@@ -0,0 +1,35 @@
+package com.trincashop.features.orders.dto;
+
+import com.trincashop.core.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posição na listagem de pedidos ordenada por (createdAt, id). Vai para o
+ * cliente como texto opaco (Base64 URL-safe de "createdAt_id").
+ */
+public record OrderCursor(LocalDateTime createdAt, Long id) {
+
+    public static OrderCursor depoisDe(OrderResponse order) {
+        return new OrderCursor(order.getCreatedAt(), order.getId());
+    }
+
+    public static OrderCursor decodificar(String cursor) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = texto.lastIndexOf('_');
+            return new OrderCursor(LocalDateTime.parse(texto.substring(0, separador)),
+                    Long.parseLong(texto.substring(separador + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException("Cursor inválido");
+        }
+    }
+
+    public String codificar() {
+        String texto = createdAt + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+}
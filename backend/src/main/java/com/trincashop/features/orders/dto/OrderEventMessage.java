@@ -0,0 +1,15 @@
+package com.trincashop.features.orders.dto;
+
+import com.trincashop.features.orders.model.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Corpo dos eventos de pedido enviados pelo outbox. O eventId é o mesmo em todas
+ * as tentativas e destinos: quem recebe deduplica por ele. previousStatus só vem
+ * em order-status-changed.
+ */
+public record OrderEventMessage(UUID eventId, String type, LocalDateTime occurredAt, OrderResponse order,
+        OrderStatus previousStatus) {
+}
@@ -0,0 +1,12 @@
+package com.trincashop.features.orders.dto;
+
+import com.trincashop.features.orders.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Linha da exportação de pedidos. Projeção por construtor no JPQL: o Hibernate
+// não a guarda no contexto de persistência, então a memória não cresce com o total
+public record OrderExportRow(Long id, Long productId, String productName, BigDecimal productPrice, Long fridgeId,
+        OrderStatus status, LocalDateTime createdAt, LocalDateTime updatedAt) {
+}
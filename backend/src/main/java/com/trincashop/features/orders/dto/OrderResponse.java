@@ -12,22 +12,29 @@ public class OrderResponse {
     private String productName;
     private BigDecimal productPrice;
     private OrderStatus status;
+    private Long fridgeId;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
     public OrderResponse() {
     }
 
+    // Usado também como projeção por construtor nas consultas JPQL do OrderRepository
+    public OrderResponse(Long id, Long productId, String productName, BigDecimal productPrice, OrderStatus status,
+            Long fridgeId, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.productId = productId;
+        this.productName = productName;
+        this.productPrice = productPrice;
+        this.status = status;
+        this.fridgeId = fridgeId;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
     public static OrderResponse fromEntity(Order order) {
-        OrderResponse dto = new OrderResponse();
-        dto.id = order.getId();
-        dto.productId = order.getProductId();
-        dto.productName = order.getProductName();
-        dto.productPrice = order.getProductPrice();
-        dto.status = order.getStatus();
-        dto.createdAt = order.getCreatedAt();
-        dto.updatedAt = order.getUpdatedAt();
-        return dto;
+        return new OrderResponse(order.getId(), order.getProductId(), order.getProductName(),
+                order.getProductPrice(), order.getStatus(), order.getFridgeId(), order.getCreatedAt(), order.getUpdatedAt());
     }
 
     // Getters
@@ -51,6 +58,10 @@ public class OrderResponse {
         return status;
     }
 
+    public Long getFridgeId() {
+        return fridgeId;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,43 @@
+package com.trincashop.features.orders.dto;
+
+import com.trincashop.features.orders.model.OrderStatus;
+import com.trincashop.features.orders.model.OrderStatusHistory;
+
+import java.time.LocalDateTime;
+
+public class OrderStatusHistoryResponse {
+
+    private OrderStatus previousStatus;
+    private OrderStatus newStatus;
+    private String changedBy;
+    private LocalDateTime changedAt;
+
+    public OrderStatusHistoryResponse() {
+    }
+
+    public static OrderStatusHistoryResponse fromEntity(OrderStatusHistory registro) {
+        OrderStatusHistoryResponse dto = new OrderStatusHistoryResponse();
+        dto.previousStatus = registro.getPreviousStatus();
+        dto.newStatus = registro.getNewStatus();
+        dto.changedBy = registro.getChangedBy();
+        dto.changedAt = registro.getChangedAt();
+        return dto;
+    }
+
+    // Getters
+    public OrderStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public OrderStatus getNewStatus() {
+        return newStatus;
+    }
+
+    public String getChangedBy() {
+        return changedBy;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+}
@@ -0,0 +1,10 @@
+package com.trincashop.features.orders.dto;
+
+import com.trincashop.features.orders.model.OrderStatus;
+
+/**
+ * Corpo dos eventos do stream SSE de pedidos (order-created e order-status-changed).
+ * Só o que o painel usa: o pedido e, em order-status-changed, o status anterior.
+ */
+public record OrderStreamEvent(OrderResponse pedido, OrderStatus statusAnterior) {
+}
@@ -8,8 +8,10 @@ import java.time.LocalDateTime;
 @Table(name = "orders")
 public class Order {
 
+    // SEQUENCE (e não IDENTITY) para que os INSERTs possam ser agrupados em lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "product_id", nullable = false)
@@ -25,6 +27,16 @@ public class Order {
     @Column(nullable = false, length = 50)
     private OrderStatus status = OrderStatus.PENDING;
 
+    // Geladeira de onde saiu a unidade; null quando veio do estoque central
+    @Column(name = "fridge_id")
+    private Long fridgeId;
+
+    @Column(name = "stock_pending", nullable = false)
+    private Boolean stockPending = false;
+
+    @Column(name = "flash_sale_epoch")
+    private Long flashSaleEpoch;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -90,6 +102,30 @@ public class Order {
         this.status = status;
     }
 
+    public Long getFridgeId() {
+        return fridgeId;
+    }
+
+    public void setFridgeId(Long fridgeId) {
+        this.fridgeId = fridgeId;
+    }
+
+    public Boolean getStockPending() {
+        return stockPending;
+    }
+
+    public void setStockPending(Boolean stockPending) {
+        this.stockPending = stockPending;
+    }
+
+    public Long getFlashSaleEpoch() {
+        return flashSaleEpoch;
+    }
+
+    public void setFlashSaleEpoch(Long flashSaleEpoch) {
+        this.flashSaleEpoch = flashSaleEpoch;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,72 @@
+package com.trincashop.features.orders.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+@Entity
+@Table(name = "order_stats")
+@IdClass(OrderStats.Chave.class)
+public class OrderStats {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private OrderStatus status;
+
+    @Id
+    @Column(nullable = false)
+    private Short slot;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(name = "total_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    public OrderStats() {
+    }
+
+    // Getters
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public Short getSlot() {
+        return slot;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public static class Chave implements Serializable {
+
+        private OrderStatus status;
+        private Short slot;
+
+        public Chave() {
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Chave chave)) {
+                return false;
+            }
+            return status == chave.status && Objects.equals(slot, chave.slot);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(status, slot);
+        }
+    }
+}
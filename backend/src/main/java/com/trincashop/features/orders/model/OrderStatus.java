@@ -1,8 +1,65 @@
 package com.trincashop.features.orders.model;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum OrderStatus {
     PENDING,
     PAID,
     RELEASED,
-    CANCELLED
+    CANCELLED;
+
+    // Status finais: nenhuma transição sai deles
+    public static final Set<OrderStatus> FINAIS = Collections.unmodifiableSet(EnumSet.of(RELEASED, CANCELLED));
+
+    // Transições permitidas: PENDING → PAID/CANCELLED e PAID → RELEASED/CANCELLED.
+    // RELEASED e CANCELLED são finais. Valem para o lote e para o long-poll
+    public boolean podeMudarPara(OrderStatus novo) {
+        return switch (this) {
+            case PENDING -> novo == PAID || novo == CANCELLED;
+            case PAID -> novo == RELEASED || novo == CANCELLED;
+            case RELEASED, CANCELLED -> false;
+        };
+    }
+
+    // Regras do PUT de um pedido, mais largas que as do lote: PAID só a partir de
+    // PENDING, RELEASED só a partir de PAID, CANCELLED de qualquer um menos RELEASED
+    // e PENDING de qualquer um (o admin reabre o pedido)
+    public boolean aceitaAtualizacaoPara(OrderStatus novo) {
+        return switch (novo) {
+            case PAID -> this == PENDING;
+            case RELEASED -> this == PAID;
+            case CANCELLED -> this != RELEASED;
+            case PENDING -> true;
+        };
+    }
+
+    public boolean finalizado() {
+        return FINAIS.contains(this);
+    }
+
+    // Se o alvo ainda é alcançável a partir deste status pelas transições permitidas
+    public boolean podeChegarA(OrderStatus alvo) {
+        if (this == alvo) {
+            return true;
+        }
+        for (OrderStatus proximo : values()) {
+            if (podeMudarPara(proximo) && proximo.podeChegarA(alvo)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Status de onde se pode chegar a este (usado nas atualizações em lote)
+    public Set<OrderStatus> origens() {
+        Set<OrderStatus> origens = EnumSet.noneOf(OrderStatus.class);
+        for (OrderStatus status : values()) {
+            if (status.podeMudarPara(this)) {
+                origens.add(status);
+            }
+        }
+        return origens;
+    }
 }
@@ -0,0 +1,90 @@
+package com.trincashop.features.orders.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "sales_rollup")
+@IdClass(SalesRollup.Chave.class)
+public class SalesRollup {
+
+    @Id
+    @Column(name = "bucket_hour", nullable = false)
+    private LocalDateTime bucketHour;
+
+    @Id
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Id
+    @Column(nullable = false)
+    private Short slot;
+
+    @Column(name = "orders_created", nullable = false)
+    private Long ordersCreated = 0L;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold = 0L;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    public SalesRollup() {
+    }
+
+    // Getters
+    public LocalDateTime getBucketHour() {
+        return bucketHour;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Short getSlot() {
+        return slot;
+    }
+
+    public Long getOrdersCreated() {
+        return ordersCreated;
+    }
+
+    public Long getUnitsSold() {
+        return unitsSold;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public static class Chave implements Serializable {
+
+        private LocalDateTime bucketHour;
+        private Long productId;
+        private Short slot;
+
+        public Chave() {
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Chave chave)) {
+                return false;
+            }
+            return Objects.equals(bucketHour, chave.bucketHour)
+                    && Objects.equals(productId, chave.productId)
+                    && Objects.equals(slot, chave.slot);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bucketHour, productId, slot);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.trincashop.features.orders.repository;
+
+import com.trincashop.features.orders.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    // Grava a chave junto com a resposta. Retorna 0 se a chave já existe e ainda
+    // não expirou (uma requisição concorrente espera o commit da outra e cai aqui).
+    @Modifying
+    @Query(value = """
+            INSERT INTO idempotency_keys (idempotency_key, request_hash, response, created_at, expires_at)
+            VALUES (:chave, :hash, :resposta, CURRENT_TIMESTAMP, :expiraEm)
+            ON CONFLICT (idempotency_key) DO UPDATE
+            SET request_hash = EXCLUDED.request_hash, response = EXCLUDED.response,
+                created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at
+            WHERE idempotency_keys.expires_at < CURRENT_TIMESTAMP
+            """, nativeQuery = true)
+    int registrar(@Param("chave") String chave, @Param("hash") String hash,
+            @Param("resposta") String resposta, @Param("expiraEm") LocalDateTime expiraEm);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :agora")
+    int removerExpiradas(@Param("agora") LocalDateTime agora);
+}
@@ -1,16 +1,144 @@
 package com.trincashop.features.orders.repository;
 
+import com.trincashop.features.orders.dto.OrderExportRow;
+import com.trincashop.features.orders.dto.OrderResponse;
 import com.trincashop.features.orders.model.Order;
 import com.trincashop.features.orders.model.OrderStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-    Page<Order> findByStatus(OrderStatus status, Pageable pageable);
+    // Linhas trazidas do banco por ida na exportação (o driver só usa cursor com fetch size > 0)
+    String TAMANHO_LOTE_EXPORTACAO = "2000";
 
-    List<Order> findAllByStatus(OrderStatus status);
+    // Projeção por construtor das leituras: os DTOs não entram no contexto de
+    // persistência e o Hibernate não guarda snapshot para dirty checking
+    String SELECT_RESPOSTA = "SELECT new com.trincashop.features.orders.dto.OrderResponse(o.id, o.productId, "
+            + "o.productName, o.productPrice, o.status, o.fridgeId, o.createdAt, o.updatedAt) FROM Order o";
+
+    @Query(value = SELECT_RESPOSTA, countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<OrderResponse> listarResumo(Pageable pageable);
+
+    @Query(value = SELECT_RESPOSTA + " WHERE o.status = :status",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.status = :status")
+    Page<OrderResponse> listarResumoPorStatus(@Param("status") OrderStatus status, Pageable pageable);
+
+    @Query(SELECT_RESPOSTA + " WHERE o.id = :id")
+    Optional<OrderResponse> buscarResumo(@Param("id") Long id);
+
+    // Listagem por cursor (keyset): retornar List em vez de Page evita o COUNT(*),
+    // e a comparação de tupla vira um range scan nos índices (created_at, id)
+    // e (status, created_at, id). O Pageable só limita o tamanho da página.
+    // O "createdAt >= :createdAt" redundante permite ao PostgreSQL descartar as
+    // partições (meses) anteriores ao cursor, o que a comparação de tupla não faz.
+    @Query(SELECT_RESPOSTA + " ORDER BY o.createdAt, o.id")
+    List<OrderResponse> buscarPrimeirosPorCursor(Pageable limite);
+
+    @Query(SELECT_RESPOSTA + " WHERE o.createdAt >= :createdAt AND (o.createdAt, o.id) > (:createdAt, :id) "
+            + "ORDER BY o.createdAt, o.id")
+    List<OrderResponse> buscarPorCursor(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+            Pageable limite);
+
+    @Query(SELECT_RESPOSTA + " WHERE o.status = :status ORDER BY o.createdAt, o.id")
+    List<OrderResponse> buscarPrimeirosPorStatusECursor(@Param("status") OrderStatus status, Pageable limite);
+
+    @Query(SELECT_RESPOSTA + " WHERE o.status = :status AND o.createdAt >= :createdAt "
+            + "AND (o.createdAt, o.id) > (:createdAt, :id) ORDER BY o.createdAt, o.id")
+    List<OrderResponse> buscarPorStatusECursor(@Param("status") OrderStatus status,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable limite);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> buscarParaAtualizar(@Param("id") Long id);
+
+    // Exportação (OrderExportService): o Stream precisa ser consumido dentro de uma
+    // transação, onde o PostgreSQL mantém um cursor e entrega TAMANHO_LOTE_EXPORTACAO
+    // linhas por vez em vez do resultado inteiro. O período descarta as partições de fora.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TAMANHO_LOTE_EXPORTACAO))
+    @Query("SELECT new com.trincashop.features.orders.dto.OrderExportRow(o.id, o.productId, o.productName, "
+            + "o.productPrice, o.fridgeId, o.status, o.createdAt, o.updatedAt) FROM Order o "
+            + "WHERE o.createdAt >= :de AND o.createdAt < :ate ORDER BY o.createdAt, o.id")
+    Stream<OrderExportRow> exportar(@Param("de") LocalDateTime de, @Param("ate") LocalDateTime ate);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = TAMANHO_LOTE_EXPORTACAO))
+    @Query("SELECT new com.trincashop.features.orders.dto.OrderExportRow(o.id, o.productId, o.productName, "
+            + "o.productPrice, o.fridgeId, o.status, o.createdAt, o.updatedAt) FROM Order o "
+            + "WHERE o.status = :status AND o.createdAt >= :de AND o.createdAt < :ate ORDER BY o.createdAt, o.id")
+    Stream<OrderExportRow> exportarPorStatus(@Param("status") OrderStatus status, @Param("de") LocalDateTime de,
+            @Param("ate") LocalDateTime ate);
+
+    // Expiração: trava um lote dos PENDING mais antigos, pulando os que outra
+    // transação já travou, e cancela todos no mesmo comando. O join usa a chave
+    // completa (id, created_at) e o limite descarta as partições mais novas.
+    @Query(value = """
+            WITH expirados AS (
+                SELECT id, created_at FROM orders
+                WHERE status = 'PENDING' AND created_at < :limite
+                ORDER BY created_at
+                LIMIT :lote
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE orders o SET status = 'CANCELLED', updated_at = :agora
+            FROM expirados
+            WHERE o.id = expirados.id AND o.created_at = expirados.created_at AND o.created_at < :limite
+            RETURNING o.*
+            """, nativeQuery = true)
+    List<Order> expirarPendentes(@Param("limite") LocalDateTime limite, @Param("lote") int lote,
+            @Param("agora") LocalDateTime agora);
+
+    // Atualização em lote: um UPDATE por status de origem, devolvendo os pedidos
+    // alterados. Sem @Modifying porque o RETURNING é lido como resultado da consulta.
+    @Query(value = """
+            UPDATE orders SET status = :novoStatus, updated_at = :agora
+            WHERE id IN (:ids) AND status = :statusAtual
+            RETURNING *
+            """, nativeQuery = true)
+    List<Order> atualizarStatusEmLote(@Param("ids") Collection<Long> ids,
+            @Param("statusAtual") String statusAtual, @Param("novoStatus") String novoStatus,
+            @Param("agora") LocalDateTime agora);
+
+    // Manutenção das partições mensais (funções criadas na V11)
+    @Query(value = "SELECT orders_criar_particoes(:de, :ate)", nativeQuery = true)
+    int criarParticoes(@Param("de") LocalDate de, @Param("ate") LocalDate ate);
+
+    // Move para partições mensais os pedidos que caíram na partição padrão (V19)
+    @Query(value = "SELECT orders_esvaziar_padrao()", nativeQuery = true)
+    int esvaziarParticaoPadrao();
+
+    @Query(value = "SELECT orders_arquivar_particoes(:antes)", nativeQuery = true)
+    int arquivarParticoes(@Param("antes") LocalDate antes);
+
+    // Início do mês mais antigo ainda anexado a orders
+    @Query(value = """
+            SELECT CAST(MIN(to_date(substr(c.relname, 8), 'YYYY_MM')) AS TIMESTAMP)
+            FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = CAST('orders' AS regclass) AND c.relname ~ '^orders_\\d{4}_\\d{2}$'
+            """, nativeQuery = true)
+    LocalDateTime inicioParticoes();
+
+    interface StatusPorId {
+        Long getId();
+
+        OrderStatus getStatus();
+    }
+
+    @Query("SELECT o.id AS id, o.status AS status FROM Order o WHERE o.id IN :ids")
+    List<StatusPorId> buscarStatus(@Param("ids") Collection<Long> ids);
 }
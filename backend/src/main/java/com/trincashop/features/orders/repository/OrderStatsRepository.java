@@ -0,0 +1,56 @@
+package com.trincashop.features.orders.repository;
+
+import com.trincashop.features.orders.model.OrderStats;
+import com.trincashop.features.orders.model.OrderStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface OrderStatsRepository extends JpaRepository<OrderStats, OrderStats.Chave> {
+
+    interface TotalPorStatus {
+        OrderStatus getStatus();
+
+        Long getQuantidade();
+
+        BigDecimal getValor();
+    }
+
+    @Query("SELECT s.status AS status, SUM(s.orderCount) AS quantidade, SUM(s.totalAmount) AS valor "
+            + "FROM OrderStats s GROUP BY s.status")
+    List<TotalPorStatus> totaisPorStatus();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_stats (status, slot, order_count, total_amount)
+            VALUES (:status, :slot, :quantidade, :valor)
+            ON CONFLICT (status, slot) DO UPDATE
+            SET order_count = order_stats.order_count + EXCLUDED.order_count,
+                total_amount = order_stats.total_amount + EXCLUDED.total_amount
+            """, nativeQuery = true)
+    int incrementar(@Param("status") String status, @Param("slot") short slot,
+            @Param("quantidade") long quantidade, @Param("valor") BigDecimal valor);
+
+    // EXCLUSIVE bloqueia as escritas concorrentes nos contadores (mas não as leituras)
+    // até o fim da reconstrução, então nenhuma transição é contada duas vezes ou perdida
+    @Modifying
+    @Query(value = "LOCK TABLE order_stats IN EXCLUSIVE MODE", nativeQuery = true)
+    void bloquear();
+
+    @Modifying
+    @Query(value = "DELETE FROM order_stats", nativeQuery = true)
+    int limpar();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO order_stats (status, slot, order_count, total_amount)
+            SELECT status, 0, COUNT(*), COALESCE(SUM(product_price), 0)
+            FROM orders
+            GROUP BY status
+            """, nativeQuery = true)
+    int recalcular();
+}
@@ -0,0 +1,105 @@
+package com.trincashop.features.orders.repository;
+
+import com.trincashop.features.orders.model.OutboxEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxRepository extends JpaRepository<OutboxEntry, Long> {
+
+    // Reserva um lote das linhas vencidas, pulando as que outro despachante já travou.
+    // A reserva é o próprio next_attempt_at: se o despachante morrer no meio da
+    // entrega, as linhas voltam a vencer em "reservaAte" e outro as pega.
+    // A tentativa é contada já na reserva.
+    @Query(value = """
+            WITH lote AS (
+                SELECT id FROM order_outbox
+                WHERE dispatched_at IS NULL AND failed_at IS NULL AND next_attempt_at <= :agora
+                ORDER BY next_attempt_at, id
+                LIMIT :tamanho
+                FOR UPDATE SKIP LOCKED
+            )
+            UPDATE order_outbox o SET next_attempt_at = :reservaAte, attempts = o.attempts + 1
+            FROM lote
+            WHERE o.id = lote.id
+            RETURNING o.*
+            """, nativeQuery = true)
+    List<OutboxEntry> reservar(@Param("agora") LocalDateTime agora, @Param("reservaAte") LocalDateTime reservaAte,
+            @Param("tamanho") int tamanho);
+
+    // Entregue continua entregue mesmo que a reserva tenha vencido e outro despachante
+    // a tenha pego de novo: o destino recebe duas vezes, o que o contrato já prevê
+    @Modifying
+    @Query(value = """
+            UPDATE order_outbox SET dispatched_at = :agora, last_error = NULL
+            WHERE id IN (:ids) AND dispatched_at IS NULL
+            """, nativeQuery = true)
+    int marcarEntregues(@Param("ids") Collection<Long> ids, @Param("agora") LocalDateTime agora);
+
+    // Reagenda com espera exponencial (com variação aleatória, para os reenvios não
+    // chegarem juntos) ou desiste depois de "maxTentativas". Só mexe nas linhas que
+    // ainda estão na reserva deste despachante. O CAST evita que o PostgreSQL
+    // deduza o parâmetro como texto dentro do CASE.
+    @Modifying
+    @Query(value = """
+            UPDATE order_outbox SET last_error = :erro,
+                failed_at = CASE WHEN attempts >= :maxTentativas THEN CAST(:agora AS TIMESTAMP) END,
+                next_attempt_at = CAST(:agora AS TIMESTAMP)
+                    + LEAST(:esperaInicialMs * power(2, attempts - 1), :esperaMaximaMs)
+                    * (0.5 + random() / 2) * INTERVAL '1 millisecond'
+            WHERE id IN (:ids) AND dispatched_at IS NULL AND next_attempt_at = :reservaAte
+            """, nativeQuery = true)
+    int marcarFalha(@Param("ids") Collection<Long> ids, @Param("erro") String erro,
+            @Param("agora") LocalDateTime agora, @Param("reservaAte") LocalDateTime reservaAte,
+            @Param("esperaInicialMs") long esperaInicialMs, @Param("esperaMaximaMs") long esperaMaximaMs,
+            @Param("maxTentativas") int maxTentativas);
+
+    // Devolve linhas reservadas que não chegaram a ser tentadas (prazo da reserva ou desligamento)
+    @Modifying
+    @Query(value = """
+            UPDATE order_outbox SET next_attempt_at = :agora, attempts = attempts - 1
+            WHERE id IN (:ids) AND dispatched_at IS NULL AND next_attempt_at = :reservaAte
+            """, nativeQuery = true)
+    int liberar(@Param("ids") Collection<Long> ids, @Param("reservaAte") LocalDateTime reservaAte,
+            @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query(value = """
+            UPDATE order_outbox SET failed_at = NULL, attempts = 0, next_attempt_at = :agora
+            WHERE failed_at IS NOT NULL AND dispatched_at IS NULL
+            """, nativeQuery = true)
+    int reenfileirarFalhas(@Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query(value = "DELETE FROM order_outbox WHERE dispatched_at < :antes", nativeQuery = true)
+    int removerEntreguesAntesDe(@Param("antes") LocalDateTime antes);
+
+    interface ResumoPorDestino {
+        String getSink();
+
+        long getPendentes();
+
+        long getEntregues();
+
+        long getFalhas();
+
+        LocalDateTime getPendenteMaisAntigo();
+    }
+
+    @Query(value = """
+            SELECT sink AS "sink",
+                COUNT(*) FILTER (WHERE dispatched_at IS NULL AND failed_at IS NULL) AS "pendentes",
+                COUNT(*) FILTER (WHERE dispatched_at IS NOT NULL) AS "entregues",
+                COUNT(*) FILTER (WHERE dispatched_at IS NULL AND failed_at IS NOT NULL) AS "falhas",
+                MIN(created_at) FILTER (WHERE dispatched_at IS NULL AND failed_at IS NULL) AS "pendenteMaisAntigo"
+            FROM order_outbox
+            GROUP BY sink
+            ORDER BY sink
+            """, nativeQuery = true)
+    List<ResumoPorDestino> resumirPorDestino();
+}
@@ -0,0 +1,104 @@
+package com.trincashop.features.orders.repository;
+
+import com.trincashop.features.orders.model.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, SalesRollup.Chave> {
+
+    interface TotalPorPeriodo {
+        LocalDateTime getInicio();
+
+        Long getPedidos();
+
+        Long getUnidadesVendidas();
+
+        BigDecimal getReceita();
+    }
+
+    interface TotalPorProduto {
+        Long getProductId();
+
+        String getProductName();
+
+        Long getPedidos();
+
+        Long getUnidadesVendidas();
+
+        BigDecimal getReceita();
+    }
+
+    // A trava compartilhada do dia só conflita com o backfill daquele dia
+    // (que usa a trava exclusiva), nunca com outros pedidos
+    @Modifying
+    @Query(value = """
+            INSERT INTO sales_rollup (bucket_hour, product_id, slot, orders_created, units_sold, revenue)
+            SELECT :bucket, :productId, :slot, :pedidos, :unidades, :receita
+            FROM (SELECT pg_advisory_xact_lock_shared(:classeTrava, :dia)) trava
+            ON CONFLICT (bucket_hour, product_id, slot) DO UPDATE
+            SET orders_created = sales_rollup.orders_created + EXCLUDED.orders_created,
+                units_sold = sales_rollup.units_sold + EXCLUDED.units_sold,
+                revenue = sales_rollup.revenue + EXCLUDED.revenue
+            """, nativeQuery = true)
+    int incrementar(@Param("bucket") LocalDateTime bucket, @Param("productId") Long productId,
+            @Param("slot") short slot, @Param("pedidos") long pedidos, @Param("unidades") long unidades,
+            @Param("receita") BigDecimal receita, @Param("classeTrava") int classeTrava, @Param("dia") int dia);
+
+    // Trava exclusiva do dia: espera os pedidos em andamento daquele dia terminarem
+    // e segura os novos até o backfill do dia ser gravado
+    @Query(value = "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:classeTrava, :dia)) trava", nativeQuery = true)
+    Integer travarDia(@Param("classeTrava") int classeTrava, @Param("dia") int dia);
+
+    @Modifying
+    @Query(value = "DELETE FROM sales_rollup WHERE bucket_hour >= :de AND bucket_hour < :ate", nativeQuery = true)
+    int limparPeriodo(@Param("de") LocalDateTime de, @Param("ate") LocalDateTime ate);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO sales_rollup (bucket_hour, product_id, slot, orders_created, units_sold, revenue)
+            SELECT date_trunc('hour', created_at), product_id, 0,
+                   COUNT(*),
+                   COUNT(*) FILTER (WHERE status IN ('PAID', 'RELEASED')),
+                   COALESCE(SUM(product_price) FILTER (WHERE status IN ('PAID', 'RELEASED')), 0)
+            FROM orders
+            WHERE created_at >= :de AND created_at < :ate
+            GROUP BY 1, 2
+            """, nativeQuery = true)
+    int recalcularPeriodo(@Param("de") LocalDateTime de, @Param("ate") LocalDateTime ate);
+
+    @Query(value = "SELECT MIN(created_at) FROM orders", nativeQuery = true)
+    LocalDateTime primeiroPedido();
+
+    @Query(value = """
+            SELECT date_trunc(:granularidade, bucket_hour) AS inicio,
+                   SUM(orders_created) AS pedidos,
+                   SUM(units_sold) AS unidadesVendidas,
+                   SUM(revenue) AS receita
+            FROM sales_rollup
+            WHERE bucket_hour >= :de AND bucket_hour < :ate
+            GROUP BY 1
+            ORDER BY 1
+            """, nativeQuery = true)
+    List<TotalPorPeriodo> totaisPorPeriodo(@Param("granularidade") String granularidade,
+            @Param("de") LocalDateTime de, @Param("ate") LocalDateTime ate);
+
+    @Query(value = """
+            SELECT r.product_id AS productId,
+                   p.name AS productName,
+                   SUM(r.orders_created) AS pedidos,
+                   SUM(r.units_sold) AS unidadesVendidas,
+                   SUM(r.revenue) AS receita
+            FROM sales_rollup r
+            JOIN products p ON p.id = r.product_id
+            WHERE r.bucket_hour >= :de AND r.bucket_hour < :ate
+            GROUP BY r.product_id, p.name
+            ORDER BY receita DESC, r.product_id
+            """, nativeQuery = true)
+    List<TotalPorProduto> totaisPorProduto(@Param("de") LocalDateTime de, @Param("ate") LocalDateTime ate);
+}
@@ -0,0 +1,165 @@
+package com.trincashop.features.orders.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trincashop.core.cache.ExpiringLruCache;
+import com.trincashop.core.exception.BadRequestException;
+import com.trincashop.features.orders.dto.OrderResponse;
+import com.trincashop.features.orders.model.IdempotencyKey;
+import com.trincashop.features.orders.repository.IdempotencyKeyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotência do POST /api/orders.
+ *
+ * Repetições dentro da janela são respondidas pelo cache em memória, sem acessar o
+ * banco. A chave também é gravada na tabela {@code idempotency_keys}, na mesma
+ * transação do pedido, para sobreviver a restarts: se duas requisições com a mesma
+ * chave correm em paralelo, a segunda espera o commit da primeira no índice único,
+ * é revertida (estoque e pedido) e devolve a resposta gravada.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final int TAMANHO_MAXIMO_CHAVE = 100;
+    private static final long ESPERA_MAXIMA_SEGUNDOS = 10;
+
+    private record RespostaGravada(String hash, OrderResponse resposta) {
+    }
+
+    private static class ChaveJaUtilizadaException extends RuntimeException {
+    }
+
+    private final OrderService orderService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExpiringLruCache<String, RespostaGravada> cache;
+    private final Map<String, CompletableFuture<RespostaGravada>> execucoes = new ConcurrentHashMap<>();
+    private final long ttlMs;
+
+    public IdempotencyService(OrderService orderService,
+            IdempotencyKeyRepository idempotencyKeyRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${trincashop.idempotency.ttl-ms:86400000}") long ttlMs,
+            @Value("${trincashop.idempotency.max-entries:10000}") int maxEntries) {
+        this.orderService = orderService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cache = new ExpiringLruCache<>(maxEntries);
+        this.ttlMs = ttlMs;
+    }
+
+    public PedidoIdempotente criarPedido(String chave, Long productId, Long fridgeId) {
+        if (chave.isBlank() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new BadRequestException("Idempotency-Key deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres");
+        }
+        // Sem geladeira o hash é o de antes, e chaves já gravadas continuam valendo
+        String hash = "POST /api/orders productId=" + productId + (fridgeId != null ? " fridgeId=" + fridgeId : "");
+
+        RespostaGravada emCache = cache.get(chave);
+        if (emCache != null) {
+            return repetir(emCache, hash);
+        }
+
+        // Repetições concorrentes neste processo esperam a primeira em vez de
+        // executar (e reverter) o pedido de novo
+        CompletableFuture<RespostaGravada> execucao = new CompletableFuture<>();
+        CompletableFuture<RespostaGravada> emAndamento = execucoes.putIfAbsent(chave, execucao);
+        if (emAndamento != null) {
+            return repetir(aguardar(emAndamento), hash);
+        }
+        try {
+            PedidoIdempotente pedido = executar(chave, hash, productId, fridgeId);
+            execucao.complete(new RespostaGravada(hash, pedido.resposta()));
+            return pedido;
+        } catch (RuntimeException e) {
+            execucao.completeExceptionally(e);
+            throw e;
+        } finally {
+            execucoes.remove(chave);
+        }
+    }
+
+    private PedidoIdempotente executar(String chave, String hash, Long productId, Long fridgeId) {
+        long expiraEmMillis = System.currentTimeMillis() + ttlMs;
+        LocalDateTime expiraEm = LocalDateTime.now().plusNanos(ttlMs * 1_000_000);
+        try {
+            OrderResponse resposta = transactionTemplate.execute(status -> {
+                OrderResponse criada = OrderResponse.fromEntity(orderService.criarPedido(productId, fridgeId));
+                if (idempotencyKeyRepository.registrar(chave, hash, serializar(criada), expiraEm) == 0) {
+                    throw new ChaveJaUtilizadaException();
+                }
+                return criada;
+            });
+            cache.put(chave, new RespostaGravada(hash, resposta), expiraEmMillis);
+            return new PedidoIdempotente(resposta, false);
+        } catch (ChaveJaUtilizadaException e) {
+            IdempotencyKey existente = idempotencyKeyRepository.findById(chave)
+                    .orElseThrow(() -> new BadRequestException("Idempotency-Key em uso, tente novamente"));
+            RespostaGravada gravada = new RespostaGravada(existente.getRequestHash(),
+                    desserializar(existente.getResponse()));
+            cache.put(chave, gravada, expiraEmMillis);
+            return repetir(gravada, hash);
+        }
+    }
+
+    private RespostaGravada aguardar(CompletableFuture<RespostaGravada> emAndamento) {
+        try {
+            return emAndamento.get(ESPERA_MAXIMA_SEGUNDOS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BadRequestException("Idempotency-Key em uso, tente novamente");
+        } catch (TimeoutException e) {
+            throw new BadRequestException("Idempotency-Key em uso, tente novamente");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trincashop.idempotency.cleanup-interval-ms:600000}")
+    public void removerExpiradas() {
+        cache.removerExpirados();
+        idempotencyKeyRepository.removerExpiradas(LocalDateTime.now());
+    }
+
+    private PedidoIdempotente repetir(RespostaGravada gravada, String hash) {
+        if (!gravada.hash().equals(hash)) {
+            throw new BadRequestException("Idempotency-Key já utilizada com outra requisição");
+        }
+        return new PedidoIdempotente(gravada.resposta(), true);
+    }
+
+    private String serializar(OrderResponse resposta) {
+        try {
+            return objectMapper.writeValueAsString(resposta);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar resposta idempotente", e);
+        }
+    }
+
+    private OrderResponse desserializar(String json) {
+        try {
+            return objectMapper.readValue(json, OrderResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao ler resposta idempotente", e);
+        }
+    }
+}
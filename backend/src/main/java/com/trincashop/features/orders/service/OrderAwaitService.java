@@ -0,0 +1,207 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.core.exception.BadRequestException;
+import com.trincashop.core.exception.TooManyRequestsException;
+import com.trincashop.features.orders.dto.OrderResponse;
+import com.trincashop.features.orders.model.OrderStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long-poll do status de um pedido. A requisição fica estacionada em um
+ * DeferredResult (sem ocupar thread do servlet) e é respondida assim que uma
+ * transição do pedido é commitada, ou com o estado atual quando o tempo acaba.
+ * A rota é pública como GET /api/orders/{id} (o quiosque não tem conta): o abuso é
+ * limitado por IP, por pedido e no total de esperas simultâneas.
+ */
+@Service
+public class OrderAwaitService {
+
+    private final OrderService orderService;
+    private final Duration timeoutPadrao;
+    private final Duration timeoutMaximo;
+    private final int maxEsperas;
+    private final int maxEsperasPorIp;
+    private final int maxEsperasPorPedido;
+    private final Map<Long, Set<Espera>> esperas = new ConcurrentHashMap<>();
+    private final Map<String, Integer> esperasPorIp = new ConcurrentHashMap<>();
+    private final AtomicInteger totalEsperas = new AtomicInteger();
+
+    public OrderAwaitService(OrderService orderService,
+            @Value("${trincashop.order-await.default-timeout-ms:30000}") long timeoutPadraoMs,
+            @Value("${trincashop.order-await.max-timeout-ms:60000}") long timeoutMaximoMs,
+            @Value("${trincashop.order-await.max-waiters:10000}") int maxEsperas,
+            @Value("${trincashop.order-await.max-waiters-per-ip:20}") int maxEsperasPorIp,
+            @Value("${trincashop.order-await.max-waiters-per-order:5}") int maxEsperasPorPedido) {
+        this.orderService = orderService;
+        this.timeoutPadrao = Duration.ofMillis(timeoutPadraoMs);
+        this.timeoutMaximo = Duration.ofMillis(timeoutMaximoMs);
+        this.maxEsperas = maxEsperas;
+        this.maxEsperasPorIp = maxEsperasPorIp;
+        this.maxEsperasPorPedido = maxEsperasPorPedido;
+    }
+
+    // Sem status alvo, responde na primeira mudança em relação ao status atual.
+    // Acima do limite do IP ou do pedido a resposta é 429.
+    public DeferredResult<OrderResponse> aguardar(Long id, OrderStatus alvo, String timeout, String ip) {
+        Duration duracao = converterTimeout(timeout);
+        if (!reservarIp(ip)) {
+            throw new TooManyRequestsException("Limite de esperas simultâneas atingido", 5);
+        }
+
+        // A espera é registrada antes da leitura: uma transição commitada entre as
+        // duas etapas ou aparece na leitura ou chega pelo evento
+        DeferredResult<OrderResponse> resultado = new DeferredResult<>(duracao.toMillis());
+        Espera espera = new Espera(alvo, resultado);
+        boolean registrada = totalEsperas.get() < maxEsperas;
+        if (registrada && !registrar(id, espera)) {
+            liberarIp(ip);
+            throw new TooManyRequestsException("Limite de esperas simultâneas para o pedido atingido", 5);
+        }
+
+        OrderResponse atual;
+        try {
+            atual = orderService.buscarResposta(id);
+        } catch (RuntimeException e) {
+            remover(id, espera);
+            liberarIp(ip);
+            throw e;
+        }
+        espera.statusInicial = atual.getStatus();
+
+        // Acima do limite de esperas a resposta é imediata (o cliente volta a consultar)
+        if (!registrada || espera.concluida(atual.getStatus())) {
+            remover(id, espera);
+            liberarIp(ip);
+            resultado.setResult(atual);
+            return resultado;
+        }
+        resultado.onTimeout(() -> resultado.setResult(espera.ultimoEvento != null ? espera.ultimoEvento : atual));
+        resultado.onCompletion(() -> {
+            remover(id, espera);
+            liberarIp(ip);
+        });
+
+        // Evento que chegou enquanto a leitura acima ainda não tinha terminado
+        OrderResponse evento = espera.ultimoEvento;
+        if (evento != null && espera.concluida(evento.getStatus())) {
+            resultado.setResult(evento);
+        }
+        return resultado;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoAlterarPedido(OrderEvent evento) {
+        if (evento.tipo() != OrderEvent.Tipo.STATUS_ALTERADO) {
+            return;
+        }
+        Set<Espera> doPedido = esperas.get(evento.pedido().getId());
+        if (doPedido == null) {
+            return;
+        }
+        for (Espera espera : doPedido) {
+            espera.ultimoEvento = evento.pedido();
+            if (espera.statusInicial != null && espera.concluida(evento.pedido().getStatus())) {
+                espera.resultado.setResult(evento.pedido());
+            }
+        }
+    }
+
+    public int quantidadeEsperas() {
+        return totalEsperas.get();
+    }
+
+    private Duration converterTimeout(String timeout) {
+        if (timeout == null || timeout.isBlank()) {
+            return timeoutPadrao;
+        }
+        Duration duracao;
+        try {
+            // "30s", "500ms", "1m" ou só o número em segundos
+            duracao = DurationStyle.detectAndParse(timeout, ChronoUnit.SECONDS);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Timeout inválido: " + timeout);
+        }
+        if (duracao.isNegative() || duracao.isZero()) {
+            throw new BadRequestException("O timeout deve ser positivo");
+        }
+        return duracao.compareTo(timeoutMaximo) > 0 ? timeoutMaximo : duracao;
+    }
+
+    // Falso se o pedido já tem o máximo de esperas
+    private boolean registrar(Long id, Espera espera) {
+        boolean[] registrada = {false};
+        esperas.compute(id, (chave, doPedido) -> {
+            Set<Espera> conjunto = doPedido != null ? doPedido : ConcurrentHashMap.newKeySet();
+            if (conjunto.size() < maxEsperasPorPedido) {
+                registrada[0] = conjunto.add(espera);
+            }
+            return conjunto.isEmpty() ? null : conjunto;
+        });
+        if (registrada[0]) {
+            totalEsperas.incrementAndGet();
+        }
+        return registrada[0];
+    }
+
+    private void remover(Long id, Espera espera) {
+        esperas.computeIfPresent(id, (chave, doPedido) -> {
+            if (doPedido.remove(espera)) {
+                totalEsperas.decrementAndGet();
+            }
+            return doPedido.isEmpty() ? null : doPedido;
+        });
+    }
+
+    // Contagem por IP atualizada dentro do compute: checagem e incremento são
+    // atômicos, e a entrada some quando zera (o mapa não cresce com IPs antigos)
+    private boolean reservarIp(String ip) {
+        boolean[] reservada = {false};
+        esperasPorIp.compute(ip, (chave, atual) -> {
+            int quantidade = atual != null ? atual : 0;
+            if (quantidade >= maxEsperasPorIp) {
+                return atual;
+            }
+            reservada[0] = true;
+            return quantidade + 1;
+        });
+        return reservada[0];
+    }
+
+    private void liberarIp(String ip) {
+        esperasPorIp.computeIfPresent(ip, (chave, atual) -> atual > 1 ? atual - 1 : null);
+    }
+
+    private static final class Espera {
+
+        private final OrderStatus alvo;
+        private final DeferredResult<OrderResponse> resultado;
+        private volatile OrderStatus statusInicial;
+        private volatile OrderResponse ultimoEvento;
+
+        private Espera(OrderStatus alvo, DeferredResult<OrderResponse> resultado) {
+            this.alvo = alvo;
+            this.resultado = resultado;
+        }
+
+        // Também conclui quando o alvo deixou de ser alcançável: o pedido chegou a
+        // um status final ou seguiu por uma transição que não leva ao alvo
+        private boolean concluida(OrderStatus status) {
+            if (alvo == null) {
+                return status != statusInicial;
+            }
+            return status == alvo || status.finalizado() || !status.podeChegarA(alvo);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.features.orders.dto.OrderResponse;
+import com.trincashop.features.orders.model.OrderStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pedido criado ou com status alterado. Publicado pelo OrderService dentro da
+ * transação e entregue aos ouvintes só depois do commit; {@code ocorridoEm} é o
+ * momento da criação ou da transição, não o da entrega.
+ */
+public record OrderEvent(Tipo tipo, OrderResponse pedido, OrderStatus statusAnterior, LocalDateTime ocorridoEm) {
+
+    public enum Tipo {
+        CRIADO("order-created"), STATUS_ALTERADO("order-status-changed");
+
+        private final String evento;
+
+        Tipo(String evento) {
+            this.evento = evento;
+        }
+
+        public String evento() {
+            return evento;
+        }
+    }
+
+    public static OrderEvent criado(OrderResponse pedido) {
+        return new OrderEvent(Tipo.CRIADO, pedido, null, LocalDateTime.now());
+    }
+
+    public static OrderEvent statusAlterado(OrderResponse pedido, OrderStatus statusAnterior) {
+        return new OrderEvent(Tipo.STATUS_ALTERADO, pedido, statusAnterior, LocalDateTime.now());
+    }
+}
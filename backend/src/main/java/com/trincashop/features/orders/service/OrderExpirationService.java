@@ -0,0 +1,57 @@
+package com.trincashop.features.orders.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Cancela pedidos PENDING que passaram do prazo de pagamento e devolve o estoque.
+ * Cada lote roda em uma transação própria, então um ciclo longo não segura travas
+ * e um cancelamento concorrente (admin, lote) nunca cancela o mesmo pedido duas vezes.
+ */
+@Service
+public class OrderExpirationService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderExpirationService.class);
+
+    private final OrderService orderService;
+    private final long ttlMs;
+    private final int tamanhoLote;
+    private final int maxLotes;
+
+    public OrderExpirationService(OrderService orderService,
+            @Value("${trincashop.order-expiration.pending-ttl-ms:43200000}") long ttlMs,
+            @Value("${trincashop.order-expiration.batch-size:200}") int tamanhoLote,
+            @Value("${trincashop.order-expiration.max-batches:50}") int maxLotes) {
+        this.orderService = orderService;
+        this.ttlMs = ttlMs;
+        this.tamanhoLote = tamanhoLote;
+        this.maxLotes = maxLotes;
+    }
+
+    @Scheduled(fixedDelayString = "${trincashop.order-expiration.interval-ms:60000}",
+            initialDelayString = "${trincashop.order-expiration.interval-ms:60000}")
+    public void expirar() {
+        if (ttlMs <= 0) {
+            return;
+        }
+        LocalDateTime limite = LocalDateTime.now().minus(ttlMs, ChronoUnit.MILLIS);
+        int total = 0;
+        // Limite de lotes por ciclo; o que sobrar fica para o próximo
+        for (int lote = 0; lote < maxLotes; lote++) {
+            int expirados = orderService.expirarPendentes(limite, tamanhoLote);
+            total += expirados;
+            if (expirados < tamanhoLote) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Expiração: {} pedido(s) pendente(s) criados antes de {} cancelados", total, limite);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.trincashop.features.orders.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.trincashop.core.exception.BadRequestException;
+import com.trincashop.core.exception.TooManyRequestsException;
+import com.trincashop.features.orders.dto.OrderExportRow;
+import com.trincashop.features.orders.model.OrderStatus;
+import com.trincashop.features.orders.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportação completa de pedidos em CSV ou NDJSON. As linhas saem do cursor do
+ * banco direto para a resposta, sem lista intermediária nem contagem: a memória
+ * usada é a mesma para mil ou cinco milhões de pedidos.
+ * <p>
+ * Cada exportação segura uma conexão do pool enquanto dura, por isso o número de
+ * exportações simultâneas é limitado ({@code trincashop.order-export.max-concurrent}).
+ * A vaga é tomada em {@link #preparar}, antes de a resposta sair, e devolvida pelo
+ * corpo ao terminar ou, se ele não chegou a começar (timeout, erro, cliente que caiu
+ * antes do dispatch assíncrono), no fim do processamento assíncrono
+ * ({@link Exportacao#afterCompletion}).
+ */
+@Service
+public class OrderExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderExportService.class);
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private static final long RETRY_AFTER_SEGUNDOS = 30;
+
+    public enum Formato {
+        CSV("text/csv", "csv"), NDJSON("application/x-ndjson", "ndjson");
+
+        private final MediaType tipo;
+        private final String extensao;
+
+        Formato(String tipo, String extensao) {
+            this.tipo = MediaType.parseMediaType(tipo + ";charset=UTF-8");
+            this.extensao = extensao;
+        }
+
+        public MediaType tipo() {
+            return tipo;
+        }
+
+        public String extensao() {
+            return extensao;
+        }
+    }
+
+    private final OrderRepository orderRepository;
+    private final OrderPartitionService orderPartitionService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter escritorJson;
+    private final Semaphore vagas;
+
+    public OrderExportService(OrderRepository orderRepository, OrderPartitionService orderPartitionService,
+            PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+            @Value("${trincashop.order-export.max-concurrent:2}") int maxSimultaneas) {
+        this.orderRepository = orderRepository;
+        this.orderPartitionService = orderPartitionService;
+        // Somente leitura: sem flush do Hibernate e BEGIN READ ONLY no PostgreSQL
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        // Um objeto por linha; o flush fica com o buffer, não com cada linha
+        this.escritorJson = objectMapper.writerFor(OrderExportRow.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.vagas = new Semaphore(maxSimultaneas);
+    }
+
+    // Período [de, ate); sem "de", desde o primeiro mês anexado; sem "ate", até agora.
+    // Já sai com a vaga reservada; 429 se houver max-concurrent exportações em andamento.
+    // O chamador registra a exportação como interceptor do processamento assíncrono
+    // para que a vaga volte mesmo se o corpo nunca rodar.
+    public Exportacao preparar(OrderStatus status, LocalDateTime de, LocalDateTime ate,
+            Formato formato, boolean gzip) {
+        LocalDateTime fim = ate != null ? ate : LocalDateTime.now();
+        LocalDateTime inicio = de != null ? de
+                : Objects.requireNonNullElse(orderPartitionService.inicioDosPedidos(), fim);
+        if (inicio.isAfter(fim)) {
+            throw new BadRequestException("A data inicial deve ser anterior à data final");
+        }
+        if (!vagas.tryAcquire()) {
+            throw new TooManyRequestsException("Limite de exportações simultâneas atingido", RETRY_AFTER_SEGUNDOS);
+        }
+        return new Exportacao(status, inicio, fim, formato, gzip);
+    }
+
+    // Corpo da resposta com a vaga já tomada. Quem chega primeiro decide quem a
+    // devolve: o corpo, se começou a exportar, ou o fim do processamento assíncrono,
+    // se o corpo ainda não tinha começado (e aí não começa mais).
+    public final class Exportacao implements StreamingResponseBody, CallableProcessingInterceptor {
+
+        private final OrderStatus status;
+        private final LocalDateTime de;
+        private final LocalDateTime ate;
+        private final Formato formato;
+        private final boolean gzip;
+        private final AtomicReference<Estado> estado = new AtomicReference<>(Estado.RESERVADA);
+
+        private Exportacao(OrderStatus status, LocalDateTime de, LocalDateTime ate, Formato formato, boolean gzip) {
+            this.status = status;
+            this.de = de;
+            this.ate = ate;
+            this.formato = formato;
+            this.gzip = gzip;
+        }
+
+        @Override
+        public void writeTo(OutputStream saida) throws IOException {
+            if (!estado.compareAndSet(Estado.RESERVADA, Estado.EXPORTANDO)) {
+                throw new IOException("Exportação de pedidos encerrada antes de começar");
+            }
+            try {
+                exportar(status, de, ate, formato, gzip ? new GZIPOutputStream(saida, TAMANHO_BUFFER) : saida);
+            } finally {
+                estado.set(Estado.ENCERRADA);
+                vagas.release();
+            }
+        }
+
+        @Override
+        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+            liberar();
+        }
+
+        // Devolve a vaga se o corpo ainda não começou
+        public void liberar() {
+            if (estado.compareAndSet(Estado.RESERVADA, Estado.ENCERRADA)) {
+                vagas.release();
+            }
+        }
+    }
+
+    private enum Estado { RESERVADA, EXPORTANDO, ENCERRADA }
+
+    // Vagas livres agora (para testes)
+    int vagasLivres() {
+        return vagas.availablePermits();
+    }
+
+    private void exportar(OrderStatus status, LocalDateTime de, LocalDateTime ate, Formato formato,
+            OutputStream saida) throws IOException {
+        long inicio = System.nanoTime();
+        Long total;
+        try {
+            total = transactionTemplate.execute(tx -> {
+                try (Stream<OrderExportRow> linhas = status != null
+                        ? orderRepository.exportarPorStatus(status, de, ate)
+                        : orderRepository.exportar(de, ate)) {
+                    return formato == Formato.CSV ? escreverCsv(linhas.iterator(), saida)
+                            : escreverNdjson(linhas.iterator(), saida);
+                } catch (IOException e) {
+                    // Normalmente o cliente desistiu do download
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            log.warn("Exportação de pedidos interrompida: {}", e.getCause().getMessage());
+            throw e.getCause();
+        }
+        log.info("Exportação de pedidos: {} linha(s) em {} ({}, status={}, [{}, {})) em {} ms", total, formato,
+                saida instanceof GZIPOutputStream ? "gzip" : "sem compressão", status, de, ate,
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private long escreverCsv(Iterator<OrderExportRow> linhas, OutputStream saida) throws IOException {
+        Writer csv = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+        csv.write("id,product_id,product_name,product_price,fridge_id,status,created_at,updated_at\n");
+        long total = 0;
+        while (linhas.hasNext()) {
+            OrderExportRow linha = linhas.next();
+            csv.write(String.valueOf(linha.id()));
+            csv.write(',');
+            csv.write(String.valueOf(linha.productId()));
+            csv.write(',');
+            csv.write(campoCsv(linha.productName()));
+            csv.write(',');
+            csv.write(linha.productPrice().toPlainString());
+            csv.write(',');
+            // Pedido do estoque central: campo vazio
+            if (linha.fridgeId() != null) {
+                csv.write(String.valueOf(linha.fridgeId()));
+            }
+            csv.write(',');
+            csv.write(linha.status().name());
+            csv.write(',');
+            csv.write(linha.createdAt().toString());
+            csv.write(',');
+            csv.write(linha.updatedAt().toString());
+            csv.write('\n');
+            total++;
+        }
+        // close() também encerra o gzip (trailer); a resposta é fechada pelo Spring
+        csv.close();
+        return total;
+    }
+
+    private long escreverNdjson(Iterator<OrderExportRow> linhas, OutputStream saida) throws IOException {
+        long total = 0;
+        try (JsonGenerator gerador = escritorJson.createGenerator(saida)) {
+            while (linhas.hasNext()) {
+                escritorJson.writeValue(gerador, linhas.next());
+                total++;
+            }
+            if (total > 0) {
+                gerador.writeRaw('\n');
+            }
+        }
+        return total;
+    }
+
+    // Aspas só quando o nome tem vírgula, aspas ou quebra de linha (RFC 4180)
+    private static String campoCsv(String valor) {
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0
+                && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,274 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.features.orders.model.OrderStatusHistory;
+import com.trincashop.features.orders.repository.OrderStatusHistoryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Histórico de status dos pedidos ({@code order_status_history}). As transições
+ * entram em uma fila em memória depois do commit e uma thread própria grava em
+ * lote, então o caminho do admin não espera o INSERT.
+ * <p>
+ * O lote é gravado quando chega a {@code batch-size} registros ou quando o mais
+ * antigo espera {@code flush-interval-ms}. No desligamento a fila é esvaziada
+ * depois que o servidor web para de receber requisições. Se a fila estiver cheia,
+ * o registro é gravado na hora por quem chamou: mais lento, mas nada se perde.
+ * <p>
+ * Um lote que falha é regravado com espera crescente até {@code max-attempts}
+ * vezes e então vai para o dead-letter (log de erro com cada registro e a métrica
+ * {@code trincashop.order.history.dead-lettered}), para não travar a fila. Se a
+ * falha é de integridade, o lote é dividido ao meio até isolar o registro ruim.
+ */
+@Service
+public class OrderHistoryService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderHistoryService.class);
+
+    // Responsável pelas transições feitas fora de uma requisição autenticada (expiração)
+    static final String SISTEMA = "sistema";
+
+    // Para depois do servidor web (graceful shutdown e stop ficam acima de MAX_VALUE - 2048)
+    private static final int FASE = Integer.MAX_VALUE - 4096;
+
+    private static final long ESPERA_MAXIMA_MS = 100;
+
+    private final OrderStatusHistoryRepository historyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<OrderStatusHistory> fila;
+    // Na fila ou no lote em gravação
+    private final AtomicInteger pendentes = new AtomicInteger();
+    private final int tamanhoLote;
+    private final long intervaloMs;
+    private final long timeoutDesligamentoMs;
+    private final int maxTentativas;
+    private final Counter gravados;
+    private final Counter gravadosNaHora;
+    private final Counter descartados;
+
+    private volatile boolean ativo;
+    private Thread escritor;
+
+    public OrderHistoryService(OrderStatusHistoryRepository historyRepository,
+            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${trincashop.order-history.queue-capacity:50000}") int capacidadeFila,
+            @Value("${trincashop.order-history.batch-size:500}") int tamanhoLote,
+            @Value("${trincashop.order-history.flush-interval-ms:1000}") long intervaloMs,
+            @Value("${trincashop.order-history.shutdown-timeout-ms:10000}") long timeoutDesligamentoMs,
+            @Value("${trincashop.order-history.max-attempts:5}") int maxTentativas) {
+        this.historyRepository = historyRepository;
+        // Transação própria: a gravação na hora roda dentro do afterCommit de outra transação
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.fila = new ArrayBlockingQueue<>(capacidadeFila);
+        this.tamanhoLote = tamanhoLote;
+        this.intervaloMs = intervaloMs;
+        this.timeoutDesligamentoMs = timeoutDesligamentoMs;
+        this.maxTentativas = Math.max(1, maxTentativas);
+
+        Gauge.builder("trincashop.order.history.queue.size", pendentes, AtomicInteger::get)
+                .description("Transições aguardando gravação no histórico (fila + lote em gravação)")
+                .register(meterRegistry);
+        this.gravados = Counter.builder("trincashop.order.history.written")
+                .description("Registros gravados no histórico")
+                .register(meterRegistry);
+        this.gravadosNaHora = Counter.builder("trincashop.order.history.written.sync")
+                .description("Registros gravados na hora por fila cheia ou escritor parado")
+                .register(meterRegistry);
+        this.descartados = Counter.builder("trincashop.order.history.dead-lettered")
+                .description("Registros que esgotaram as tentativas e só ficaram no log de erro")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoAlterarPedido(OrderEvent evento) {
+        if (evento.tipo() != OrderEvent.Tipo.STATUS_ALTERADO) {
+            return;
+        }
+        registrar(new OrderStatusHistory(evento.pedido().getId(), evento.statusAnterior(),
+                evento.pedido().getStatus(), responsavelAtual(), evento.ocorridoEm()));
+    }
+
+    public List<OrderStatusHistory> listar(Long orderId) {
+        return historyRepository.findByOrderIdOrderByChangedAtAscIdAsc(orderId);
+    }
+
+    void registrar(OrderStatusHistory registro) {
+        pendentes.incrementAndGet();
+        if (ativo && fila.offer(registro)) {
+            return;
+        }
+        pendentes.decrementAndGet();
+        try {
+            gravar(List.of(registro));
+            gravadosNaHora.increment();
+        } catch (RuntimeException e) {
+            // O pedido já foi confirmado; a falha não pode virar erro na resposta
+            log.error("Histórico: transição do pedido {} ({} -> {}) não gravada", registro.getOrderId(),
+                    registro.getPreviousStatus(), registro.getNewStatus(), e);
+        }
+    }
+
+    private void executar() {
+        List<OrderStatusHistory> lote = new ArrayList<>(tamanhoLote);
+        long prazo = 0;
+        while (ativo || !fila.isEmpty() || !lote.isEmpty()) {
+            try {
+                // Espera em fatias curtas para perceber o stop() sem precisar de interrupção
+                OrderStatusHistory registro = fila.poll(ESPERA_MAXIMA_MS, TimeUnit.MILLISECONDS);
+                if (registro != null) {
+                    if (lote.isEmpty()) {
+                        prazo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+                    }
+                    lote.add(registro);
+                    fila.drainTo(lote, tamanhoLote - lote.size());
+                }
+            } catch (InterruptedException e) {
+                // Só acontece se o stop() desistir de esperar; grava o que já foi retirado
+                Thread.currentThread().interrupt();
+                gravarComRetentativa(lote);
+                return;
+            }
+            if (!lote.isEmpty() && (lote.size() >= tamanhoLote || System.nanoTime() >= prazo || !ativo)) {
+                gravarComRetentativa(lote);
+                lote.clear();
+            }
+        }
+    }
+
+    private void gravarComRetentativa(List<OrderStatusHistory> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+        try {
+            tentarGravar(lote);
+        } finally {
+            pendentes.addAndGet(-lote.size());
+        }
+    }
+
+    // Tenta de novo com espera crescente até maxTentativas (3 no desligamento) e então
+    // manda o lote para o dead-letter. Falha de integridade não melhora com o tempo:
+    // o lote é dividido ao meio na hora, até sobrar só o registro ruim.
+    private void tentarGravar(List<OrderStatusHistory> lote) {
+        long esperaMs = 100;
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                gravar(lote);
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (lote.size() == 1) {
+                    descartar(lote, e);
+                    return;
+                }
+                int meio = lote.size() / 2;
+                tentarGravar(lote.subList(0, meio));
+                tentarGravar(lote.subList(meio, lote.size()));
+                return;
+            } catch (RuntimeException e) {
+                if (tentativa >= (ativo ? maxTentativas : Math.min(3, maxTentativas))) {
+                    descartar(lote, e);
+                    return;
+                }
+                log.warn("Histórico: falha ao gravar lote de {} (tentativa {}): {}", lote.size(), tentativa,
+                        e.getMessage());
+            }
+            try {
+                Thread.sleep(esperaMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                descartar(lote, e);
+                return;
+            }
+            esperaMs = Math.min(esperaMs * 2, 5000);
+        }
+    }
+
+    // Dead-letter: cada registro vai para o log de erro com todos os campos, o
+    // suficiente para regravá-lo à mão
+    private void descartar(List<OrderStatusHistory> lote, Exception causa) {
+        log.error("Histórico: {} transição(ões) não gravadas após as tentativas", lote.size(), causa);
+        for (OrderStatusHistory registro : lote) {
+            log.error("Histórico dead-letter: pedido={} de={} para={} por={} em={}", registro.getOrderId(),
+                    registro.getPreviousStatus(), registro.getNewStatus(), registro.getChangedBy(),
+                    registro.getChangedAt());
+        }
+        descartados.increment(lote.size());
+    }
+
+    // Um saveAll por lote: o Hibernate agrupa os INSERTs (jdbc.batch_size) e o driver
+    // os reescreve em INSERTs de várias linhas (reWriteBatchedInserts)
+    private void gravar(List<OrderStatusHistory> lote) {
+        transactionTemplate.executeWithoutResult(status -> historyRepository.saveAll(lote));
+        gravados.increment(lote.size());
+    }
+
+    private static String responsavelAtual() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacao == null || autenticacao instanceof AnonymousAuthenticationToken) {
+            return SISTEMA;
+        }
+        return autenticacao.getName();
+    }
+
+    @Override
+    public void start() {
+        ativo = true;
+        escritor = new Thread(this::executar, "order-history-writer");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    @Override
+    public void stop() {
+        ativo = false;
+        try {
+            escritor.join(timeoutDesligamentoMs);
+            if (escritor.isAlive()) {
+                log.error("Histórico: escritor não terminou em {} ms; {} transição(ões) na fila",
+                        timeoutDesligamentoMs, fila.size());
+                escritor.interrupt();
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        // Registro que entrou na fila entre a última checagem do escritor e o fim dele
+        List<OrderStatusHistory> restantes = new ArrayList<>();
+        fila.drainTo(restantes);
+        gravarComRetentativa(restantes);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return ativo;
+    }
+
+    @Override
+    public int getPhase() {
+        return FASE;
+    }
+}
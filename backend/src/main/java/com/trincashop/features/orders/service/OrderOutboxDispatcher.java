@@ -0,0 +1,272 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.core.outbox.OutboxMessage;
+import com.trincashop.core.outbox.OutboxSink;
+import com.trincashop.features.orders.model.OutboxEntry;
+import com.trincashop.features.orders.repository.OutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Entrega o outbox de pedidos aos destinos ({@link OutboxSink}) com threads próprias,
+ * separadas das requisições: a vazão de entrega cresce com
+ * {@code trincashop.outbox.dispatcher.threads} sem mexer no caminho do pedido; com
+ * {@code enabled: false} o backend só grava e as linhas esperam.
+ * <p>
+ * Cada rodada reserva um lote com {@code FOR UPDATE SKIP LOCKED} em uma transação
+ * curta, entrega fora de qualquer transação e grava o resultado em outra. Falhas
+ * voltam com espera exponencial até {@code max-attempts}. Se o processo cair no
+ * meio, as linhas reservadas voltam a vencer depois de {@code lease-ms} e são
+ * entregues de novo: a entrega é pelo menos uma vez.
+ */
+@Service
+public class OrderOutboxDispatcher implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderOutboxDispatcher.class);
+
+    // Mesma fase do escritor do histórico: para depois do servidor web
+    private static final int FASE = Integer.MAX_VALUE - 4096;
+
+    private static final int TAMANHO_MAXIMO_ERRO = 500;
+
+    private final OutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, OutboxSink> destinos;
+    private final Map<String, Counter> entregues;
+    private final Map<String, Counter> falhas;
+    private final boolean habilitado;
+    private final int numeroThreads;
+    private final int tamanhoLote;
+    private final long intervaloMs;
+    private final long reservaMs;
+    private final int maxTentativas;
+    private final long esperaInicialMs;
+    private final long esperaMaximaMs;
+    private final long timeoutDesligamentoMs;
+
+    private final Object sinal = new Object();
+    private boolean acordado;
+    private volatile boolean ativo;
+    private final List<Thread> despachantes = new ArrayList<>();
+
+    public OrderOutboxDispatcher(OutboxRepository outboxRepository, PlatformTransactionManager transactionManager,
+            ObjectProvider<OutboxSink> sinks, MeterRegistry meterRegistry,
+            @Value("${trincashop.outbox.dispatcher.enabled:true}") boolean habilitado,
+            @Value("${trincashop.outbox.dispatcher.threads:2}") int numeroThreads,
+            @Value("${trincashop.outbox.dispatcher.batch-size:100}") int tamanhoLote,
+            @Value("${trincashop.outbox.dispatcher.poll-interval-ms:1000}") long intervaloMs,
+            @Value("${trincashop.outbox.dispatcher.lease-ms:60000}") long reservaMs,
+            @Value("${trincashop.outbox.dispatcher.max-attempts:12}") int maxTentativas,
+            @Value("${trincashop.outbox.dispatcher.backoff-initial-ms:1000}") long esperaInicialMs,
+            @Value("${trincashop.outbox.dispatcher.backoff-max-ms:600000}") long esperaMaximaMs,
+            @Value("${trincashop.outbox.dispatcher.shutdown-timeout-ms:10000}") long timeoutDesligamentoMs) {
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.destinos = sinks.orderedStream().collect(Collectors.toMap(OutboxSink::nome, Function.identity()));
+        this.entregues = contadores(meterRegistry, "trincashop.outbox.delivered", "Eventos entregues ao destino");
+        this.falhas = contadores(meterRegistry, "trincashop.outbox.failed", "Tentativas de entrega que falharam");
+        this.habilitado = habilitado;
+        this.numeroThreads = numeroThreads;
+        this.tamanhoLote = tamanhoLote;
+        this.intervaloMs = intervaloMs;
+        this.reservaMs = reservaMs;
+        this.maxTentativas = maxTentativas;
+        this.esperaInicialMs = esperaInicialMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.timeoutDesligamentoMs = timeoutDesligamentoMs;
+    }
+
+    // Sem esperar o próximo ciclo: o evento costuma sair logo depois do commit do pedido
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoAlterarPedido(OrderEvent evento) {
+        if (ativo) {
+            synchronized (sinal) {
+                acordado = true;
+                sinal.notifyAll();
+            }
+        }
+    }
+
+    private void executar() {
+        while (ativo) {
+            int reservadas;
+            try {
+                reservadas = despacharLote();
+            } catch (RuntimeException e) {
+                // Banco fora do ar: as linhas reservadas voltam sozinhas quando a reserva vencer
+                log.warn("Outbox: falha ao despachar lote: {}", e.getMessage());
+                reservadas = 0;
+            }
+            // Lote cheio: provavelmente há mais, busca de novo sem esperar
+            if (reservadas < tamanhoLote && !aguardar()) {
+                return;
+            }
+        }
+    }
+
+    private boolean aguardar() {
+        synchronized (sinal) {
+            try {
+                if (!acordado && ativo) {
+                    sinal.wait(intervaloMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            acordado = false;
+        }
+        return true;
+    }
+
+    private int despacharLote() {
+        // O PostgreSQL guarda microssegundos; a reserva é comparada por igualdade depois
+        LocalDateTime agora = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        LocalDateTime reservaAte = agora.plus(reservaMs, ChronoUnit.MILLIS);
+        List<OutboxEntry> lote = transactionTemplate.execute(status ->
+                outboxRepository.reservar(agora, reservaAte, tamanhoLote));
+        if (lote == null || lote.isEmpty()) {
+            return 0;
+        }
+
+        // Para na metade da reserva, com folga para gravar o resultado antes que ela vença
+        long prazo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(reservaMs / 2);
+        List<Long> entreguesNoLote = new ArrayList<>();
+        Map<String, List<Long>> falhasPorErro = new LinkedHashMap<>();
+        List<Long> naoTentadas = new ArrayList<>();
+        boolean interrompido = false;
+        for (OutboxEntry linha : lote) {
+            if (!ativo || interrompido || System.nanoTime() > prazo) {
+                naoTentadas.add(linha.getId());
+                continue;
+            }
+            OutboxSink destino = destinos.get(linha.getSink());
+            if (destino == null) {
+                falhasPorErro.computeIfAbsent("Destino não configurado: " + linha.getSink(), erro -> new ArrayList<>())
+                        .add(linha.getId());
+                continue;
+            }
+            try {
+                destino.entregar(new OutboxMessage(linha.getEventId(), linha.getEventType(), linha.getPayload(),
+                        linha.getAttempts()));
+                entreguesNoLote.add(linha.getId());
+                entregues.get(destino.nome()).increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrompido = true;
+                naoTentadas.add(linha.getId());
+            } catch (Exception e) {
+                falhasPorErro.computeIfAbsent(resumirErro(e), erro -> new ArrayList<>()).add(linha.getId());
+                falhas.get(destino.nome()).increment();
+            }
+        }
+
+        registrarResultado(reservaAte, entreguesNoLote, falhasPorErro, naoTentadas);
+        return lote.size();
+    }
+
+    // Uma transação para o lote todo; as falhas com o mesmo erro vão em um só UPDATE
+    private void registrarResultado(LocalDateTime reservaAte, List<Long> entreguesNoLote,
+            Map<String, List<Long>> falhasPorErro, List<Long> naoTentadas) {
+        LocalDateTime agora = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!entreguesNoLote.isEmpty()) {
+                outboxRepository.marcarEntregues(entreguesNoLote, agora);
+            }
+            falhasPorErro.forEach((erro, ids) -> outboxRepository.marcarFalha(ids, erro, agora, reservaAte,
+                    esperaInicialMs, esperaMaximaMs, maxTentativas));
+            if (!naoTentadas.isEmpty()) {
+                outboxRepository.liberar(naoTentadas, reservaAte, agora);
+            }
+        });
+        if (!falhasPorErro.isEmpty()) {
+            log.warn("Outbox: {} entrega(s) falharam e serão tentadas de novo: {}",
+                    falhasPorErro.values().stream().mapToInt(List::size).sum(), falhasPorErro.keySet());
+        }
+    }
+
+    private static String resumirErro(Exception e) {
+        String erro = e.getMessage() != null ? e.getClass().getSimpleName() + ": " + e.getMessage()
+                : e.getClass().getSimpleName();
+        return erro.length() > TAMANHO_MAXIMO_ERRO ? erro.substring(0, TAMANHO_MAXIMO_ERRO) : erro;
+    }
+
+    private Map<String, Counter> contadores(MeterRegistry meterRegistry, String nome, String descricao) {
+        return destinos.keySet().stream().collect(Collectors.toMap(Function.identity(), destino ->
+                Counter.builder(nome).tag("sink", destino).description(descricao).register(meterRegistry)));
+    }
+
+    @Override
+    public void start() {
+        if (!habilitado || destinos.isEmpty()) {
+            log.info("Outbox: despachante desativado (habilitado={}, destinos={})", habilitado,
+                    destinos.keySet());
+            return;
+        }
+        ativo = true;
+        for (int i = 1; i <= numeroThreads; i++) {
+            Thread despachante = new Thread(this::executar, "order-outbox-dispatcher-" + i);
+            despachante.setDaemon(true);
+            despachante.start();
+            despachantes.add(despachante);
+        }
+        log.info("Outbox: {} thread(s) entregando para {}", numeroThreads, destinos.keySet());
+    }
+
+    @Override
+    public void stop() {
+        if (!ativo) {
+            return;
+        }
+        ativo = false;
+        synchronized (sinal) {
+            sinal.notifyAll();
+        }
+        // As threads terminam a entrega em andamento e devolvem o resto do lote
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutDesligamentoMs);
+        for (Thread despachante : despachantes) {
+            try {
+                despachante.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (despachante.isAlive()) {
+                log.warn("Outbox: {} não terminou a tempo; o lote volta quando a reserva vencer",
+                        despachante.getName());
+                despachante.interrupt();
+            }
+        }
+        despachantes.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return ativo;
+    }
+
+    @Override
+    public int getPhase() {
+        return FASE;
+    }
+}
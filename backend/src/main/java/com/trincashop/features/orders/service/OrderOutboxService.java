@@ -0,0 +1,90 @@
+package com.trincashop.features.orders.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trincashop.core.outbox.OutboxSink;
+import com.trincashop.features.orders.dto.OrderEventMessage;
+import com.trincashop.features.orders.model.OutboxEntry;
+import com.trincashop.features.orders.repository.OutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Grava os eventos de pedido no outbox ({@code order_outbox}) dentro da transação
+ * que criou ou alterou o pedido: se o pedido for confirmado, o evento também é, e
+ * vice-versa. A entrega fica com o {@link OrderOutboxDispatcher}.
+ */
+@Service
+public class OrderOutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderOutboxService.class);
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final List<String> destinos;
+    private final int diasRetencao;
+
+    public OrderOutboxService(OutboxRepository outboxRepository, ObjectMapper objectMapper,
+            ObjectProvider<OutboxSink> sinks,
+            @Value("${trincashop.outbox.retention-days:7}") int diasRetencao) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.destinos = sinks.orderedStream().map(OutboxSink::nome).toList();
+        this.diasRetencao = diasRetencao;
+    }
+
+    // BEFORE_COMMIT roda ainda dentro da transação do pedido: as linhas entram no
+    // mesmo flush (em lote, pela sequência de 50) e uma falha aqui desfaz o pedido
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void aoAlterarPedido(OrderEvent evento) {
+        if (destinos.isEmpty()) {
+            return;
+        }
+        UUID eventId = UUID.randomUUID();
+        LocalDateTime agora = LocalDateTime.now();
+        String payload = serializar(new OrderEventMessage(eventId, evento.tipo().evento(), agora, evento.pedido(),
+                evento.statusAnterior()));
+        for (String destino : destinos) {
+            outboxRepository.save(new OutboxEntry(eventId, evento.tipo().evento(), evento.pedido().getId(), destino,
+                    payload, agora));
+        }
+    }
+
+    public List<OutboxRepository.ResumoPorDestino> resumir() {
+        return outboxRepository.resumirPorDestino();
+    }
+
+    // Devolve para a fila as linhas que esgotaram as tentativas (ex.: depois de o destino voltar)
+    @org.springframework.transaction.annotation.Transactional
+    public int reenfileirarFalhas() {
+        return outboxRepository.reenfileirarFalhas(LocalDateTime.now());
+    }
+
+    @Scheduled(cron = "${trincashop.outbox.cleanup-cron:0 0 4 * * *}")
+    @org.springframework.transaction.annotation.Transactional
+    public void limparEntregues() {
+        LocalDateTime limite = LocalDateTime.now().minusDays(diasRetencao);
+        int removidas = outboxRepository.removerEntreguesAntesDe(limite);
+        if (removidas > 0) {
+            log.info("Outbox: {} evento(s) entregues antes de {} removidos", removidas, limite);
+        }
+    }
+
+    private String serializar(OrderEventMessage mensagem) {
+        try {
+            return objectMapper.writeValueAsString(mensagem);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar evento do pedido " + mensagem.order().getId(), e);
+        }
+    }
+}
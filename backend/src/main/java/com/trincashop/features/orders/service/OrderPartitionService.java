@@ -0,0 +1,85 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.features.orders.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Manutenção das partições mensais de {@code orders} (V11): garante os próximos
+ * meses antes de chegar pedido neles e, se houver retenção configurada, desanexa
+ * os meses antigos para o schema {@code arquivo} em vez de apagar linha a linha.
+ * Pedidos que chegam fora dos meses criados caem na partição padrão (V19) e são
+ * movidos para o mês deles na execução seguinte, com um aviso no log.
+ */
+@Service
+public class OrderPartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderPartitionService.class);
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int mesesAFrente;
+    private final int mesesRetencao;
+
+    public OrderPartitionService(OrderRepository orderRepository, PlatformTransactionManager transactionManager,
+            @Value("${trincashop.order-partitions.months-ahead:3}") int mesesAFrente,
+            @Value("${trincashop.order-partitions.retention-months:0}") int mesesRetencao) {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mesesAFrente = mesesAFrente;
+        this.mesesRetencao = mesesRetencao;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void manterAposInicio() {
+        manter();
+    }
+
+    @Scheduled(cron = "${trincashop.order-partitions.cron:0 30 3 * * *}")
+    public void manter() {
+        Integer meses = transactionTemplate.execute(status -> orderRepository.esvaziarParticaoPadrao());
+        if (meses != null && meses > 0) {
+            log.warn("Partições de pedidos: {} mês(es) tinham pedidos na partição padrão e foram criados; "
+                    + "aumente trincashop.order-partitions.months-ahead ou verifique o cron", meses);
+        }
+
+        LocalDate mesAtual = LocalDate.now().withDayOfMonth(1);
+        Integer criadas = transactionTemplate.execute(status ->
+                orderRepository.criarParticoes(mesAtual, mesAtual.plusMonths(mesesAFrente)));
+        if (criadas != null && criadas > 0) {
+            log.info("Partições de pedidos: {} mês(es) criado(s) até {}", criadas, mesAtual.plusMonths(mesesAFrente));
+        }
+
+        if (mesesRetencao <= 0) {
+            return;
+        }
+        LocalDate limite = mesAtual.minusMonths(mesesRetencao);
+        try {
+            // Transação separada: se o DETACH não conseguir a trava, as partições
+            // futuras já foram garantidas e o arquivamento fica para a próxima execução
+            Integer arquivadas = transactionTemplate.execute(status -> orderRepository.arquivarParticoes(limite));
+            if (arquivadas != null && arquivadas > 0) {
+                log.info("Partições de pedidos: {} mês(es) anteriores a {} movido(s) para o schema arquivo",
+                        arquivadas, limite);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Partições de pedidos: arquivamento adiado ({})", e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    // Pedidos criados antes disso já foram arquivados (ou não existem)
+    public LocalDateTime inicioDosPedidos() {
+        return orderRepository.inicioParticoes();
+    }
+}
@@ -1,85 +1,291 @@
 package com.trincashop.features.orders.service;
 
 import com.trincashop.core.exception.BadRequestException;
+import com.trincashop.core.pagination.CursorPage;
 import com.trincashop.core.exception.ResourceNotFoundException;
+import com.trincashop.features.orders.dto.BulkUpdateOrderStatusResponse;
+import com.trincashop.features.orders.dto.CartItemRequest;
+import com.trincashop.features.orders.dto.OrderCursor;
+import com.trincashop.features.orders.dto.OrderResponse;
 import com.trincashop.features.orders.model.Order;
 import com.trincashop.features.orders.model.OrderStatus;
 import com.trincashop.features.orders.repository.OrderRepository;
 import com.trincashop.features.products.model.Product;
+import com.trincashop.features.products.service.FridgeInventoryService;
 import com.trincashop.features.products.service.ProductService;
+import com.trincashop.features.products.service.ReservaEstoque;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
 
+    private static final int TAMANHO_MAXIMO_PAGINA = 100;
+
     private final OrderRepository orderRepository;
     private final ProductService productService;
+    private final FridgeInventoryService fridgeInventoryService;
+    private final OrderStatsService orderStatsService;
+    private final SalesRollupService salesRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public OrderService(OrderRepository orderRepository, ProductService productService) {
+    public OrderService(OrderRepository orderRepository, ProductService productService,
+            FridgeInventoryService fridgeInventoryService, OrderStatsService orderStatsService,
+            SalesRollupService salesRollupService, ApplicationEventPublisher eventPublisher) {
         this.orderRepository = orderRepository;
         this.productService = productService;
+        this.fridgeInventoryService = fridgeInventoryService;
+        this.orderStatsService = orderStatsService;
+        this.salesRollupService = salesRollupService;
+        this.eventPublisher = eventPublisher;
     }
 
+    // Com geladeira, reduz só a linha dela em fridge_inventory; sem, o estoque central
     @org.springframework.transaction.annotation.Transactional
-    public Order criarPedido(Long productId) {
-        Product product = productService.buscarPorId(productId);
+    public Order criarPedido(Long productId, Long fridgeId) {
+        // Reduz estoque de forma atômica (valida existência, status e estoque)
+        ReservaEstoque reserva = reservarEstoque(productId, fridgeId, 1);
+        Product product = reserva.product();
 
-        if (!Boolean.TRUE.equals(product.getActive())) {
-            throw new BadRequestException("Produto não está disponível");
-        }
+        Order order = new Order(null, product.getId(), product.getName(), product.getPrice(), OrderStatus.PENDING);
+        order.setFridgeId(fridgeId);
+        order.setStockPending(reserva.pendente());
+        order.setFlashSaleEpoch(reserva.epocaFlashSale());
+        Order salvo = orderRepository.save(order);
+        orderStatsService.registrarCriacao(1, salvo.getProductPrice());
+        salesRollupService.registrarCriacao(List.of(salvo));
+        eventPublisher.publishEvent(OrderEvent.criado(OrderResponse.fromEntity(salvo)));
+        return salvo;
+    }
 
-        if (product.getStock() <= 0) {
-            throw new BadRequestException("Produto sem estoque");
+    // Reserva o estoque de todos os itens na mesma transação: se algum falhar,
+    // nada é gravado. Os produtos são processados em ordem de ID para que
+    // carrinhos concorrentes travem as linhas sempre na mesma ordem.
+    @org.springframework.transaction.annotation.Transactional
+    public List<Order> criarPedidoCarrinho(List<CartItemRequest> itens, Long fridgeId) {
+        Map<Long, Integer> quantidades = new TreeMap<>();
+        for (CartItemRequest item : itens) {
+            quantidades.merge(item.getProductId(), item.getQuantidade(), Integer::sum);
         }
 
-        // Reduz estoque
-        product.setStock(product.getStock() - 1);
-        productService.salvar(product);
+        List<Order> pedidos = new ArrayList<>();
+        for (Map.Entry<Long, Integer> item : quantidades.entrySet()) {
+            ReservaEstoque reserva;
+            try {
+                reserva = reservarEstoque(item.getKey(), fridgeId, item.getValue());
+            } catch (BadRequestException e) {
+                throw new BadRequestException(e.getMessage() + " (produto ID: " + item.getKey() + ")");
+            }
+            Product product = reserva.product();
+            for (int i = 0; i < item.getValue(); i++) {
+                Order order = new Order(null, product.getId(), product.getName(), product.getPrice(),
+                        OrderStatus.PENDING);
+                order.setFridgeId(fridgeId);
+                order.setStockPending(reserva.pendente());
+                order.setFlashSaleEpoch(reserva.epocaFlashSale());
+                pedidos.add(order);
+            }
+        }
+        List<Order> salvos = orderRepository.saveAll(pedidos);
+        orderStatsService.registrarCriacao(salvos.size(), salvos.stream()
+                .map(Order::getProductPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        salesRollupService.registrarCriacao(salvos);
+        salvos.forEach(salvo -> eventPublisher.publishEvent(OrderEvent.criado(OrderResponse.fromEntity(salvo))));
+        return salvos;
+    }
 
-        Order order = new Order(null, product.getId(), product.getName(), product.getPrice(), OrderStatus.PENDING);
-        return orderRepository.save(order);
+    private ReservaEstoque reservarEstoque(Long productId, Long fridgeId, int quantidade) {
+        return fridgeId != null
+                ? fridgeInventoryService.reservarEstoque(fridgeId, productId, quantidade)
+                : productService.reservarEstoque(productId, quantidade);
     }
 
-    public Order buscarPorId(Long id) {
-        return orderRepository.findById(id)
+    // Leituras: projeção direto no DTO e transação readOnly (sem flush nem dirty
+    // checking no Hibernate, BEGIN READ ONLY no PostgreSQL)
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public OrderResponse buscarResposta(Long id) {
+        return orderRepository.buscarResumo(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Pedido não encontrado com ID: " + id));
     }
 
-    public Page<Order> listarTodos(Pageable pageable) {
-        return orderRepository.findAll(pageable);
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public Page<OrderResponse> listarTodos(Pageable pageable) {
+        return orderRepository.listarResumo(pageable);
     }
 
-    public Page<Order> listarPorStatus(OrderStatus status, Pageable pageable) {
-        return orderRepository.findByStatus(status, pageable);
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public Page<OrderResponse> listarPorStatus(OrderStatus status, Pageable pageable) {
+        return orderRepository.listarResumoPorStatus(status, pageable);
+    }
+
+    // Busca um item a mais para saber se existe próxima página sem contar a tabela
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public CursorPage<OrderResponse> listarPorCursor(OrderStatus status, String cursor, int tamanho) {
+        if (tamanho < 1 || tamanho > TAMANHO_MAXIMO_PAGINA) {
+            throw new BadRequestException("O tamanho da página deve estar entre 1 e " + TAMANHO_MAXIMO_PAGINA);
+        }
+        Pageable limite = PageRequest.of(0, tamanho + 1);
+        List<OrderResponse> pedidos;
+        if (cursor == null || cursor.isBlank()) {
+            pedidos = status != null
+                    ? orderRepository.buscarPrimeirosPorStatusECursor(status, limite)
+                    : orderRepository.buscarPrimeirosPorCursor(limite);
+        } else {
+            OrderCursor posicao = OrderCursor.decodificar(cursor);
+            pedidos = status != null
+                    ? orderRepository.buscarPorStatusECursor(status, posicao.createdAt(), posicao.id(), limite)
+                    : orderRepository.buscarPorCursor(posicao.createdAt(), posicao.id(), limite);
+        }
+
+        if (pedidos.size() <= tamanho) {
+            return new CursorPage<>(pedidos, tamanho, null);
+        }
+        List<OrderResponse> pagina = pedidos.subList(0, tamanho);
+        return new CursorPage<>(pagina, tamanho, OrderCursor.depoisDe(pagina.get(tamanho - 1)).codificar());
     }
 
     @org.springframework.transaction.annotation.Transactional
     public Order atualizarStatus(Long id, OrderStatus novoStatus) {
-        Order order = buscarPorId(id);
+        // Trava a linha: a expiração automática pode cancelar o mesmo pedido
+        Order order = orderRepository.buscarParaAtualizar(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Pedido não encontrado com ID: " + id));
 
         // Validar transições de status
         OrderStatus statusAtual = order.getStatus();
-        if (novoStatus == OrderStatus.PAID && statusAtual != OrderStatus.PENDING) {
-            throw new BadRequestException("Só é possível marcar como PAGO pedidos com status PENDENTE");
+        if (!statusAtual.aceitaAtualizacaoPara(novoStatus)) {
+            throw new BadRequestException(motivoTransicaoInvalida(statusAtual, novoStatus));
         }
-        if (novoStatus == OrderStatus.RELEASED && statusAtual != OrderStatus.PAID) {
-            throw new BadRequestException("Só é possível liberar pedidos já pagos");
+        if (statusAtual == novoStatus) {
+            // PENDING → PENDING e CANCELLED → CANCELLED: aceitos, sem efeito
+            return order;
         }
-        if (novoStatus == OrderStatus.CANCELLED && statusAtual == OrderStatus.RELEASED) {
-            throw new BadRequestException("Não é possível cancelar pedidos já liberados");
+        if (statusAtual == OrderStatus.CANCELLED) {
+            // Reaberto: o cancelamento devolveu o estoque, então ele é reservado de novo
+            ReservaEstoque reserva = reservarEstoque(order.getProductId(), order.getFridgeId(), 1);
+            order.setStockPending(reserva.pendente());
+            order.setFlashSaleEpoch(reserva.epocaFlashSale());
         }
 
         order.setStatus(novoStatus);
-        return orderRepository.save(order);
+        Order salvo = orderRepository.save(order);
+        aplicarTransicoes(Map.of(statusAtual, List.of(salvo)), novoStatus);
+        return salvo;
+    }
+
+    // Transições de podeMudarPara (sem reabrir nem repetir o status, que o PUT de um
+    // pedido aceita), com um UPDATE por status de origem em vez de carregar e salvar
+    // cada pedido. IDs inexistentes ou com transição inválida são reportados no
+    // resultado e não impedem a atualização dos demais.
+    @org.springframework.transaction.annotation.Transactional
+    public BulkUpdateOrderStatusResponse atualizarStatusEmLote(List<Long> ids, OrderStatus novoStatus) {
+        Set<Long> pedidos = new LinkedHashSet<>(ids);
+        LocalDateTime agora = LocalDateTime.now();
+
+        Map<Long, OrderStatus> anteriores = new TreeMap<>();
+        Map<OrderStatus, List<Order>> alteradosPorOrigem = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus origem : novoStatus.origens()) {
+            List<Order> alterados = orderRepository.atualizarStatusEmLote(pedidos, origem.name(),
+                    novoStatus.name(), agora);
+            if (!alterados.isEmpty()) {
+                alterados.forEach(pedido -> anteriores.put(pedido.getId(), origem));
+                alteradosPorOrigem.put(origem, alterados);
+            }
+        }
+        aplicarTransicoes(alteradosPorOrigem, novoStatus);
+
+        Map<Long, OrderStatus> atuais = anteriores.size() == pedidos.size() ? Map.of()
+                : orderRepository.buscarStatus(pedidos).stream().collect(Collectors.toMap(
+                        OrderRepository.StatusPorId::getId, OrderRepository.StatusPorId::getStatus));
+
+        List<BulkUpdateOrderStatusResponse.Resultado> resultados = new ArrayList<>(pedidos.size());
+        for (Long id : pedidos) {
+            OrderStatus anterior = anteriores.get(id);
+            if (anterior != null) {
+                resultados.add(new BulkUpdateOrderStatusResponse.Resultado(id, true, anterior, null));
+                continue;
+            }
+            OrderStatus atual = atuais.get(id);
+            String erro = atual == null ? "Pedido não encontrado com ID: " + id
+                    : motivoTransicaoInvalida(atual, novoStatus);
+            resultados.add(new BulkUpdateOrderStatusResponse.Resultado(id, false, atual, erro));
+        }
+        return new BulkUpdateOrderStatusResponse(novoStatus, resultados);
+    }
+
+    // Cancela PENDING mais antigos que o limite, em um lote travado com SKIP LOCKED:
+    // outra transação com os mesmos pedidos travados não faz o ciclo esperar
+    @org.springframework.transaction.annotation.Transactional
+    public int expirarPendentes(LocalDateTime limite, int lote) {
+        List<Order> expirados = orderRepository.expirarPendentes(limite, lote, LocalDateTime.now());
+        if (!expirados.isEmpty()) {
+            aplicarTransicoes(Map.of(OrderStatus.PENDING, expirados), OrderStatus.CANCELLED);
+        }
+        return expirados.size();
+    }
+
+    // Cancelamentos devolvem o estoque uma vez por produto (ou por geladeira e
+    // produto) antes dos contadores: a criação de pedidos trava o estoque e depois
+    // os contadores, na mesma ordem
+    private void aplicarTransicoes(Map<OrderStatus, List<Order>> pedidosPorOrigem, OrderStatus para) {
+        if (para == OrderStatus.CANCELLED) {
+            Map<Boolean, List<Order>> porOrigem = pedidosPorOrigem.values().stream()
+                    .flatMap(List::stream)
+                    .collect(Collectors.partitioningBy(pedido -> pedido.getFridgeId() != null));
+            productService.restaurarEstoque(porOrigem.get(false).stream()
+                    .collect(Collectors.groupingBy(Order::getProductId, Collectors.summingInt(pedido -> 1))));
+            fridgeInventoryService.restaurarEstoque(porOrigem.get(true).stream()
+                    .collect(Collectors.groupingBy(
+                            pedido -> new FridgeInventoryService.ItemGeladeira(pedido.getFridgeId(),
+                                    pedido.getProductId()),
+                            Collectors.summingInt(pedido -> 1))));
+        }
+        registrarTransicoes(pedidosPorOrigem, para);
+    }
+
+    // Contadores, consolidado de vendas e eventos (entregues depois do commit). Os
+    // deltas de todas as origens são somados antes: cada linha de order_stats e de
+    // sales_rollup recebe um único UPDATE, na ordem fixa de cada tabela
+    private void registrarTransicoes(Map<OrderStatus, List<Order>> pedidosPorOrigem, OrderStatus para) {
+        Map<OrderStatus, OrderStatsService.Totais> totaisPorOrigem = new EnumMap<>(OrderStatus.class);
+        pedidosPorOrigem.forEach((de, pedidos) -> totaisPorOrigem.put(de, new OrderStatsService.Totais(
+                pedidos.size(), pedidos.stream()
+                        .map(Order::getProductPrice)
+                        .reduce(BigDecimal.ZERO, BigDecimal::add))));
+        orderStatsService.registrarTransicoes(totaisPorOrigem, para);
+        salesRollupService.registrarTransicoes(pedidosPorOrigem, para);
+        pedidosPorOrigem.forEach((de, pedidos) -> pedidos.forEach(pedido -> eventPublisher.publishEvent(
+                OrderEvent.statusAlterado(OrderResponse.fromEntity(pedido), de))));
+    }
+
+    private static String motivoTransicaoInvalida(OrderStatus atual, OrderStatus novo) {
+        if (atual.podeMudarPara(novo)) {
+            return null;
+        }
+        return switch (novo) {
+            case PAID -> "Só é possível marcar como PAGO pedidos com status PENDENTE";
+            case RELEASED -> "Só é possível liberar pedidos já pagos";
+            case CANCELLED -> atual == OrderStatus.CANCELLED ? "Pedido já está cancelado"
+                    : "Não é possível cancelar pedidos já liberados";
+            case PENDING -> "Não é possível voltar um pedido para PENDENTE";
+        };
     }
 
     public BigDecimal calcularTotalArrecadado() {
-        return orderRepository.findAllByStatus(OrderStatus.PAID).stream()
-                .map(Order::getProductPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return orderStatsService.totaisPorStatus().get(OrderStatus.PAID).valor();
     }
 }
@@ -0,0 +1,95 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.features.orders.model.OrderStatus;
+import com.trincashop.features.orders.repository.OrderStatsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Contadores de pedidos e valores por status, atualizados na mesma transação
+ * que cria ou altera o pedido. Cada atualização cai em um slot aleatório do
+ * status para espalhar a contenção entre as linhas.
+ */
+@Service
+public class OrderStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStatsService.class);
+
+    private static final int SLOTS = 8;
+
+    public record Totais(long quantidade, BigDecimal valor) {
+        public static final Totais ZERO = new Totais(0, BigDecimal.ZERO);
+
+        public Totais somar(Totais outro) {
+            return new Totais(quantidade + outro.quantidade, valor.add(outro.valor));
+        }
+    }
+
+    private final OrderStatsRepository orderStatsRepository;
+
+    public OrderStatsService(OrderStatsRepository orderStatsRepository) {
+        this.orderStatsRepository = orderStatsRepository;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCriacao(long quantidade, BigDecimal valor) {
+        incrementar(OrderStatus.PENDING, quantidade, valor);
+    }
+
+    // Transições de uma operação (vários status de origem para o mesmo destino): os
+    // deltas de todas as origens são somados por status e aplicados com um UPDATE por
+    // status, na ordem do enum, para que transações concorrentes travem as linhas
+    // sempre na mesma ordem
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarTransicoes(Map<OrderStatus, Totais> totaisPorOrigem, OrderStatus para) {
+        Map<OrderStatus, Totais> deltas = new EnumMap<>(OrderStatus.class);
+        totaisPorOrigem.forEach((de, totais) -> {
+            if (de != para && totais.quantidade() != 0) {
+                deltas.merge(de, new Totais(-totais.quantidade(), totais.valor().negate()), Totais::somar);
+                deltas.merge(para, totais, Totais::somar);
+            }
+        });
+        deltas.forEach((status, delta) -> {
+            if (delta.quantidade() != 0 || delta.valor().signum() != 0) {
+                incrementar(status, delta.quantidade(), delta.valor());
+            }
+        });
+    }
+
+    public Map<OrderStatus, Totais> totaisPorStatus() {
+        Map<OrderStatus, Totais> totais = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            totais.put(status, Totais.ZERO);
+        }
+        orderStatsRepository.totaisPorStatus().forEach(t -> totais.put(t.getStatus(),
+                new Totais(t.getQuantidade(), t.getValor())));
+        return totais;
+    }
+
+    @Transactional
+    public void reconstruir() {
+        orderStatsRepository.bloquear();
+        orderStatsRepository.limpar();
+        int status = orderStatsRepository.recalcular();
+        log.info("Estatísticas de pedidos reconstruídas a partir de orders ({} status)", status);
+    }
+
+    @Scheduled(cron = "${trincashop.order-stats.rebuild-cron:-}")
+    public void reconstruirAgendado() {
+        reconstruir();
+    }
+
+    private void incrementar(OrderStatus status, long quantidade, BigDecimal valor) {
+        short slot = (short) ThreadLocalRandom.current().nextInt(SLOTS);
+        orderStatsRepository.incrementar(status.name(), slot, quantidade, valor);
+    }
+}
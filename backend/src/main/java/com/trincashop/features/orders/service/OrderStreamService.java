@@ -0,0 +1,47 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.core.sse.SseBroadcaster;
+import com.trincashop.features.orders.dto.OrderStreamEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Stream SSE de pedidos do painel admin. Os eventos chegam depois do commit,
+ * então o painel nunca vê um pedido que acabou revertido.
+ */
+@Service
+public class OrderStreamService {
+
+    private final SseBroadcaster broadcaster;
+
+    public OrderStreamService(
+            @Value("${trincashop.order-stream.buffer-size:256}") int capacidadeFila,
+            @Value("${trincashop.order-stream.timeout-ms:1800000}") long timeoutMs,
+            @Value("${trincashop.order-stream.max-subscribers:100}") int maxAssinantes) {
+        this.broadcaster = new SseBroadcaster("pedidos", capacidadeFila, timeoutMs, maxAssinantes);
+    }
+
+    public SseEmitter assinar() {
+        return broadcaster.assinar();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void aoAlterarPedido(OrderEvent evento) {
+        broadcaster.publicar(evento.tipo().evento(), new OrderStreamEvent(evento.pedido(), evento.statusAnterior()));
+    }
+
+    @Scheduled(fixedDelayString = "${trincashop.order-stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        broadcaster.heartbeat();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        broadcaster.encerrar();
+    }
+}
@@ -0,0 +1,10 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.features.orders.dto.OrderResponse;
+
+/**
+ * Resposta de um POST /api/orders com Idempotency-Key. {@code repetido} indica
+ * que a resposta original foi devolvida sem criar um novo pedido.
+ */
+public record PedidoIdempotente(OrderResponse resposta, boolean repetido) {
+}
@@ -0,0 +1,215 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.core.exception.BadRequestException;
+import com.trincashop.features.orders.model.Order;
+import com.trincashop.features.orders.model.OrderStatus;
+import com.trincashop.features.orders.repository.SalesRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Consolidado de vendas por hora e produto (tabela sales_rollup). É atualizado
+ * na mesma transação que cria ou altera o pedido, e os relatórios por período
+ * somam apenas as linhas do consolidado, sem varrer orders.
+ * <p>
+ * Cada pedido pertence à hora do seu created_at; um pedido conta como vendido
+ * enquanto estiver PAID ou RELEASED. O backfill recalcula dias inteiros a partir
+ * de orders em paralelo e usa uma trava consultiva por dia para não perder nem
+ * duplicar as atualizações de pedidos feitas enquanto ele roda.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private static final int SLOTS = 8;
+
+    // Primeira chave das travas consultivas do consolidado (a segunda é o dia)
+    private static final int CLASSE_TRAVA = 6006;
+
+    public enum Granularidade {
+        HORA("hour"), DIA("day"), MES("month");
+
+        private final String unidade;
+
+        Granularidade(String unidade) {
+            this.unidade = unidade;
+        }
+    }
+
+    public record Periodo(LocalDateTime inicio, long pedidos, long unidadesVendidas, BigDecimal receita) {
+    }
+
+    public record VendasProduto(Long productId, String productName, long pedidos, long unidadesVendidas,
+            BigDecimal receita) {
+    }
+
+    public record ResultadoBackfill(LocalDate de, LocalDate ate, int dias, long linhas, long duracaoMs) {
+    }
+
+    private record Chave(LocalDateTime hora, Long productId) {
+    }
+
+    private static final Comparator<Chave> ORDEM_CHAVES = Comparator.comparing(Chave::hora)
+            .thenComparing(Chave::productId);
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final OrderPartitionService orderPartitionService;
+    private final TransactionTemplate transactionTemplate;
+    private final int threadsBackfill;
+
+    public SalesRollupService(SalesRollupRepository salesRollupRepository,
+            OrderPartitionService orderPartitionService, PlatformTransactionManager transactionManager,
+            @Value("${trincashop.sales-rollup.backfill-threads:4}") int threadsBackfill) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.orderPartitionService = orderPartitionService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.threadsBackfill = Math.max(1, threadsBackfill);
+    }
+
+    // As chaves são gravadas em ordem (hora, produto) para que transações
+    // concorrentes travem as linhas na mesma ordem
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCriacao(List<Order> pedidos) {
+        Map<Chave, Long> quantidades = new TreeMap<>(ORDEM_CHAVES);
+        for (Order pedido : pedidos) {
+            quantidades.merge(new Chave(hora(pedido), pedido.getProductId()), 1L, Long::sum);
+        }
+        quantidades.forEach((chave, quantidade) -> incrementar(chave, quantidade, 0, BigDecimal.ZERO));
+    }
+
+    // Transições de uma operação, de todas as origens juntas: os deltas são somados
+    // por (hora, produto) e cada linha recebe uma única atualização, em ordem
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarTransicoes(Map<OrderStatus, List<Order>> pedidosPorOrigem, OrderStatus para) {
+        Map<Chave, long[]> unidades = new TreeMap<>(ORDEM_CHAVES);
+        Map<Chave, BigDecimal> receitas = new TreeMap<>(ORDEM_CHAVES);
+        pedidosPorOrigem.forEach((de, pedidos) -> {
+            int sinal = (vendido(para) ? 1 : 0) - (vendido(de) ? 1 : 0);
+            if (sinal == 0) {
+                return;
+            }
+            for (Order pedido : pedidos) {
+                Chave chave = new Chave(hora(pedido), pedido.getProductId());
+                unidades.computeIfAbsent(chave, c -> new long[1])[0] += sinal;
+                receitas.merge(chave, pedido.getProductPrice().multiply(BigDecimal.valueOf(sinal)), BigDecimal::add);
+            }
+        });
+        unidades.forEach((chave, quantidade) -> {
+            BigDecimal receita = receitas.get(chave);
+            if (quantidade[0] != 0 || receita.signum() != 0) {
+                incrementar(chave, 0, quantidade[0], receita);
+            }
+        });
+    }
+
+    public List<Periodo> totaisPorPeriodo(LocalDateTime de, LocalDateTime ate, Granularidade granularidade) {
+        validarPeriodo(de, ate);
+        return salesRollupRepository.totaisPorPeriodo(granularidade.unidade, de, ate).stream()
+                .map(t -> new Periodo(t.getInicio(), t.getPedidos(), t.getUnidadesVendidas(), t.getReceita()))
+                .toList();
+    }
+
+    public List<VendasProduto> totaisPorProduto(LocalDateTime de, LocalDateTime ate) {
+        validarPeriodo(de, ate);
+        return salesRollupRepository.totaisPorProduto(de, ate).stream()
+                .map(t -> new VendasProduto(t.getProductId(), t.getProductName(), t.getPedidos(),
+                        t.getUnidadesVendidas(), t.getReceita()))
+                .toList();
+    }
+
+    // Recalcula os dias [de, ate) a partir de orders, um dia por transação, com
+    // até threadsBackfill dias em paralelo. Sem datas, cobre todo o histórico.
+    public ResultadoBackfill backfill(LocalDate de, LocalDate ate) {
+        if (de == null) {
+            LocalDateTime primeiro = salesRollupRepository.primeiroPedido();
+            de = primeiro != null ? primeiro.toLocalDate() : LocalDate.now();
+        }
+        // Meses arquivados não estão mais em orders: recalculá-los zeraria o consolidado
+        LocalDateTime inicioDosPedidos = orderPartitionService.inicioDosPedidos();
+        if (inicioDosPedidos != null && de.isBefore(inicioDosPedidos.toLocalDate())) {
+            de = inicioDosPedidos.toLocalDate();
+        }
+        if (ate == null) {
+            ate = LocalDate.now().plusDays(1);
+        }
+        if (!de.isBefore(ate)) {
+            throw new BadRequestException("A data inicial deve ser anterior à data final");
+        }
+
+        long inicio = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(threadsBackfill);
+        try {
+            List<Future<Integer>> dias = new ArrayList<>();
+            for (LocalDate dia = de; dia.isBefore(ate); dia = dia.plusDays(1)) {
+                LocalDate atual = dia;
+                dias.add(executor.submit(() -> recalcularDia(atual)));
+            }
+            long linhas = 0;
+            for (Future<Integer> dia : dias) {
+                linhas += dia.get();
+            }
+            long duracao = System.currentTimeMillis() - inicio;
+            log.info("Backfill do consolidado de vendas: {} dias, {} linhas em {} ms", dias.size(), linhas, duracao);
+            return new ResultadoBackfill(de, ate, dias.size(), linhas, duracao);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Backfill do consolidado de vendas interrompido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha no backfill do consolidado de vendas", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int recalcularDia(LocalDate dia) {
+        LocalDateTime de = dia.atStartOfDay();
+        LocalDateTime ate = de.plusDays(1);
+        return transactionTemplate.execute(status -> {
+            salesRollupRepository.travarDia(CLASSE_TRAVA, (int) dia.toEpochDay());
+            salesRollupRepository.limparPeriodo(de, ate);
+            return salesRollupRepository.recalcularPeriodo(de, ate);
+        });
+    }
+
+    private void incrementar(Chave chave, long pedidos, long unidades, BigDecimal receita) {
+        short slot = (short) ThreadLocalRandom.current().nextInt(SLOTS);
+        salesRollupRepository.incrementar(chave.hora(), chave.productId(), slot, pedidos, unidades, receita,
+                CLASSE_TRAVA, (int) chave.hora().toLocalDate().toEpochDay());
+    }
+
+    private static LocalDateTime hora(Order pedido) {
+        return pedido.getCreatedAt().truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private static boolean vendido(OrderStatus status) {
+        return status == OrderStatus.PAID || status == OrderStatus.RELEASED;
+    }
+
+    private static void validarPeriodo(LocalDateTime de, LocalDateTime ate) {
+        if (!de.isBefore(ate)) {
+            throw new BadRequestException("A data inicial deve ser anterior à data final");
+        }
+    }
+}
@@ -1,30 +1,115 @@
 package com.trincashop.features.products.controller;
 
+import com.trincashop.core.http.AcceptEncoding;
+import com.trincashop.features.products.dto.ProductChangesResponse;
 import com.trincashop.features.products.dto.ProductResponse;
+import com.trincashop.features.products.dto.ProductStockResponse;
+import com.trincashop.features.products.service.FridgeInventoryService;
+import com.trincashop.features.products.service.ProductCatalogResponseCache;
 import com.trincashop.features.products.service.ProductService;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductCatalogResponseCache responseCache;
+    private final FridgeInventoryService fridgeInventoryService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductCatalogResponseCache responseCache,
+            FridgeInventoryService fridgeInventoryService) {
         this.productService = productService;
+        this.responseCache = responseCache;
+        this.fridgeInventoryService = fridgeInventoryService;
+    }
+
+    // O ETag é um resumo do conteúdo do catálogo (null com o snapshot desligado). Com
+    // If-None-Match igual, responde 304 sem consultar o banco nem serializar a página.
+    // no-cache faz o navegador revalidar a cada refresh em vez de usar a cópia sem perguntar.
+    // O corpo sai pronto do cache de respostas (JSON ou gzip), escrito como bytes.
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> listarProdutosAtivos(
+            @PageableDefault(size = 20, sort = "name") Pageable pageable,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) List<String> ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = AcceptEncoding.aceitaGzip(acceptEncoding);
+        // Cada codificação é uma representação diferente e precisa de um ETag próprio
+        String etag = productService.etagCatalogo();
+        if (etag != null && gzip) {
+            etag = variante(etag, "gzip");
+        }
+        if (corresponde(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return resposta.body(responseCache.obter(pageable, gzip));
+    }
+
+    // Busca por nome (prefixo ou substring, sem acento), em ordem de relevância
+    @GetMapping("/search")
+    public ResponseEntity<Page<ProductResponse>> buscar(@RequestParam String q,
+            @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(productService.buscarPorNome(q, pageable));
+    }
+
+    // Feed incremental do quiosque: só o que mudou desde a versão do último poll
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChangesResponse> listarAlteracoes(@RequestParam(required = false) Long since) {
+        return ResponseEntity.ok(productService.listarAlteracoes(since));
+    }
+
+    // Estoque do produto por geladeira (o catálogo mostra só o total)
+    @GetMapping("/{id}/stock")
+    public ResponseEntity<ProductStockResponse> buscarEstoque(@PathVariable Long id) {
+        return ResponseEntity.ok(fridgeInventoryService.buscarEstoqueProduto(id));
+    }
+
+    // "v" -> "v-gzip"
+    private static String variante(String etag, String sufixo) {
+        return etag.substring(0, etag.length() - 1) + "-" + sufixo + "\"";
     }
 
-    @GetMapping
-    public ResponseEntity<Page<ProductResponse>> listarProdutosAtivos(
-            @PageableDefault(size = 20, sort = "name") Pageable pageable) {
-        Page<ProductResponse> page = productService.listarProdutosAtivos(pageable)
-                .map(ProductResponse::fromEntity);
-        return ResponseEntity.ok(page);
+    // If-None-Match usa comparação fraca: W/"x" também corresponde a "x"
+    private static boolean corresponde(List<String> ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch) {
+            String valor = candidato.trim();
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.equals(etag) || valor.equals("*")) {
+                return true;
+            }
+        }
+        return false;
     }
 }
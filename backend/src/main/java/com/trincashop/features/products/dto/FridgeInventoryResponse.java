@@ -0,0 +1,36 @@
+package com.trincashop.features.products.dto;
+
+import java.time.LocalDateTime;
+
+public class FridgeInventoryResponse {
+
+    private final Long fridgeId;
+    private final Long productId;
+    private final Integer stock;
+    private final LocalDateTime updatedAt;
+
+    // Usado como projeção por construtor nas consultas JPQL do FridgeInventoryRepository
+    public FridgeInventoryResponse(Long fridgeId, Long productId, Integer stock, LocalDateTime updatedAt) {
+        this.fridgeId = fridgeId;
+        this.productId = productId;
+        this.stock = stock;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters
+    public Long getFridgeId() {
+        return fridgeId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
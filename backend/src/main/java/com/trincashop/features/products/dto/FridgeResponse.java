@@ -0,0 +1,40 @@
+package com.trincashop.features.products.dto;
+
+import com.trincashop.features.products.model.Fridge;
+import java.time.LocalDateTime;
+
+public class FridgeResponse {
+
+    private final Long id;
+    private final String name;
+    private final Boolean active;
+    private final LocalDateTime createdAt;
+
+    private FridgeResponse(Long id, String name, Boolean active, LocalDateTime createdAt) {
+        this.id = id;
+        this.name = name;
+        this.active = active;
+        this.createdAt = createdAt;
+    }
+
+    public static FridgeResponse fromEntity(Fridge fridge) {
+        return new FridgeResponse(fridge.getId(), fridge.getName(), fridge.getActive(), fridge.getCreatedAt());
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Boolean getActive() {
+        return active;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,9 @@
+package com.trincashop.features.products.dto;
+
+/**
+ * Produto com estoque total igual ou abaixo do limite. No stream, o evento
+ * {@code low-stock} traz o produto que cruzou o limite para baixo e
+ * {@code stock-restored} o que voltou a ficar acima dele (ou foi desativado).
+ */
+public record LowStockResponse(Long productId, String name, int stock, int threshold) {
+}
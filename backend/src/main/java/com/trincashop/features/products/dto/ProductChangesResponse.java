@@ -0,0 +1,43 @@
+package com.trincashop.features.products.dto;
+
+import java.util.List;
+
+/**
+ * Resposta do feed de alterações do catálogo. {@code version} é o cursor do
+ * próximo poll. Com {@code resync = true} a lista vem vazia e o cliente deve
+ * recarregar o catálogo inteiro por {@code GET /api/products} antes de voltar
+ * ao feed com essa versão.
+ */
+public class ProductChangesResponse {
+
+    private final long version;
+    private final boolean resync;
+    private final List<ProductResponse> changes;
+
+    private ProductChangesResponse(long version, boolean resync, List<ProductResponse> changes) {
+        this.version = version;
+        this.resync = resync;
+        this.changes = changes;
+    }
+
+    public static ProductChangesResponse alteracoes(long version, List<ProductResponse> changes) {
+        return new ProductChangesResponse(version, false, changes);
+    }
+
+    public static ProductChangesResponse ressincronizar(long version) {
+        return new ProductChangesResponse(version, true, List.of());
+    }
+
+    // Getters
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isResync() {
+        return resync;
+    }
+
+    public List<ProductResponse> getChanges() {
+        return changes;
+    }
+}
@@ -0,0 +1,54 @@
+package com.trincashop.features.products.dto;
+
+import java.util.List;
+
+public class ProductImportResponse {
+
+    private final long inseridos;
+    private final long atualizados;
+    private final long rejeitados;
+    private final List<Erro> erros;
+    private final boolean errosTruncados;
+    private final Long linhaInterrompida;
+
+    // linhaInterrompida: onde a leitura parou (null se o arquivo foi lido até o fim).
+    // inseridos e atualizados são sempre o que ficou gravado
+    public ProductImportResponse(long inseridos, long atualizados, long rejeitados, List<Erro> erros,
+            Long linhaInterrompida) {
+        this.inseridos = inseridos;
+        this.atualizados = atualizados;
+        this.rejeitados = rejeitados;
+        this.erros = erros;
+        this.errosTruncados = rejeitados > erros.size();
+        this.linhaInterrompida = linhaInterrompida;
+    }
+
+    // Linha do arquivo (a primeira é 1; no CSV é o cabeçalho) e motivo da rejeição
+    public record Erro(long linha, String erro) {
+    }
+
+    // Getters
+    public long getInseridos() {
+        return inseridos;
+    }
+
+    public long getAtualizados() {
+        return atualizados;
+    }
+
+    public long getRejeitados() {
+        return rejeitados;
+    }
+
+    public List<Erro> getErros() {
+        return erros;
+    }
+
+    public boolean isErrosTruncados() {
+        return errosTruncados;
+    }
+
+    public Long getLinhaInterrompida() {
+        return linhaInterrompida;
+    }
+}
@@ -17,6 +17,10 @@ public class ProductRequest {
     @Min(value = 0, message = "Estoque não pode ser negativo")
     private Integer stock;
 
+    // Opcional: sem ele, o produto novo fica com 5 e o existente mantém o atual
+    @Min(value = 0, message = "Limite de estoque baixo não pode ser negativo")
+    private Integer lowStockThreshold;
+
     private Boolean active = true;
 
     // Getters e Setters
@@ -51,4 +55,12 @@ public class ProductRequest {
     public void setActive(Boolean active) {
         this.active = active;
     }
+
+    public Integer getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+
+    public void setLowStockThreshold(Integer lowStockThreshold) {
+        this.lowStockThreshold = lowStockThreshold;
+    }
 }
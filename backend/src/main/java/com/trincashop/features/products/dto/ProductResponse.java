@@ -10,23 +10,42 @@ public class ProductResponse {
     private String name;
     private BigDecimal price;
     private Integer stock;
+    private Integer centralStock;
+    private Integer fridgeStock;
+    private Integer lowStockThreshold;
     private Boolean active;
+    private Boolean flashSale;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
     public ProductResponse() {
     }
 
-    public static ProductResponse fromEntity(Product product) {
-        ProductResponse dto = new ProductResponse();
-        dto.id = product.getId();
-        dto.name = product.getName();
-        dto.price = product.getPrice();
-        dto.stock = product.getStock();
-        dto.active = product.getActive();
-        dto.createdAt = product.getCreatedAt();
-        dto.updatedAt = product.getUpdatedAt();
-        return dto;
+    // Usado também como projeção por construtor nas consultas JPQL do ProductRepository.
+    // stock é o total; centralStock é o que um pedido sem geladeira pode reservar e
+    // fridgeStock a soma das geladeiras ativas (o detalhe sai em /{id}/stock)
+    public ProductResponse(Long id, String name, BigDecimal price, Integer centralStock, Integer fridgeStock,
+            Integer lowStockThreshold, Boolean active, Boolean flashSale, LocalDateTime createdAt,
+            LocalDateTime updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stock = centralStock + fridgeStock;
+        this.centralStock = centralStock;
+        this.fridgeStock = fridgeStock;
+        this.lowStockThreshold = lowStockThreshold;
+        this.active = active;
+        this.flashSale = flashSale;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    // stock é o total do catálogo: o central da entidade mais o das geladeiras
+    public static ProductResponse fromEntity(Product product, int estoqueGeladeiras) {
+        return new ProductResponse(product.getId(), product.getName(), product.getPrice(),
+                product.getStock(), estoqueGeladeiras, product.getLowStockThreshold(), product.getActive(),
+                product.getFlashSale(),
+                product.getCreatedAt(), product.getUpdatedAt());
     }
 
     // Getters
@@ -46,10 +65,26 @@ public class ProductResponse {
         return stock;
     }
 
+    public Integer getCentralStock() {
+        return centralStock;
+    }
+
+    public Integer getFridgeStock() {
+        return fridgeStock;
+    }
+
+    public Integer getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+
     public Boolean getActive() {
         return active;
     }
 
+    public Boolean getFlashSale() {
+        return flashSale;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
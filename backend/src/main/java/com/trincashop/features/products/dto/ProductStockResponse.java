@@ -0,0 +1,40 @@
+package com.trincashop.features.products.dto;
+
+import java.util.List;
+
+/**
+ * Estoque de um produto por local: {@code stock} é o total exibido no catálogo,
+ * {@code centralStock} o de {@code products.stock} e {@code fridges} o de cada
+ * geladeira que tem o produto.
+ */
+public class ProductStockResponse {
+
+    private final Long productId;
+    private final int stock;
+    private final int centralStock;
+    private final List<FridgeInventoryResponse> fridges;
+
+    public ProductStockResponse(Long productId, int centralStock, List<FridgeInventoryResponse> fridges) {
+        this.productId = productId;
+        this.centralStock = centralStock;
+        this.fridges = fridges;
+        this.stock = centralStock + fridges.stream().mapToInt(FridgeInventoryResponse::getStock).sum();
+    }
+
+    // Getters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public int getCentralStock() {
+        return centralStock;
+    }
+
+    public List<FridgeInventoryResponse> getFridges() {
+        return fridges;
+    }
+}
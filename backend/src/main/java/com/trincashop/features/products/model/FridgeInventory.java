@@ -0,0 +1,81 @@
+package com.trincashop.features.products.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Estoque de um produto em uma geladeira. As escritas são UPDATEs condicionais e
+// upserts do FridgeInventoryRepository; a entidade serve às consultas JPQL
+@Entity
+@Table(name = "fridge_inventory")
+@IdClass(FridgeInventory.Chave.class)
+public class FridgeInventory {
+
+    @Id
+    @Column(name = "fridge_id", nullable = false)
+    private Long fridgeId;
+
+    @Id
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer stock = 0;
+
+    // Preenchida pelo trigger da V16, como products.change_version
+    @Column(name = "change_version", nullable = false, insertable = false, updatable = false)
+    private Long changeVersion = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt = LocalDateTime.now();
+
+    public FridgeInventory() {
+    }
+
+    // Getters
+    public Long getFridgeId() {
+        return fridgeId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Integer getStock() {
+        return stock;
+    }
+
+    public Long getChangeVersion() {
+        return changeVersion;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public static class Chave implements Serializable {
+
+        private Long fridgeId;
+        private Long productId;
+
+        public Chave() {
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Chave chave)) {
+                return false;
+            }
+            return Objects.equals(fridgeId, chave.fridgeId) && Objects.equals(productId, chave.productId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fridgeId, productId);
+        }
+    }
+}
@@ -21,15 +21,28 @@ public class Product {
     @Column(nullable = false)
     private Integer stock = 0;
 
+    // Estoque total (central + geladeiras) igual ou abaixo disso conta como estoque baixo
+    @Column(name = "low_stock_threshold", nullable = false)
+    private Integer lowStockThreshold = 5;
+
     @Column(nullable = false)
     private Boolean active = true;
 
+    @Column(name = "flash_sale", nullable = false)
+    private Boolean flashSale = false;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    // Versão de alteração (ID da transação que gravou a linha). Preenchida pelo
+    // trigger da V14 a cada INSERT/UPDATE, junto com os UPDATEs em lote que não
+    // passam pelo @PreUpdate; por isso o Hibernate nunca a grava
+    @Column(name = "change_version", nullable = false, insertable = false, updatable = false)
+    private Long changeVersion = 0L;
+
     @PreUpdate
     protected void onUpdate() {
         this.updatedAt = LocalDateTime.now();
@@ -79,6 +92,14 @@ public class Product {
         this.stock = stock;
     }
 
+    public Integer getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+
+    public void setLowStockThreshold(Integer lowStockThreshold) {
+        this.lowStockThreshold = lowStockThreshold;
+    }
+
     public Boolean getActive() {
         return active;
     }
@@ -87,6 +108,14 @@ public class Product {
         this.active = active;
     }
 
+    public Boolean getFlashSale() {
+        return flashSale;
+    }
+
+    public void setFlashSale(Boolean flashSale) {
+        this.flashSale = flashSale;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -102,4 +131,8 @@ public class Product {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Long getChangeVersion() {
+        return changeVersion;
+    }
 }
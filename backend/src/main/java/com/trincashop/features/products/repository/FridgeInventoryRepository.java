@@ -0,0 +1,76 @@
+package com.trincashop.features.products.repository;
+
+import com.trincashop.features.products.dto.FridgeInventoryResponse;
+import com.trincashop.features.products.model.FridgeInventory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface FridgeInventoryRepository extends JpaRepository<FridgeInventory, FridgeInventory.Chave> {
+
+    String SELECT_RESPOSTA = "SELECT new com.trincashop.features.products.dto.FridgeInventoryResponse("
+            + "i.fridgeId, i.productId, i.stock, i.updatedAt) FROM FridgeInventory i";
+
+    // Reserva na linha da geladeira, no mesmo molde de ProductRepository.decrementarEstoque.
+    // Produto e geladeira são só lidos (sem trava): a linha de products não é disputada
+    // pelos pedidos de geladeiras diferentes. Retorna 0 se a geladeira ou o produto não
+    // existe ou está inativo, ou se não há estoque suficiente nesta geladeira.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE FridgeInventory i SET i.stock = i.stock - :quantidade, i.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE i.fridgeId = :fridgeId AND i.productId = :productId AND i.stock >= :quantidade "
+            + "AND EXISTS (SELECT 1 FROM Product p WHERE p.id = :productId AND p.active = true) "
+            + "AND EXISTS (SELECT 1 FROM Fridge f WHERE f.id = :fridgeId AND f.active = true)")
+    int decrementarEstoque(@Param("fridgeId") Long fridgeId, @Param("productId") Long productId,
+            @Param("quantidade") int quantidade);
+
+    // Devolve unidades de pedidos cancelados (sem condição de status)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE FridgeInventory i SET i.stock = i.stock + :quantidade, i.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE i.fridgeId = :fridgeId AND i.productId = :productId")
+    int incrementarEstoque(@Param("fridgeId") Long fridgeId, @Param("productId") Long productId,
+            @Param("quantidade") int quantidade);
+
+    // Reposição pelo admin: cria a linha na primeira vez
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+            INSERT INTO fridge_inventory (fridge_id, product_id, stock, updated_at)
+            VALUES (:fridgeId, :productId, :stock, CURRENT_TIMESTAMP)
+            ON CONFLICT (fridge_id, product_id) DO UPDATE
+            SET stock = EXCLUDED.stock, updated_at = EXCLUDED.updated_at
+            """, nativeQuery = true)
+    int definirEstoque(@Param("fridgeId") Long fridgeId, @Param("productId") Long productId,
+            @Param("stock") int stock);
+
+    @Query(SELECT_RESPOSTA + " WHERE i.fridgeId = :fridgeId ORDER BY i.productId")
+    List<FridgeInventoryResponse> listarPorGeladeira(@Param("fridgeId") Long fridgeId);
+
+    @Query(SELECT_RESPOSTA + " WHERE i.fridgeId = :fridgeId AND i.productId = :productId")
+    Optional<FridgeInventoryResponse> buscar(@Param("fridgeId") Long fridgeId, @Param("productId") Long productId);
+
+    // Só geladeiras ativas: é o que pode ser vendido, como no total do catálogo
+    @Query(SELECT_RESPOSTA + ", Fridge f WHERE f.id = i.fridgeId AND f.active = true "
+            + "AND i.productId = :productId ORDER BY i.fridgeId")
+    List<FridgeInventoryResponse> listarPorProduto(@Param("productId") Long productId);
+
+    interface EstoquePorProduto {
+        Long getProductId();
+
+        Long getStock();
+    }
+
+    // Soma das geladeiras para montar o estoque total de respostas carregadas como entidade
+    @Query("SELECT i.productId AS productId, SUM(i.stock) AS stock FROM FridgeInventory i, Fridge f "
+            + "WHERE f.id = i.fridgeId AND f.active = true AND i.productId IN :ids GROUP BY i.productId")
+    List<EstoquePorProduto> somarPorProdutos(@Param("ids") Collection<Long> ids);
+
+    // Ativar ou desativar uma geladeira muda o total dos produtos dela: regravar as
+    // linhas atualiza change_version e o feed de alterações devolve esses produtos
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE FridgeInventory i SET i.updatedAt = CURRENT_TIMESTAMP WHERE i.fridgeId = :fridgeId")
+    int tocarGeladeira(@Param("fridgeId") Long fridgeId);
+}
@@ -0,0 +1,7 @@
+package com.trincashop.features.products.repository;
+
+import com.trincashop.features.products.model.Fridge;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface FridgeRepository extends JpaRepository<Fridge, Long> {
+}
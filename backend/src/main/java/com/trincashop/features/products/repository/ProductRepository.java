@@ -1,11 +1,182 @@
 package com.trincashop.features.products.repository;
 
+import com.trincashop.features.products.dto.ProductResponse;
 import com.trincashop.features.products.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
-    Page<Product> findByActiveTrue(Pageable pageable);
+    // Estoque das geladeiras ativas do produto
+    String ESTOQUE_GELADEIRAS = "COALESCE((SELECT CAST(SUM(i.stock) AS Integer) "
+            + "FROM FridgeInventory i, Fridge f WHERE f.id = i.fridgeId AND f.active = true "
+            + "AND i.productId = p.id), 0)";
+
+    // Estoque exibido: o central (products.stock) mais o das geladeiras ativas
+    String ESTOQUE_TOTAL = "p.stock + " + ESTOQUE_GELADEIRAS;
+
+    // Projeção por construtor das listagens: o Hibernate não gerencia os DTOs, então
+    // não há entidade no contexto de persistência nem snapshot para dirty checking
+    String SELECT_RESPOSTA = "SELECT new com.trincashop.features.products.dto.ProductResponse(p.id, p.name, "
+            + "p.price, p.stock, " + ESTOQUE_GELADEIRAS + ", p.lowStockThreshold, p.active, p.flashSale, p.createdAt, p.updatedAt) "
+            + "FROM Product p";
+
+    @Query(value = SELECT_RESPOSTA + " WHERE p.active = true",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.active = true")
+    Page<ProductResponse> listarAtivos(Pageable pageable);
+
+    @Query(value = SELECT_RESPOSTA, countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductResponse> listarTodos(Pageable pageable);
+
+    // Carga e atualização do snapshot do catálogo (ProductCatalogCache)
+    @Query(SELECT_RESPOSTA + " WHERE p.active = true")
+    List<ProductResponse> listarTodosAtivos();
+
+    @Query(SELECT_RESPOSTA + " WHERE p.active = true AND p.id IN :ids")
+    List<ProductResponse> listarAtivosPorIds(@Param("ids") Collection<Long> ids);
+
+    // Busca pública por nome. O termo chega já com %, _ e \ escapados; o LIKE sobre
+    // products_nome_busca(name) usa o índice de trigramas da V15. Ordem: nomes que
+    // começam com o termo, depois os mais parecidos (similarity) e, no empate, o nome.
+    @Query(value = """
+            SELECT p.* FROM products p
+            WHERE p.active AND products_nome_busca(p.name) LIKE '%' || products_nome_busca(:termo) || '%'
+            ORDER BY products_nome_busca(p.name) LIKE products_nome_busca(:termo) || '%' DESC,
+                     similarity(products_nome_busca(p.name), products_nome_busca(:termo)) DESC,
+                     p.name, p.id
+            """, countQuery = """
+            SELECT COUNT(*) FROM products p
+            WHERE p.active AND products_nome_busca(p.name) LIKE '%' || products_nome_busca(:termo) || '%'
+            """, nativeQuery = true)
+    Page<Product> buscarPorNome(@Param("termo") String termo, Pageable pageable);
+
+    // Cursor do feed de alterações: toda transação com ID menor que o xmin do
+    // snapshot atual já terminou, então nenhuma versão abaixo dele aparece depois
+    @Query(value = "SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS text) AS bigint)", nativeQuery = true)
+    long buscarVersaoCatalogo();
+
+    // IDs alterados desde a versão, inclusive inativos: o cliente precisa saber que o
+    // produto saiu do catálogo. Pedidos em geladeiras não tocam em products, então a
+    // versão do inventário também conta. Um UNION (e não OR com IN) para cada lado
+    // usar o próprio índice de change_version (V21)
+    @Query(value = """
+            SELECT id FROM products WHERE change_version >= :desde
+            UNION
+            SELECT product_id FROM fridge_inventory WHERE change_version >= :desde
+            ORDER BY 1 LIMIT :limite
+            """, nativeQuery = true)
+    List<Long> buscarIdsAlteradosDesde(@Param("desde") long desde, @Param("limite") int limite);
+
+    // Inclui inativos, como o feed de alterações
+    @Query(SELECT_RESPOSTA + " WHERE p.id IN :ids ORDER BY p.id")
+    List<ProductResponse> listarPorIds(@Param("ids") Collection<Long> ids);
+
+    // Nível de estoque para o monitor de estoque baixo (LowStockMonitor)
+    interface NivelEstoque {
+        Long getId();
+
+        String getName();
+
+        Integer getStock();
+
+        Integer getThreshold();
+
+        Boolean getActive();
+    }
+
+    String SELECT_NIVEL = "SELECT p.id AS id, p.name AS name, " + ESTOQUE_TOTAL + " AS stock, "
+            + "p.lowStockThreshold AS threshold, p.active AS active FROM Product p";
+
+    @Query(SELECT_NIVEL + " WHERE p.id IN :ids")
+    List<NivelEstoque> buscarNiveisEstoque(@Param("ids") Collection<Long> ids);
+
+    // Pelo estoque total (central + geladeiras ativas), como buscarNiveisEstoque. O
+    // filtro pelo central é implicado pelo total e casa com o índice parcial da V20
+    @Query(SELECT_NIVEL + " WHERE p.active = true AND p.stock <= p.lowStockThreshold AND "
+            + ESTOQUE_TOTAL + " <= p.lowStockThreshold")
+    List<NivelEstoque> listarEstoqueBaixo();
+
+    // Decremento condicional em um único UPDATE: evita o read-modify-write que
+    // perdia atualizações sob concorrência. Retorna 0 se o produto não existe,
+    // está inativo, está em flash sale ou não tem estoque suficiente.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantidade, p.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE p.id = :id AND p.active = true AND p.flashSale = false AND p.stock >= :quantidade")
+    int decrementarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    // Devolve unidades de pedidos cancelados (sem condição de status ou flash sale)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock + :quantidade, p.updatedAt = CURRENT_TIMESTAMP "
+            + "WHERE p.id = :id")
+    int incrementarEstoque(@Param("id") Long id, @Param("quantidade") int quantidade);
+
+    interface EstoqueFlashSale {
+        Integer getDisponivel();
+
+        Long getEpoca();
+    }
+
+    // Saldo para o pool de flash sale: o estoque menos os pedidos pendentes da época
+    // atual, que a liquidação ainda vai descontar. Trava só a linha do produto.
+    @Query(value = """
+            SELECT CAST(p.stock - (SELECT COUNT(*) FROM orders o
+                                   WHERE o.stock_pending AND o.product_id = p.id
+                                     AND o.flash_sale_epoch = p.flash_sale_epoch) AS INTEGER) AS disponivel,
+                   p.flash_sale_epoch AS epoca
+            FROM products p WHERE p.id = :id
+            FOR UPDATE OF p
+            """, nativeQuery = true)
+    EstoqueFlashSale buscarEstoqueFlashSale(@Param("id") Long id);
+
+    // Usado quando o admin redefine o estoque: as unidades pendentes já estão
+    // contempladas no novo valor, e a liquidação ignora pedidos de épocas anteriores
+    @Modifying
+    @Query(value = "UPDATE products SET flash_sale_epoch = flash_sale_epoch + 1 WHERE id = :id",
+            nativeQuery = true)
+    int avancarEpocaFlashSale(@Param("id") Long id);
+
+    @Query("SELECT p.id FROM Product p WHERE p.flashSale = true ORDER BY p.id")
+    List<Long> listarIdsEmFlashSale();
+
+    // Baixa em products.stock as unidades dos pedidos de flash sale ainda pendentes
+    // (um único statement: marca os pedidos e desconta o total por produto). Pedidos
+    // de uma época anterior à do produto são só marcados: o estoque foi redefinido
+    // depois deles. A época também está no WHERE do UPDATE de products, então um
+    // avanço concorrente é reavaliado na linha travada e a baixa não é aplicada.
+    // Retorna os IDs dos produtos cujo estoque foi descontado.
+    @Transactional
+    @Query(value = """
+            WITH liquidados AS (
+                UPDATE orders SET stock_pending = FALSE
+                WHERE stock_pending
+                RETURNING product_id, flash_sale_epoch)
+            UPDATE products p SET stock = p.stock - t.quantidade, updated_at = CURRENT_TIMESTAMP
+            FROM (SELECT product_id, flash_sale_epoch, COUNT(*) AS quantidade FROM liquidados
+                  GROUP BY product_id, flash_sale_epoch) t
+            WHERE p.id = t.product_id AND p.flash_sale_epoch = t.flash_sale_epoch
+            RETURNING p.id
+            """, nativeQuery = true)
+    List<Long> liquidarEstoquePendente();
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+            WITH liquidados AS (
+                UPDATE orders SET stock_pending = FALSE
+                WHERE stock_pending AND product_id = :id
+                RETURNING flash_sale_epoch)
+            UPDATE products p
+            SET stock = p.stock - (SELECT COUNT(*) FROM liquidados l WHERE l.flash_sale_epoch = p.flash_sale_epoch),
+                updated_at = CURRENT_TIMESTAMP
+            WHERE p.id = :id AND EXISTS (SELECT 1 FROM liquidados l WHERE l.flash_sale_epoch = p.flash_sale_epoch)
+            """, nativeQuery = true)
+    int liquidarEstoquePendente(@Param("id") Long id);
 }
@@ -0,0 +1,209 @@
+package com.trincashop.features.products.service;
+
+import com.trincashop.core.transaction.AfterCommit;
+import com.trincashop.features.products.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de tokens em memória para produtos em modo flash sale.
+ *
+ * Cada token é uma unidade disponível. Os pedidos consomem tokens via CAS, sem
+ * tocar na linha de {@code products}, e são gravados com {@code stock_pending = true}
+ * e a época do pool. A liquidação periódica desconta essas unidades de
+ * {@code products.stock} em lote. Como a baixa é derivada das linhas de
+ * {@code orders}, que são duráveis, a mesma liquidação reconcilia o estoque no
+ * shutdown e no startup após um crash.
+ *
+ * Os pools só são carregados por caminhos explícitos (ligar o modo, redefinir o
+ * estoque, importação e startup), na transação que travou a linha do produto, e
+ * instalados depois do commit. Um pedido nunca carrega pool: sem pool, não há estoque.
+ *
+ * O pool é local ao processo, como o resto do estado em memória: o backend roda em
+ * uma única instância (ver README, Deploy).
+ */
+@Service
+public class FlashSaleService {
+
+    private static final Logger log = LoggerFactory.getLogger(FlashSaleService.class);
+
+    /**
+     * Estado do produto no processo. {@code geracao} ordena as instalações e
+     * descargas (é tirada com a linha do produto travada, então segue a ordem dos
+     * commits); {@code epoca} é a de {@code products.flash_sale_epoch} na carga.
+     * Um pool descarregado fica no mapa sem tokens, para que uma instalação
+     * atrasada de geração anterior não o ressuscite.
+     */
+    private record Pool(long geracao, long epoca, AtomicInteger tokens) {
+
+        boolean ativo() {
+            return tokens != null;
+        }
+
+        static Pool maisRecente(Pool atual, Pool novo) {
+            return novo.geracao > atual.geracao ? novo : atual;
+        }
+    }
+
+    private final Map<Long, Pool> pools = new ConcurrentHashMap<>();
+    private final AtomicLong geracoes = new AtomicLong();
+    private final ProductRepository productRepository;
+    private final ProductCatalogCache catalogCache;
+    private final LowStockMonitor lowStockMonitor;
+    private final TransactionTemplate novaTransacao;
+
+    public FlashSaleService(ProductRepository productRepository, ProductCatalogCache catalogCache,
+            LowStockMonitor lowStockMonitor, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.catalogCache = catalogCache;
+        this.lowStockMonitor = lowStockMonitor;
+        this.novaTransacao = new TransactionTemplate(transactionManager);
+        this.novaTransacao.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean carregado(Long productId) {
+        Pool pool = pools.get(productId);
+        return pool != null && pool.ativo();
+    }
+
+    public Integer disponivel(Long productId) {
+        Pool pool = pools.get(productId);
+        return pool != null && pool.ativo() ? pool.tokens().get() : null;
+    }
+
+    // Consome tokens do pool e devolve a época dele, que vai para o pedido; null se
+    // não há pool ou tokens suficientes. Se a transação do pedido for revertida, os
+    // tokens voltam para o mesmo pool, se ele ainda estiver instalado.
+    public Long reservar(Long productId, int quantidade) {
+        Pool pool = pools.get(productId);
+        if (pool == null || !pool.ativo()) {
+            return null;
+        }
+        AtomicInteger tokens = pool.tokens();
+        int atual;
+        do {
+            atual = tokens.get();
+            if (atual < quantidade) {
+                return null;
+            }
+        } while (!tokens.compareAndSet(atual, atual - quantidade));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED && pools.get(productId) == pool) {
+                        tokens.addAndGet(quantidade);
+                    }
+                }
+            });
+        }
+        return pool.epoca();
+    }
+
+    // Devolve tokens de unidades que voltaram a products.stock na transação atual.
+    // Só vale para o pool que já estava instalado: um pool carregado depois disso
+    // leu o estoque com FOR UPDATE, esperou o commit e já inclui essas unidades.
+    public void devolverAposCommit(Long productId, int quantidade) {
+        Pool pool = pools.get(productId);
+        if (pool == null || !pool.ativo()) {
+            return;
+        }
+        AfterCommit.executar(() -> {
+            if (pools.get(productId) == pool) {
+                pool.tokens().addAndGet(quantidade);
+            }
+        });
+    }
+
+    // Carrega o pool na transação que ligou o modo, com a linha do produto já travada
+    // por ela. O saldo é o estoque menos os pedidos pendentes da época atual, lido sem
+    // travar orders (a liquidação trava orders antes de products). O pool só é
+    // instalado depois do commit; até lá os pedidos do produto falham por falta de estoque.
+    @org.springframework.transaction.annotation.Transactional(propagation = Propagation.MANDATORY)
+    public void iniciar(Long productId) {
+        ProductRepository.EstoqueFlashSale estoque = productRepository.buscarEstoqueFlashSale(productId);
+        if (estoque == null) {
+            return;
+        }
+        Pool pool = new Pool(geracoes.incrementAndGet(), estoque.getEpoca(),
+                new AtomicInteger(Math.max(estoque.getDisponivel(), 0)));
+        AfterCommit.executar(() -> {
+            pools.merge(productId, pool, Pool::maisRecente);
+            log.info("Flash sale: pool do produto {} carregado com {} unidade(s) (época {})",
+                    productId, pool.tokens().get(), pool.epoca());
+        });
+    }
+
+    // O admin redefiniu o estoque (o novo valor já considera as unidades pendentes).
+    // Avançar a época descarta na liquidação os pedidos do pool antigo, inclusive os
+    // que ainda estão em voo e só vão commitar depois desta transação; em seguida o
+    // pool é recarregado com o novo estoque.
+    @org.springframework.transaction.annotation.Transactional(propagation = Propagation.MANDATORY)
+    public void reiniciar(Long productId) {
+        productRepository.avancarEpocaFlashSale(productId);
+        iniciar(productId);
+    }
+
+    // Remove o pool depois do commit de quem desligou o modo. Os pedidos pendentes
+    // continuam na época atual e são descontados pela liquidação.
+    @org.springframework.transaction.annotation.Transactional(propagation = Propagation.MANDATORY)
+    public void descarregar(Long productId) {
+        Pool descarregado = new Pool(geracoes.incrementAndGet(), 0, null);
+        AfterCommit.executar(() -> pools.merge(productId, descarregado, Pool::maisRecente));
+    }
+
+    @Scheduled(fixedDelayString = "${trincashop.flash-sale.flush-interval-ms:2000}")
+    public void liquidar() {
+        List<Long> produtos = productRepository.liquidarEstoquePendente();
+        if (!produtos.isEmpty()) {
+            registrarLiquidados(produtos);
+            log.debug("Flash sale: estoque pendente liquidado para {} produto(s)", produtos.size());
+        }
+    }
+
+    // Depois de um restart não há pools: liquida o que ficou pendente e recarrega os
+    // produtos que continuam em flash sale, cada um na sua transação
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconciliarAposInicio() {
+        List<Long> produtos = productRepository.liquidarEstoquePendente();
+        if (!produtos.isEmpty()) {
+            registrarLiquidados(produtos);
+            log.info("Flash sale: estoque de {} produto(s) reconciliado no startup", produtos.size());
+        }
+        for (Long productId : productRepository.listarIdsEmFlashSale()) {
+            novaTransacao.executeWithoutResult(status -> iniciar(productId));
+        }
+    }
+
+    // A liquidação já commitou: catálogo e monitor veem só os produtos descontados
+    private void registrarLiquidados(List<Long> produtos) {
+        for (Long productId : produtos) {
+            catalogCache.invalidar(productId);
+            lowStockMonitor.registrarAlteracao(productId);
+        }
+    }
+
+    @PreDestroy
+    public void reconciliarNoShutdown() {
+        pools.clear();
+        liquidar();
+    }
+}
@@ -0,0 +1,149 @@
+package com.trincashop.features.products.service;
+
+import com.trincashop.core.exception.BadRequestException;
+import com.trincashop.core.exception.ResourceNotFoundException;
+import com.trincashop.features.products.dto.FridgeInventoryResponse;
+import com.trincashop.features.products.dto.FridgeRequest;
+import com.trincashop.features.products.dto.FridgeResponse;
+import com.trincashop.features.products.dto.ProductStockResponse;
+import com.trincashop.features.products.model.Fridge;
+import com.trincashop.features.products.model.Product;
+import com.trincashop.features.products.repository.FridgeInventoryRepository;
+import com.trincashop.features.products.repository.FridgeRepository;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Estoque por geladeira. Um pedido com geladeira reserva só na linha
+ * {@code (fridge_id, product_id)} de {@code fridge_inventory}, então pedidos do
+ * mesmo produto em geladeiras diferentes não disputam a linha de {@code products}.
+ * {@code products.stock} continua sendo o estoque central (pedidos sem geladeira,
+ * flash sale e importação); o catálogo mostra a soma dos dois.
+ */
+@Service
+public class FridgeInventoryService {
+
+    /**
+     * Linha de inventário de um produto em uma geladeira. A ordem (geladeira, produto)
+     * é a ordem de travas usada em qualquer lote.
+     */
+    public record ItemGeladeira(Long fridgeId, Long productId) implements Comparable<ItemGeladeira> {
+        @Override
+        public int compareTo(ItemGeladeira outro) {
+            int porGeladeira = fridgeId.compareTo(outro.fridgeId);
+            return porGeladeira != 0 ? porGeladeira : productId.compareTo(outro.productId);
+        }
+    }
+
+    private final FridgeRepository fridgeRepository;
+    private final FridgeInventoryRepository inventoryRepository;
+    private final ProductService productService;
+    private final ProductCatalogCache catalogCache;
+    private final LowStockMonitor lowStockMonitor;
+
+    public FridgeInventoryService(FridgeRepository fridgeRepository, FridgeInventoryRepository inventoryRepository,
+            ProductService productService, ProductCatalogCache catalogCache, LowStockMonitor lowStockMonitor) {
+        this.fridgeRepository = fridgeRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.productService = productService;
+        this.catalogCache = catalogCache;
+        this.lowStockMonitor = lowStockMonitor;
+    }
+
+    // Mesmo molde de ProductService.reservarEstoque: UPDATE condicional e, se nada
+    // foi afetado, a busca do motivo. Geladeiras não participam da flash sale.
+    @org.springframework.transaction.annotation.Transactional
+    public ReservaEstoque reservarEstoque(Long fridgeId, Long productId, int quantidade) {
+        if (inventoryRepository.decrementarEstoque(fridgeId, productId, quantidade) > 0) {
+            catalogCache.invalidar(productId);
+            lowStockMonitor.registrarAlteracao(productId);
+            return new ReservaEstoque(productService.buscarPorId(productId), null);
+        }
+
+        Product product = productService.buscarPorId(productId);
+        Fridge fridge = buscarGeladeira(fridgeId);
+        if (!Boolean.TRUE.equals(product.getActive())) {
+            throw new BadRequestException("Produto não está disponível");
+        }
+        if (!Boolean.TRUE.equals(fridge.getActive())) {
+            throw new BadRequestException("Geladeira não está disponível");
+        }
+        throw new BadRequestException("Produto sem estoque nesta geladeira");
+    }
+
+    // Devolve as unidades de pedidos cancelados que saíram de geladeiras, dentro da
+    // transação do cancelamento e em ordem de (geladeira, produto)
+    @org.springframework.transaction.annotation.Transactional(propagation = Propagation.MANDATORY)
+    public void restaurarEstoque(Map<ItemGeladeira, Integer> quantidadePorItem) {
+        new TreeMap<>(quantidadePorItem).forEach((item, quantidade) -> {
+            inventoryRepository.incrementarEstoque(item.fridgeId(), item.productId(), quantidade);
+            catalogCache.invalidar(item.productId());
+            lowStockMonitor.registrarAlteracao(item.productId());
+        });
+    }
+
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public ProductStockResponse buscarEstoqueProduto(Long productId) {
+        Product product = productService.buscarPorId(productId);
+        return new ProductStockResponse(productId, product.getStock(),
+                inventoryRepository.listarPorProduto(productId));
+    }
+
+    // Administração
+
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public List<FridgeResponse> listarGeladeiras() {
+        return fridgeRepository.findAll(Sort.by("id")).stream()
+                .map(FridgeResponse::fromEntity)
+                .toList();
+    }
+
+    @org.springframework.transaction.annotation.Transactional
+    public Fridge criarGeladeira(FridgeRequest request) {
+        Fridge fridge = new Fridge();
+        fridge.setName(request.getName());
+        fridge.setActive(request.getActive() != null ? request.getActive() : true);
+        return fridgeRepository.save(fridge);
+    }
+
+    // Desativar uma geladeira tira o estoque dela do total do catálogo
+    @org.springframework.transaction.annotation.Transactional
+    public Fridge atualizarGeladeira(Long id, FridgeRequest request) {
+        Fridge existente = buscarGeladeira(id);
+        existente.setName(request.getName());
+        if (request.getActive() != null && !request.getActive().equals(existente.getActive())) {
+            existente.setActive(request.getActive());
+            inventoryRepository.tocarGeladeira(id);
+            catalogCache.invalidarTudo();
+            lowStockMonitor.registrarTudo();
+        }
+        return fridgeRepository.save(existente);
+    }
+
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public List<FridgeInventoryResponse> listarInventario(Long fridgeId) {
+        buscarGeladeira(fridgeId);
+        return inventoryRepository.listarPorGeladeira(fridgeId);
+    }
+
+    // Reposição: define o estoque do produto na geladeira (cria a linha na primeira vez)
+    @org.springframework.transaction.annotation.Transactional
+    public FridgeInventoryResponse definirEstoque(Long fridgeId, Long productId, int estoque) {
+        buscarGeladeira(fridgeId);
+        productService.buscarPorId(productId);
+        inventoryRepository.definirEstoque(fridgeId, productId, estoque);
+        catalogCache.invalidar(productId);
+        lowStockMonitor.registrarAlteracao(productId);
+        return inventoryRepository.buscar(fridgeId, productId).orElseThrow();
+    }
+
+    private Fridge buscarGeladeira(Long id) {
+        return fridgeRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Geladeira não encontrada com ID: " + id));
+    }
+}
@@ -0,0 +1,192 @@
+package com.trincashop.features.products.service;
+
+import com.trincashop.core.sse.SseBroadcaster;
+import com.trincashop.core.transaction.AfterCommit;
+import com.trincashop.features.products.dto.LowStockResponse;
+import com.trincashop.features.products.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Produtos ativos com estoque total (central + geladeiras) igual ou abaixo do
+ * próprio limite, em memória e ordenados pelo estoque: o mais perto de acabar
+ * primeiro.
+ * <p>
+ * Toda escrita de estoque marca o produto depois do commit; a rodada periódica
+ * relê só os marcados e aplica cada um no conjunto ordenado em O(log n). Quem
+ * cruza o limite (para baixo ou de volta para cima) vira um evento no stream SSE
+ * do painel. Escritas que não dizem quais produtos mudaram, e a recarga periódica
+ * que pega as escritas feitas fora do backend, releem todos os produtos ativos com
+ * estoque total baixo.
+ */
+@Service
+public class LowStockMonitor {
+
+    private static final Comparator<LowStockResponse> MAIS_PERTO_DE_ACABAR =
+            Comparator.comparingInt(LowStockResponse::stock).thenComparing(LowStockResponse::productId);
+
+    private final ProductRepository productRepository;
+    private final SseBroadcaster broadcaster;
+    private final Set<Long> alterados = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean recarregarTudo = new AtomicBoolean(true);
+    // Conjunto ordenado + índice por produto: mínimo, inserção e remoção em O(log n)
+    // (a PriorityQueue remove um elemento arbitrário em O(n))
+    private final TreeSet<LowStockResponse> baixos = new TreeSet<>(MAIS_PERTO_DE_ACABAR);
+    private final Map<Long, LowStockResponse> porProduto = new HashMap<>();
+    private final Object rodada = new Object();
+    private boolean carregado;
+
+    public LowStockMonitor(ProductRepository productRepository, MeterRegistry meterRegistry,
+            @Value("${trincashop.low-stock.stream.buffer-size:64}") int capacidadeFila,
+            @Value("${trincashop.low-stock.stream.timeout-ms:1800000}") long timeoutMs,
+            @Value("${trincashop.low-stock.stream.max-subscribers:20}") int maxAssinantes) {
+        this.productRepository = productRepository;
+        this.broadcaster = new SseBroadcaster("estoque-baixo", capacidadeFila, timeoutMs, maxAssinantes);
+        Gauge.builder("trincashop.product.low-stock.size", this, LowStockMonitor::quantidade)
+                .description("Produtos ativos com estoque igual ou abaixo do limite")
+                .register(meterRegistry);
+    }
+
+    // Marca o produto depois do commit da transação atual (ou na hora, se não houver transação)
+    public void registrarAlteracao(Long productId) {
+        AfterCommit.executar(() -> alterados.add(productId));
+    }
+
+    // Para escritas que não sabem quais produtos mudaram
+    public void registrarTudo() {
+        AfterCommit.executar(() -> recarregarTudo.set(true));
+    }
+
+    // Os limite primeiros, do menor estoque para o maior
+    public synchronized List<LowStockResponse> listar(int limite) {
+        return baixos.stream().limit(limite).toList();
+    }
+
+    public synchronized int quantidade() {
+        return porProduto.size();
+    }
+
+    public SseEmitter assinar() {
+        return broadcaster.assinar();
+    }
+
+    // Uma rodada por vez: duas rodadas em paralelo poderiam aplicar uma leitura
+    // mais antiga depois de uma mais nova. A primeira carrega o conjunto inteiro.
+    // A consulta roda fora do lock do conjunto; só a aplicação do resultado o
+    // segura, então listar(), quantidade() e o gauge não esperam pelo banco.
+    @Scheduled(fixedDelayString = "${trincashop.low-stock.refresh-interval-ms:1000}")
+    public void atualizar() {
+        synchronized (rodada) {
+            boolean tudo = recarregarTudo.getAndSet(false);
+            List<Long> ids = new ArrayList<>(alterados);
+            alterados.removeAll(ids);
+            try {
+                if (tudo) {
+                    List<LowStockResponse> atuais = productRepository.listarEstoqueBaixo().stream()
+                            .map(LowStockMonitor::converter)
+                            .toList();
+                    synchronized (this) {
+                        substituir(atuais);
+                    }
+                } else if (!ids.isEmpty()) {
+                    List<ProductRepository.NivelEstoque> niveis = productRepository.buscarNiveisEstoque(ids);
+                    synchronized (this) {
+                        aplicar(ids, niveis);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // As marcações drenadas se perderiam; a próxima rodada relê tudo
+                recarregarTudo.set(true);
+                throw e;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trincashop.low-stock.full-reload-interval-ms:60000}",
+            initialDelayString = "${trincashop.low-stock.full-reload-interval-ms:60000}")
+    public void agendarRecarga() {
+        recarregarTudo.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${trincashop.low-stock.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        broadcaster.heartbeat();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        broadcaster.encerrar();
+    }
+
+    private void aplicar(List<Long> ids, List<ProductRepository.NivelEstoque> niveis) {
+        Set<Long> encontrados = new HashSet<>();
+        for (ProductRepository.NivelEstoque nivel : niveis) {
+            encontrados.add(nivel.getId());
+            if (Boolean.TRUE.equals(nivel.getActive()) && nivel.getStock() <= nivel.getThreshold()) {
+                colocar(converter(nivel));
+            } else {
+                tirar(nivel.getId(), converter(nivel));
+            }
+        }
+        // Produto removido do banco: sai sem evento
+        ids.stream().filter(id -> !encontrados.contains(id)).forEach(id -> tirar(id, null));
+    }
+
+    // Recarga completa: os eventos saem da diferença para o conjunto anterior. A
+    // primeira carga só preenche o conjunto, sem anunciar o que já estava baixo.
+    private void substituir(List<LowStockResponse> atuais) {
+        Set<Long> presentes = new HashSet<>();
+        for (LowStockResponse atual : atuais) {
+            presentes.add(atual.productId());
+            colocar(atual);
+        }
+        new ArrayList<>(porProduto.keySet()).stream()
+                .filter(id -> !presentes.contains(id))
+                .forEach(id -> tirar(id, porProduto.get(id)));
+        carregado = true;
+    }
+
+    private void colocar(LowStockResponse atual) {
+        LowStockResponse anterior = porProduto.put(atual.productId(), atual);
+        if (anterior != null) {
+            baixos.remove(anterior);
+        }
+        baixos.add(atual);
+        if (anterior == null && carregado) {
+            broadcaster.publicar("low-stock", atual);
+        }
+    }
+
+    // O evento leva o nível novo (na recarga completa, o último visto); sem
+    // nível, como no produto removido, sai sem evento
+    private void tirar(Long productId, LowStockResponse atual) {
+        LowStockResponse anterior = porProduto.remove(productId);
+        if (anterior == null) {
+            return;
+        }
+        baixos.remove(anterior);
+        if (atual != null && carregado) {
+            broadcaster.publicar("stock-restored", atual);
+        }
+    }
+
+    private static LowStockResponse converter(ProductRepository.NivelEstoque nivel) {
+        return new LowStockResponse(nivel.getId(), nivel.getName(), nivel.getStock(), nivel.getThreshold());
+    }
+}
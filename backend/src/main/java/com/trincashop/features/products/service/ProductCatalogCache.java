@@ -0,0 +1,255 @@
+package com.trincashop.features.products.service;
+
+import com.trincashop.core.transaction.AfterCommit;
+import com.trincashop.features.products.dto.ProductResponse;
+import com.trincashop.features.products.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snapshot imutável e versionado dos produtos ativos, usado pela listagem pública.
+ * <p>
+ * Toda escrita em {@code products} marca o produto depois do commit e incrementa a
+ * versão do catálogo. A próxima leitura vê que o snapshot ficou para trás e o
+ * atualiza antes de responder: recarrega só os produtos marcados ou, quando a
+ * escrita não diz quais produtos mudaram, o catálogo inteiro. Como a marcação
+ * acontece no afterCommit, antes de o pedido responder ao quiosque, o catálogo
+ * não mostra um estoque anterior ao último pedido confirmado, exceto em flash
+ * sale: o pedido só consome o pool em memória, e {@code products.stock} (o que o
+ * snapshot mostra) cai na liquidação seguinte, até
+ * {@code trincashop.flash-sale.flush-interval-ms} depois.
+ * <p>
+ * O ETag é um resumo do conteúdo do snapshot, não da versão local: o mesmo
+ * conteúdo dá o mesmo ETag depois de um restart. O snapshot é local ao processo e
+ * só vê as escritas feitas por ele, então o backend roda em uma única instância
+ * (ver README, Deploy).
+ */
+@Service
+public class ProductCatalogCache {
+
+    private static final Collator COLLATOR = Collator.getInstance(new Locale("pt", "BR"));
+
+    // Propriedades ordenáveis em memória; outras caem para a consulta no banco
+    private static final Map<String, Comparator<ProductResponse>> ORDENACOES = Map.of(
+            "id", Comparator.comparing(ProductResponse::getId),
+            "name", Comparator.comparing(ProductResponse::getName, COLLATOR),
+            "price", Comparator.comparing(ProductResponse::getPrice),
+            "stock", Comparator.comparing(ProductResponse::getStock),
+            "createdAt", Comparator.comparing(ProductResponse::getCreatedAt),
+            "updatedAt", Comparator.comparing(ProductResponse::getUpdatedAt));
+
+    private record Snapshot(long versao, Map<Long, ProductResponse> produtos, String etag,
+            Map<Sort, List<ProductResponse>> ordenados) {
+
+        Snapshot(long versao, Map<Long, ProductResponse> produtos) {
+            this(versao, Map.copyOf(produtos), resumo(produtos), new ConcurrentHashMap<>());
+        }
+
+        // A lista ordenada é derivada dos produtos (imutáveis), então pode ser
+        // calculada uma vez por ordenação e compartilhada entre as leituras
+        List<ProductResponse> ordenados(Sort sort, Comparator<ProductResponse> comparador) {
+            return ordenados.computeIfAbsent(sort, s -> produtos.values().stream().sorted(comparador).toList());
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final boolean habilitado;
+    private final AtomicLong versao = new AtomicLong();
+    private final Set<Long> alterados = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean recarregarTudo = new AtomicBoolean(true);
+    private volatile Snapshot snapshot;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter recargas;
+    private final Counter recargasParciais;
+
+    public ProductCatalogCache(ProductRepository productRepository, MeterRegistry meterRegistry,
+            @Value("${trincashop.product-catalog.enabled:true}") boolean habilitado) {
+        this.productRepository = productRepository;
+        this.habilitado = habilitado;
+
+        Gauge.builder("trincashop.product.catalog.version", versao, AtomicLong::get)
+                .description("Versão atual do catálogo de produtos")
+                .register(meterRegistry);
+        Gauge.builder("trincashop.product.catalog.size", this, c -> {
+            Snapshot atual = c.snapshot;
+            return atual != null ? atual.produtos().size() : 0;
+        }).description("Produtos ativos no snapshot em memória").register(meterRegistry);
+        this.hits = Counter.builder("trincashop.product.catalog.requests").tag("result", "hit")
+                .description("Listagens servidas pelo snapshot sem consultar o banco")
+                .register(meterRegistry);
+        this.misses = Counter.builder("trincashop.product.catalog.requests").tag("result", "miss")
+                .description("Listagens que atualizaram o snapshot ou consultaram o banco")
+                .register(meterRegistry);
+        this.recargas = Counter.builder("trincashop.product.catalog.reloads").tag("type", "full")
+                .description("Recargas completas do snapshot")
+                .register(meterRegistry);
+        this.recargasParciais = Counter.builder("trincashop.product.catalog.reloads").tag("type", "partial")
+                .description("Atualizações do snapshot com os produtos alterados")
+                .register(meterRegistry);
+    }
+
+    public long versao() {
+        return versao.get();
+    }
+
+    // ETag forte do conteúdo atual (atualiza o snapshot se ficou para trás). Deve ser
+    // lida antes de montar a resposta: o conteúdo servido depois é no mínimo desse
+    // estado, então na pior das hipóteses o cliente baixa de novo algo que não mudou.
+    // Com o cache desligado não há ETag (null) e todo poll recebe o corpo
+    public String etag() {
+        if (!habilitado) {
+            return null;
+        }
+        Snapshot atual = snapshot;
+        if (atual == null || atual.versao() != versao.get()) {
+            atual = atualizar();
+        }
+        return "\"" + atual.etag() + "\"";
+    }
+
+    // Página de produtos ativos a partir do snapshot; null se a ordenação pedida
+    // não é suportada em memória (ou o cache está desligado) e o chamador deve ir ao banco
+    public Page<ProductResponse> listarAtivos(Pageable pageable) {
+        Comparator<ProductResponse> comparador = habilitado ? comparador(pageable.getSort()) : null;
+        if (comparador == null) {
+            misses.increment();
+            return null;
+        }
+        Snapshot atual = snapshot;
+        if (atual != null && atual.versao() == versao.get()) {
+            hits.increment();
+        } else {
+            misses.increment();
+            atual = atualizar();
+        }
+
+        List<ProductResponse> ordenados = atual.ordenados(pageable.getSort(), comparador);
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(ordenados, pageable, ordenados.size());
+        }
+        int inicio = (int) Math.min(pageable.getOffset(), ordenados.size());
+        int fim = Math.min(inicio + pageable.getPageSize(), ordenados.size());
+        return new PageImpl<>(ordenados.subList(inicio, fim), pageable, ordenados.size());
+    }
+
+    // Marca o produto como alterado depois do commit da transação atual
+    // (ou na hora, se não houver transação)
+    public void invalidar(Long productId) {
+        AfterCommit.executar(() -> {
+            alterados.add(productId);
+            versao.incrementAndGet();
+        });
+    }
+
+    // Para escritas que não sabem quais produtos mudaram
+    public void invalidarTudo() {
+        AfterCommit.executar(() -> {
+            recarregarTudo.set(true);
+            versao.incrementAndGet();
+        });
+    }
+
+    // Uma atualização por vez: quem chega durante a recarga espera por ela em vez
+    // de consultar o banco de novo. A versão é lida antes de drenar as marcações:
+    // uma escrita que marcar depois disso deixa o snapshot desatualizado e a
+    // próxima leitura o atualiza.
+    private synchronized Snapshot atualizar() {
+        Snapshot atual = snapshot;
+        long versaoLida = versao.get();
+        if (atual != null && atual.versao() == versaoLida) {
+            return atual;
+        }
+
+        boolean tudo = recarregarTudo.getAndSet(false) || atual == null;
+        List<Long> ids = new ArrayList<>(alterados);
+        alterados.removeAll(ids);
+
+        Map<Long, ProductResponse> produtos;
+        try {
+            if (tudo) {
+                produtos = new HashMap<>();
+                productRepository.listarTodosAtivos().forEach(produto -> produtos.put(produto.getId(), produto));
+                recargas.increment();
+            } else {
+                produtos = new HashMap<>(atual.produtos());
+                ids.forEach(produtos::remove);
+                if (!ids.isEmpty()) {
+                    productRepository.listarAtivosPorIds(ids).forEach(produto -> produtos.put(produto.getId(), produto));
+                }
+                recargasParciais.increment();
+            }
+        } catch (RuntimeException e) {
+            // As marcações drenadas se perderiam; a próxima leitura recarrega tudo
+            recarregarTudo.set(true);
+            throw e;
+        }
+
+        Snapshot novo = new Snapshot(versaoLida, produtos);
+        snapshot = novo;
+        return novo;
+    }
+
+    // Desempate por ID para que a paginação seja estável
+    private static Comparator<ProductResponse> comparador(Sort sort) {
+        Comparator<ProductResponse> comparador = null;
+        for (Sort.Order ordem : sort) {
+            Comparator<ProductResponse> campo = ORDENACOES.get(ordem.getProperty());
+            if (campo == null || ordem.isIgnoreCase()) {
+                return null;
+            }
+            if (ordem.isDescending()) {
+                campo = campo.reversed();
+            }
+            comparador = comparador == null ? campo : comparador.thenComparing(campo);
+        }
+        Comparator<ProductResponse> porId = Comparator.comparing(ProductResponse::getId);
+        return comparador == null ? porId : comparador.thenComparing(porId);
+    }
+
+    // Produtos em ordem de id, campo a campo; o mesmo conteúdo dá o mesmo resumo
+    private static String resumo(Map<Long, ProductResponse> produtos) {
+        StringBuilder conteudo = new StringBuilder(produtos.size() * 96);
+        produtos.values().stream()
+                .sorted(Comparator.comparing(ProductResponse::getId))
+                .forEach(p -> conteudo.append(p.getId()).append('|').append(p.getName()).append('|')
+                        .append(p.getPrice() != null ? p.getPrice().stripTrailingZeros().toPlainString() : null)
+                        .append('|').append(p.getCentralStock()).append('|').append(p.getFridgeStock()).append('|').append(p.getLowStockThreshold())
+                        .append('|').append(p.getActive()).append('|').append(p.getFlashSale())
+                        .append('|').append(p.getCreatedAt()).append('|').append(p.getUpdatedAt())
+                        .append('\n'));
+        return resumo(conteudo.toString());
+    }
+
+    private static String resumo(String conteudo) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(conteudo.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.trincashop.features.products.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trincashop.core.cache.ExpiringLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Corpo JSON já serializado de cada página do catálogo público, por versão do
+ * catálogo e consulta (página, tamanho, ordenação). Um acerto não monta a página
+ * nem passa pelo Jackson: os bytes vão direto para a resposta. A variante gzip é
+ * comprimida na primeira requisição que a aceita e guardada junto.
+ * <p>
+ * A versão faz parte da chave, então qualquer escrita em {@code products} invalida
+ * todas as entradas de uma vez; as antigas saem pelo LRU.
+ */
+@Service
+public class ProductCatalogResponseCache {
+
+    private record Chave(long versao, Pageable pageable) {
+    }
+
+    private static final class Corpo {
+        private final byte[] json;
+        private volatile byte[] gzip;
+
+        private Corpo(byte[] json) {
+            this.json = json;
+        }
+
+        byte[] gzip() {
+            byte[] atual = gzip;
+            if (atual == null) {
+                // Duas threads podem comprimir ao mesmo tempo; o resultado é o mesmo
+                atual = comprimir(json);
+                gzip = atual;
+            }
+            return atual;
+        }
+    }
+
+    private final ProductService productService;
+    private final ProductCatalogCache catalogCache;
+    private final ObjectMapper objectMapper;
+    private final ExpiringLruCache<Chave, Corpo> corpos;
+    private final long ttlMs;
+    private final Counter hits;
+    private final Counter misses;
+
+    public ProductCatalogResponseCache(ProductService productService, ProductCatalogCache catalogCache,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${trincashop.product-catalog.response-cache.max-entries:256}") int maxEntradas,
+            @Value("${trincashop.product-catalog.response-cache.ttl-ms:600000}") long ttlMs) {
+        this.productService = productService;
+        this.catalogCache = catalogCache;
+        this.objectMapper = objectMapper;
+        this.corpos = new ExpiringLruCache<>(maxEntradas);
+        this.ttlMs = ttlMs;
+        this.hits = Counter.builder("trincashop.product.catalog.response.requests").tag("result", "hit")
+                .description("Páginas do catálogo servidas com o JSON já serializado")
+                .register(meterRegistry);
+        this.misses = Counter.builder("trincashop.product.catalog.response.requests").tag("result", "miss")
+                .description("Páginas do catálogo montadas e serializadas na requisição")
+                .register(meterRegistry);
+    }
+
+    // A versão é lida antes da página: o conteúdo guardado é no mínimo dessa
+    // versão, como o ETag lido pelo controller antes de chamar este método
+    public byte[] obter(Pageable pageable, boolean gzip) {
+        Chave chave = new Chave(catalogCache.versao(), pageable);
+        Corpo corpo = corpos.get(chave);
+        if (corpo != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            corpo = new Corpo(serializar(pageable));
+            corpos.put(chave, corpo, System.currentTimeMillis() + ttlMs);
+        }
+        return gzip ? corpo.gzip() : corpo.json;
+    }
+
+    private byte[] serializar(Pageable pageable) {
+        try {
+            // Mesmo ObjectMapper do Spring MVC: os bytes são os que o conversor geraria
+            return objectMapper.writeValueAsBytes(productService.listarCatalogo(pageable));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar o catálogo de produtos", e);
+        }
+    }
+
+    private static byte[] comprimir(byte[] json) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return saida.toByteArray();
+    }
+}
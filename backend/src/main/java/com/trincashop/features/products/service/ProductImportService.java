@@ -0,0 +1,534 @@
+package com.trincashop.features.products.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trincashop.core.exception.BadRequestException;
+import com.trincashop.features.products.dto.ProductImportResponse;
+import com.trincashop.features.products.dto.ProductRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Importação em massa de produtos a partir de CSV ou NDJSON.
+ * <p>
+ * O arquivo é lido em streaming, linha a linha, e validado com as mesmas regras de
+ * {@link ProductRequest}. As linhas válidas são acumuladas em lotes de
+ * {@code batch-size}; cada lote vai por {@code COPY} para uma tabela temporária e
+ * é mesclado em {@code products} na própria transação. Linhas com {@code id}
+ * atualizam o produto; sem {@code id}, criam um novo. A memória usada é a de um
+ * lote, qualquer que seja o tamanho do arquivo.
+ * <p>
+ * Lotes já gravados não voltam atrás. Por isso, depois do cabeçalho, um arquivo
+ * que não dá para continuar lendo (aspas não fechadas, upload interrompido) não
+ * vira erro 400: o que foi lido até ali é gravado e a resposta traz os totais e a
+ * linha em que a leitura parou.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    public enum Formato {
+        CSV, NDJSON
+    }
+
+    // Temporária e descartada no commit: cada lote cria a sua, na conexão da transação
+    private static final String CRIAR_TABELA = """
+            CREATE TEMP TABLE product_import (
+                linha               BIGINT         NOT NULL,
+                id                  BIGINT,
+                name                VARCHAR(150)   NOT NULL,
+                price               DECIMAL(10, 2) NOT NULL,
+                stock               INTEGER        NOT NULL,
+                active              BOOLEAN,
+                low_stock_threshold INTEGER
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPIAR = "COPY product_import (linha, id, name, price, stock, active, "
+            + "low_stock_threshold) FROM STDIN WITH (FORMAT csv)";
+
+    // Mesma ordem de travas da reserva de estoque e do carrinho: por ID
+    private static final String TRAVAR = """
+            SELECT p.id FROM products p
+            WHERE p.id IN (SELECT id FROM product_import WHERE id IS NOT NULL)
+            ORDER BY p.id FOR UPDATE
+            """;
+
+    private static final String NAO_ENCONTRADOS = """
+            SELECT s.linha, s.id FROM product_import s
+            WHERE s.id IS NOT NULL AND NOT EXISTS (SELECT 1 FROM products p WHERE p.id = s.id)
+            ORDER BY s.linha
+            """;
+
+    // Se o mesmo ID aparece mais de uma vez no lote, vale a última linha
+    private static final String ATUALIZAR = """
+            UPDATE products p
+            SET name = s.name, price = s.price, stock = s.stock,
+                active = COALESCE(s.active, p.active),
+                low_stock_threshold = COALESCE(s.low_stock_threshold, p.low_stock_threshold),
+                updated_at = CURRENT_TIMESTAMP
+            FROM (SELECT DISTINCT ON (id) * FROM product_import WHERE id IS NOT NULL ORDER BY id, linha DESC) s
+            WHERE p.id = s.id
+            RETURNING p.id, p.flash_sale
+            """;
+
+    // Limite de estoque baixo ausente: o mesmo padrão de Product e da V17
+    private static final String INSERIR = """
+            INSERT INTO products (name, price, stock, active, low_stock_threshold, flash_sale, created_at, updated_at)
+            SELECT name, price, stock, COALESCE(active, TRUE), COALESCE(low_stock_threshold, 5), FALSE,
+                   CURRENT_TIMESTAMP, CURRENT_TIMESTAMP
+            FROM product_import WHERE id IS NULL
+            ORDER BY linha
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final FlashSaleService flashSaleService;
+    private final ProductCatalogCache catalogCache;
+    private final LowStockMonitor lowStockMonitor;
+    private final int tamanhoLote;
+    private final int maxErros;
+
+    public ProductImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            Validator validator, ObjectMapper objectMapper, FlashSaleService flashSaleService,
+            ProductCatalogCache catalogCache, LowStockMonitor lowStockMonitor,
+            @Value("${trincashop.product-import.batch-size:5000}") int tamanhoLote,
+            @Value("${trincashop.product-import.max-errors:1000}") int maxErros) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.flashSaleService = flashSaleService;
+        this.catalogCache = catalogCache;
+        this.lowStockMonitor = lowStockMonitor;
+        this.tamanhoLote = tamanhoLote;
+        this.maxErros = maxErros;
+    }
+
+    public ProductImportResponse importar(InputStream entrada, Formato formato) {
+        long inicio = System.currentTimeMillis();
+        Importacao importacao = new Importacao();
+        try (BufferedReader leitor = new BufferedReader(
+                new InputStreamReader(entrada, StandardCharsets.UTF_8), TAMANHO_BUFFER)) {
+            if (formato == Formato.CSV) {
+                lerCsv(leitor, importacao);
+            } else {
+                lerNdjson(leitor, importacao);
+            }
+        } catch (LeituraInterrompidaException e) {
+            importacao.interromper(e.linha, e.getMessage());
+        } catch (IOException | UncheckedIOException e) {
+            importacao.interromper(importacao.ultimaLinhaLida + 1, "Leitura do arquivo interrompida: "
+                    + e.getMessage());
+        }
+        importacao.gravarLote();
+
+        log.info("Importação de produtos ({}): {} inserido(s), {} atualizado(s), {} rejeitado(s){} em {} ms",
+                formato, importacao.inseridos, importacao.atualizados, importacao.rejeitados,
+                importacao.linhaInterrompida != null ? ", interrompida na linha " + importacao.linhaInterrompida
+                        : "",
+                System.currentTimeMillis() - inicio);
+        return new ProductImportResponse(importacao.inseridos, importacao.atualizados, importacao.rejeitados,
+                importacao.erros, importacao.linhaInterrompida);
+    }
+
+    // Cabeçalho obrigatório com name, price e stock; id, active e low_stock_threshold
+    // são opcionais. A ordem das colunas é livre.
+    private void lerCsv(Reader leitor, Importacao importacao) throws IOException {
+        LeitorCsv csv = new LeitorCsv(leitor);
+        List<String> cabecalho = csv.proximo();
+        if (cabecalho == null) {
+            throw new BadRequestException("Arquivo vazio");
+        }
+        Map<String, Integer> colunas = new HashMap<>();
+        for (int i = 0; i < cabecalho.size(); i++) {
+            // Planilhas costumam gravar o BOM do UTF-8 no início do arquivo
+            colunas.put(cabecalho.get(i).replace("\uFEFF", "").strip().toLowerCase(Locale.ROOT), i);
+        }
+        for (String obrigatoria : List.of("name", "price", "stock")) {
+            if (!colunas.containsKey(obrigatoria)) {
+                throw new BadRequestException("Coluna obrigatória ausente no cabeçalho: " + obrigatoria);
+            }
+        }
+
+        List<String> campos;
+        while ((campos = csv.proximo()) != null) {
+            long linha = csv.linhaDoRegistro();
+            if (campos.size() == 1 && campos.get(0).isBlank()) {
+                continue;
+            }
+            try {
+                ProductRequest request = new ProductRequest();
+                request.setName(campo(campos, colunas, "name"));
+                request.setPrice(preco(campo(campos, colunas, "price")));
+                request.setStock(estoque(campo(campos, colunas, "stock")));
+                request.setActive(ativo(campo(campos, colunas, "active")));
+                request.setLowStockThreshold(limite(campo(campos, colunas, "low_stock_threshold")));
+                importacao.adicionar(linha, id(campo(campos, colunas, "id")), request);
+            } catch (IllegalArgumentException e) {
+                importacao.rejeitar(linha, e.getMessage());
+            }
+        }
+    }
+
+    private void lerNdjson(BufferedReader leitor, Importacao importacao) throws IOException {
+        String texto;
+        long linha = 0;
+        while ((texto = leitor.readLine()) != null) {
+            linha++;
+            if (texto.isBlank()) {
+                continue;
+            }
+            try {
+                JsonNode no = objectMapper.readTree(texto);
+                if (!no.isObject()) {
+                    throw new IllegalArgumentException("A linha deve ser um objeto JSON");
+                }
+                ProductRequest request = objectMapper.treeToValue(no, ProductRequest.class);
+                if (!no.hasNonNull("active")) {
+                    request.setActive(null);
+                }
+                JsonNode id = no.get("id");
+                if (id != null && !id.isNull() && !id.canConvertToLong()) {
+                    throw new IllegalArgumentException("ID inválido: " + id);
+                }
+                importacao.adicionar(linha, id == null || id.isNull() ? null : id.asLong(), request);
+            } catch (JsonProcessingException e) {
+                importacao.rejeitar(linha, "JSON inválido: " + e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                importacao.rejeitar(linha, e.getMessage());
+            }
+        }
+    }
+
+    private static String campo(List<String> campos, Map<String, Integer> colunas, String nome) {
+        Integer indice = colunas.get(nome);
+        if (indice == null || indice >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(indice).strip();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    private static Long id(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("ID inválido: " + valor);
+        }
+    }
+
+    private static BigDecimal preco(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Preço inválido: " + valor);
+        }
+    }
+
+    private static Integer estoque(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Estoque inválido: " + valor);
+        }
+    }
+
+    private static Integer limite(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Limite de estoque baixo inválido: " + valor);
+        }
+    }
+
+    private static Boolean ativo(String valor) {
+        if (valor == null) {
+            return null;
+        }
+        if (valor.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (valor.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Valor inválido para active: " + valor);
+    }
+
+    // Campo no formato CSV do COPY: vazio sem aspas é NULL
+    private static void campoCopy(StringBuilder lote, Object valor) {
+        if (valor == null) {
+            return;
+        }
+        if (valor instanceof String texto) {
+            lote.append('"').append(texto.replace("\"", "\"\"")).append('"');
+        } else {
+            lote.append(valor);
+        }
+    }
+
+    // O arquivo não pode mais ser lido a partir desta linha
+    private static final class LeituraInterrompidaException extends RuntimeException {
+
+        private final long linha;
+
+        LeituraInterrompidaException(long linha, String mensagem) {
+            super(mensagem);
+            this.linha = linha;
+        }
+    }
+
+    private record Resultado(long inseridos, long atualizados, List<ProductImportResponse.Erro> naoEncontrados) {
+    }
+
+    // Estado de uma importação: o lote em montagem (já no formato do COPY) e os totais
+    private final class Importacao {
+
+        private final StringBuilder lote = new StringBuilder();
+        private final List<ProductImportResponse.Erro> erros = new ArrayList<>();
+        private long primeiraLinhaDoLote;
+        private long ultimaLinhaDoLote;
+        private int linhasNoLote;
+        private long ultimaLinhaLida;
+        private long inseridos;
+        private long atualizados;
+        private long rejeitados;
+        private Long linhaInterrompida;
+
+        void adicionar(long linha, Long id, ProductRequest request) {
+            ultimaLinhaLida = linha;
+            Set<ConstraintViolation<ProductRequest>> violacoes = validator.validate(request);
+            if (!violacoes.isEmpty()) {
+                rejeitar(linha, violacoes.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            BigDecimal preco = request.getPrice().setScale(2, RoundingMode.HALF_UP);
+            if (preco.precision() > 10) {
+                rejeitar(linha, "Preço deve ter no máximo 8 dígitos antes da vírgula");
+                return;
+            }
+
+            if (linhasNoLote == 0) {
+                primeiraLinhaDoLote = linha;
+            }
+            ultimaLinhaDoLote = linha;
+            lote.append(linha).append(',');
+            campoCopy(lote, id);
+            lote.append(',');
+            campoCopy(lote, request.getName());
+            lote.append(',').append(preco.toPlainString()).append(',').append(request.getStock()).append(',');
+            campoCopy(lote, request.getActive());
+            lote.append(',');
+            campoCopy(lote, request.getLowStockThreshold());
+            lote.append('\n');
+            if (++linhasNoLote >= tamanhoLote) {
+                gravarLote();
+            }
+        }
+
+        void rejeitar(long linha, String erro) {
+            ultimaLinhaLida = Math.max(ultimaLinhaLida, linha);
+            rejeitados++;
+            if (erros.size() < maxErros) {
+                erros.add(new ProductImportResponse.Erro(linha, erro));
+            }
+        }
+
+        // O resto do arquivo é ignorado; o que já foi lido ainda é gravado
+        void interromper(long linha, String erro) {
+            linhaInterrompida = linha;
+            rejeitar(linha, erro);
+        }
+
+        void gravarLote() {
+            if (linhasNoLote == 0) {
+                return;
+            }
+            byte[] dados = lote.toString().getBytes(StandardCharsets.UTF_8);
+            int linhas = linhasNoLote;
+            lote.setLength(0);
+            linhasNoLote = 0;
+            try {
+                Resultado resultado = transactionTemplate.execute(status -> mesclar(dados));
+                inseridos += resultado.inseridos();
+                atualizados += resultado.atualizados();
+                resultado.naoEncontrados().forEach(erro -> rejeitar(erro.linha(), erro.erro()));
+            } catch (DataAccessException e) {
+                // O lote inteiro foi revertido; os anteriores continuam gravados
+                log.warn("Importação de produtos: lote das linhas {} a {} não gravado",
+                        primeiraLinhaDoLote, ultimaLinhaDoLote, e);
+                rejeitados += linhas - 1;
+                rejeitar(primeiraLinhaDoLote, "Lote das linhas " + primeiraLinhaDoLote + " a "
+                        + ultimaLinhaDoLote + " não gravado: " + e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    private Resultado mesclar(byte[] dados) {
+        jdbcTemplate.execute(CRIAR_TABELA);
+        jdbcTemplate.execute((ConnectionCallback<Long>) conexao -> {
+            try {
+                return conexao.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(COPIAR, new ByteArrayInputStream(dados));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        jdbcTemplate.queryForList(TRAVAR, Long.class);
+        List<ProductImportResponse.Erro> naoEncontrados = jdbcTemplate.query(NAO_ENCONTRADOS,
+                (rs, i) -> new ProductImportResponse.Erro(rs.getLong("linha"),
+                        "Produto não encontrado com ID: " + rs.getLong("id")));
+
+        List<Long> emFlashSale = new ArrayList<>();
+        List<Long> atualizados = jdbcTemplate.query(ATUALIZAR, (rs, i) -> {
+            long id = rs.getLong("id");
+            if (rs.getBoolean("flash_sale")) {
+                emFlashSale.add(id);
+            }
+            return id;
+        });
+        // Como em atualizarDeRequest: o novo estoque já considera as unidades pendentes,
+        // então a época avança e o pool é instalado com o novo valor depois do commit
+        emFlashSale.forEach(flashSaleService::reiniciar);
+        int inseridos = jdbcTemplate.update(INSERIR);
+
+        catalogCache.invalidarTudo();
+
+        lowStockMonitor.registrarTudo();
+        return new Resultado(inseridos, atualizados.size(), naoEncontrados);
+    }
+
+    /**
+     * Leitor de CSV (RFC 4180): separador vírgula, aspas duplas com "" como escape
+     * e quebras de linha dentro de campos entre aspas. Lê um registro por vez.
+     */
+    private static final class LeitorCsv {
+
+        private final Reader leitor;
+        private long linha = 1;
+        private long linhaDoRegistro;
+        private int proximo = -2;
+
+        LeitorCsv(Reader leitor) {
+            this.leitor = leitor;
+        }
+
+        long linhaDoRegistro() {
+            return linhaDoRegistro;
+        }
+
+        // null no fim do arquivo
+        List<String> proximo() throws IOException {
+            int c = ler();
+            if (c == -1) {
+                return null;
+            }
+            linhaDoRegistro = linha;
+            List<String> campos = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean entreAspas = false;
+            while (true) {
+                if (entreAspas) {
+                    if (c == -1) {
+                        throw new LeituraInterrompidaException(linhaDoRegistro,
+                                "Aspas não fechadas no registro da linha " + linhaDoRegistro);
+                    }
+                    if (c == '"') {
+                        int seguinte = ler();
+                        if (seguinte == '"') {
+                            campo.append('"');
+                        } else {
+                            entreAspas = false;
+                            c = seguinte;
+                            continue;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            linha++;
+                        }
+                        campo.append((char) c);
+                    }
+                } else if (c == '"' && campo.isEmpty()) {
+                    entreAspas = true;
+                } else if (c == ',') {
+                    campos.add(campo.toString());
+                    campo.setLength(0);
+                } else if (c == '\n' || c == '\r' || c == -1) {
+                    if (c == '\r') {
+                        int seguinte = ler();
+                        if (seguinte != '\n') {
+                            proximo = seguinte;
+                        }
+                    }
+                    if (c != -1) {
+                        linha++;
+                    }
+                    campos.add(campo.toString());
+                    return campos;
+                } else {
+                    campo.append((char) c);
+                }
+                c = ler();
+            }
+        }
+
+        private int ler() throws IOException {
+            if (proximo != -2) {
+                int c = proximo;
+                proximo = -2;
+                return c;
+            }
+            return leitor.read();
+        }
+    }
+}
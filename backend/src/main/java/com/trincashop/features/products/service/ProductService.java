@@ -1,28 +1,129 @@
 package com.trincashop.features.products.service;
 
+import com.trincashop.features.products.dto.ProductChangesResponse;
 import com.trincashop.features.products.dto.ProductRequest;
+import com.trincashop.features.products.dto.ProductResponse;
 import com.trincashop.features.products.model.Product;
+import com.trincashop.features.products.repository.FridgeInventoryRepository;
 import com.trincashop.features.products.repository.ProductRepository;
+import com.trincashop.core.exception.BadRequestException;
 import com.trincashop.core.exception.ResourceNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
 
+    // Com menos de 3 caracteres não há trigrama para o índice e a busca varre a tabela
+    private static final int TAMANHO_MINIMO_BUSCA = 3;
+    private static final int TAMANHO_MAXIMO_BUSCA = 100;
+
     private final ProductRepository productRepository;
+    private final FridgeInventoryRepository fridgeInventoryRepository;
+    private final FlashSaleService flashSaleService;
+    private final ProductCatalogCache catalogCache;
+    private final LowStockMonitor lowStockMonitor;
+    private final int maxAlteracoes;
 
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, FridgeInventoryRepository fridgeInventoryRepository,
+            FlashSaleService flashSaleService, ProductCatalogCache catalogCache, LowStockMonitor lowStockMonitor,
+            @Value("${trincashop.product-changes.max-changes:500}") int maxAlteracoes) {
         this.productRepository = productRepository;
+        this.fridgeInventoryRepository = fridgeInventoryRepository;
+        this.flashSaleService = flashSaleService;
+        this.catalogCache = catalogCache;
+        this.lowStockMonitor = lowStockMonitor;
+        this.maxAlteracoes = maxAlteracoes;
+    }
+
+    // Listagens somente leitura: projeção direto no DTO e transação readOnly (sem flush
+    // nem dirty checking no Hibernate, BEGIN READ ONLY no PostgreSQL), com a página
+    // e o COUNT na mesma conexão
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public Page<ProductResponse> listarProdutosAtivos(Pageable pageable) {
+        return productRepository.listarAtivos(pageable);
+    }
+
+    public String etagCatalogo() {
+        return catalogCache.etag();
+    }
+
+    // Catálogo público: servido pelo snapshot em memória quando a ordenação permite.
+    // Sem transação aqui: um acerto no snapshot não precisa de conexão; no fallback, a
+    // consulta do repositório já roda na própria transação readOnly
+    public Page<ProductResponse> listarCatalogo(Pageable pageable) {
+        Page<ProductResponse> page = catalogCache.listarAtivos(pageable);
+        return page != null ? page : productRepository.listarAtivos(pageable);
+    }
+
+    // Produtos criados, alterados ou desativados desde a versão informada. A versão
+    // é lida antes das linhas, então o que mudar entre as duas consultas volta no
+    // próximo poll (no máximo repetido, nunca perdido). Cursor ausente, de outro
+    // banco ou com mais de max-changes alterações pede a carga completa.
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public ProductChangesResponse listarAlteracoes(Long desde) {
+        long versao = productRepository.buscarVersaoCatalogo();
+        if (desde == null || desde < 0 || desde > versao) {
+            return ProductChangesResponse.ressincronizar(versao);
+        }
+        List<Long> ids = productRepository.buscarIdsAlteradosDesde(desde, maxAlteracoes + 1);
+        if (ids.size() > maxAlteracoes) {
+            return ProductChangesResponse.ressincronizar(versao);
+        }
+        List<ProductResponse> alterados = ids.isEmpty() ? List.of() : productRepository.listarPorIds(ids);
+        return ProductChangesResponse.alteracoes(versao, alterados);
+    }
+
+    // Busca por nome entre os produtos ativos (prefixo ou substring, sem acento).
+    // A ordem é a relevância calculada no banco, então a ordenação pedida é ignorada.
+    // A consulta é nativa e carrega entidades, mas na transação readOnly o Hibernate
+    // as marca como somente leitura e não guarda snapshot. O estoque das geladeiras
+    // vem em uma segunda consulta, só para os produtos da página.
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public Page<ProductResponse> buscarPorNome(String termo, Pageable pageable) {
+        String normalizado = termo == null ? "" : termo.strip();
+        if (normalizado.length() < TAMANHO_MINIMO_BUSCA) {
+            throw new BadRequestException("A busca precisa de pelo menos " + TAMANHO_MINIMO_BUSCA + " caracteres");
+        }
+        if (normalizado.length() > TAMANHO_MAXIMO_BUSCA) {
+            normalizado = normalizado.substring(0, TAMANHO_MAXIMO_BUSCA);
+        }
+        String escapado = normalizado.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        Page<Product> pagina = productRepository.buscarPorNome(escapado,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        Map<Long, Integer> estoqueGeladeiras = somarGeladeiras(pagina.map(Product::getId).getContent());
+        return pagina.map(product -> ProductResponse.fromEntity(product,
+                estoqueGeladeiras.getOrDefault(product.getId(), 0)));
+    }
+
+    // Resposta de um produto recém-gravado, com o mesmo estoque total das listagens
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public ProductResponse respostaDe(Product product) {
+        return ProductResponse.fromEntity(product,
+                somarGeladeiras(List.of(product.getId())).getOrDefault(product.getId(), 0));
     }
 
-    public Page<Product> listarProdutosAtivos(Pageable pageable) {
-        return productRepository.findByActiveTrue(pageable);
+    private Map<Long, Integer> somarGeladeiras(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return fridgeInventoryRepository.somarPorProdutos(ids).stream().collect(Collectors.toMap(
+                FridgeInventoryRepository.EstoquePorProduto::getProductId,
+                soma -> soma.getStock().intValue()));
     }
 
-    public Page<Product> listarTodos(Pageable pageable) {
-        return productRepository.findAll(pageable);
+    @org.springframework.transaction.annotation.Transactional(readOnly = true)
+    public Page<ProductResponse> listarTodos(Pageable pageable) {
+        return productRepository.listarTodos(pageable);
     }
 
     public Product buscarPorId(Long id) {
@@ -30,12 +131,72 @@ public class ProductService {
                 .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado com ID: " + id));
     }
 
+    // Reserva com UPDATE condicional; se nada foi afetado, descobre o motivo
+    // para manter as mesmas mensagens de erro de antes. Produtos em flash sale
+    // reservam pelo pool de tokens em memória, sem tocar na linha do produto.
+    @org.springframework.transaction.annotation.Transactional
+    public ReservaEstoque reservarEstoque(Long id, int quantidade) {
+        if (!flashSaleService.carregado(id) && productRepository.decrementarEstoque(id, quantidade) > 0) {
+            catalogCache.invalidar(id);
+            lowStockMonitor.registrarAlteracao(id);
+            return new ReservaEstoque(buscarPorId(id), null);
+        }
+
+        Product product = buscarPorId(id);
+        if (!Boolean.TRUE.equals(product.getActive())) {
+            throw new BadRequestException("Produto não está disponível");
+        }
+        if (Boolean.TRUE.equals(product.getFlashSale())) {
+            Long epoca = flashSaleService.reservar(id, quantidade);
+            if (epoca != null) {
+                return new ReservaEstoque(product, epoca);
+            }
+        }
+        throw new BadRequestException("Produto sem estoque");
+    }
+
+    // Devolve ao estoque as unidades de pedidos cancelados, com um UPDATE por
+    // produto. Roda dentro da transação do cancelamento e em ordem de ID, a mesma
+    // ordem de travas em qualquer lote. Em flash sale o pedido pendente ainda será
+    // descontado pela liquidação, então o saldo final da linha fica correto.
+    @org.springframework.transaction.annotation.Transactional(propagation = Propagation.MANDATORY)
+    public void restaurarEstoque(Map<Long, Integer> quantidadePorProduto) {
+        new TreeMap<>(quantidadePorProduto).forEach((id, quantidade) -> {
+            productRepository.incrementarEstoque(id, quantidade);
+            catalogCache.invalidar(id);
+            lowStockMonitor.registrarAlteracao(id);
+            flashSaleService.devolverAposCommit(id, quantidade);
+        });
+    }
+
+    @org.springframework.transaction.annotation.Transactional
+    public Product alterarFlashSale(Long id, boolean ativo) {
+        Product existente = buscarPorId(id);
+        existente.setFlashSale(ativo);
+        // Flush antes de mexer no pool: a linha fica travada até o commit e os
+        // pedidos concorrentes esperam pelo novo valor de flash_sale. O pool é
+        // carregado aqui, com a linha travada, e instalado depois do commit.
+        Product salvo = productRepository.saveAndFlush(existente);
+        catalogCache.invalidar(id);
+        lowStockMonitor.registrarAlteracao(id);
+        if (ativo) {
+            flashSaleService.iniciar(id);
+        } else {
+            flashSaleService.descarregar(id);
+            productRepository.liquidarEstoquePendente(id);
+        }
+        return salvo;
+    }
+
     @org.springframework.transaction.annotation.Transactional
     public Product salvar(Product product) {
         if (product.getActive() == null) {
             product.setActive(true);
         }
-        return productRepository.save(product);
+        Product salvo = productRepository.save(product);
+        catalogCache.invalidar(salvo.getId());
+        lowStockMonitor.registrarAlteracao(salvo.getId());
+        return salvo;
     }
 
     @org.springframework.transaction.annotation.Transactional
@@ -44,8 +205,14 @@ public class ProductService {
         product.setName(request.getName());
         product.setPrice(request.getPrice());
         product.setStock(request.getStock());
+        if (request.getLowStockThreshold() != null) {
+            product.setLowStockThreshold(request.getLowStockThreshold());
+        }
         product.setActive(request.getActive() != null ? request.getActive() : true);
-        return productRepository.save(product);
+        Product salvo = productRepository.save(product);
+        catalogCache.invalidar(salvo.getId());
+        lowStockMonitor.registrarAlteracao(salvo.getId());
+        return salvo;
     }
 
     @org.springframework.transaction.annotation.Transactional
@@ -54,9 +221,21 @@ public class ProductService {
         existente.setName(request.getName());
         existente.setPrice(request.getPrice());
         existente.setStock(request.getStock());
+        if (request.getLowStockThreshold() != null) {
+            existente.setLowStockThreshold(request.getLowStockThreshold());
+        }
         if (request.getActive() != null) {
             existente.setActive(request.getActive());
         }
+        catalogCache.invalidar(id);
+        lowStockMonitor.registrarAlteracao(id);
+        if (Boolean.TRUE.equals(existente.getFlashSale())) {
+            // O novo estoque já considera as unidades pendentes: a época avança e o
+            // pool é recarregado com o novo valor depois do commit
+            Product salvo = productRepository.saveAndFlush(existente);
+            flashSaleService.reiniciar(id);
+            return salvo;
+        }
         return productRepository.save(existente);
     }
 
@@ -67,6 +246,8 @@ public class ProductService {
         existente.setPrice(productAtualizado.getPrice());
         existente.setStock(productAtualizado.getStock());
         existente.setActive(productAtualizado.getActive());
+        catalogCache.invalidar(id);
+        lowStockMonitor.registrarAlteracao(id);
         return productRepository.save(existente);
     }
 }
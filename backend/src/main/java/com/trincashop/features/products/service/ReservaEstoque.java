@@ -0,0 +1,15 @@
+package com.trincashop.features.products.service;
+
+import com.trincashop.features.products.model.Product;
+
+/**
+ * Resultado de uma reserva de estoque. {@code epocaFlashSale} é preenchida quando a
+ * unidade saiu do pool de flash sale e ainda precisa ser descontada de
+ * {@code products.stock}; a liquidação só a desconta se a época ainda for a do produto.
+ */
+public record ReservaEstoque(Product product, Long epocaFlashSale) {
+
+    public boolean pendente() {
+        return epocaFlashSale != null;
+    }
+}
@@ -0,0 +1,9 @@
+-- V10__Orders_keyset_indexes.sql
+-- Índices da listagem de pedidos por cursor, ordenada por (created_at, id).
+-- (created_at, id) também atende as consultas por período do backfill do
+-- consolidado de vendas, então substitui o índice simples criado na V9.
+
+CREATE INDEX IF NOT EXISTS idx_orders_created_id ON orders (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_orders_status_created_id ON orders (status, created_at, id);
+
+DROP INDEX IF EXISTS idx_orders_created_at;
@@ -0,0 +1,96 @@
+-- V11__Orders_partitioning.sql
+-- orders passa a ser particionada por mês de created_at. Consultas por período
+-- (relatórios, backfill, cursor, expiração) só leem os meses envolvidos, e meses
+-- antigos podem ser desanexados sem DELETE (OrderPartitionService).
+-- A chave primária precisa conter a coluna de partição: vira (id, created_at).
+-- O id continua único na prática porque vem sempre de orders_id_seq.
+
+-- Cria as partições mensais de [mês de "de", mês de "ate"] que ainda não existem
+CREATE OR REPLACE FUNCTION orders_criar_particoes(de DATE, ate DATE) RETURNS INTEGER AS $$
+DECLARE
+    mes     DATE := date_trunc('month', de);
+    nome    TEXT;
+    criadas INTEGER := 0;
+BEGIN
+    -- Serializa a manutenção entre instâncias
+    PERFORM pg_advisory_xact_lock(6012, 0);
+    WHILE mes <= ate LOOP
+        nome := 'orders_' || to_char(mes, 'YYYY_MM');
+        IF to_regclass(nome) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF orders FOR VALUES FROM (%L) TO (%L)',
+                           nome, mes, (mes + INTERVAL '1 month')::DATE);
+            criadas := criadas + 1;
+        END IF;
+        mes := (mes + INTERVAL '1 month')::DATE;
+    END LOOP;
+    RETURN criadas;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Desanexa as partições que terminam até "antes" e as move para o schema arquivo,
+-- onde continuam consultáveis (e podem ser exportadas ou removidas à parte)
+CREATE OR REPLACE FUNCTION orders_arquivar_particoes(antes DATE) RETURNS INTEGER AS $$
+DECLARE
+    particao   RECORD;
+    arquivadas INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(6012, 0);
+    -- DETACH trava orders por completo; melhor desistir e tentar na próxima execução
+    -- do que enfileirar todos os pedidos atrás de uma transação longa
+    SET LOCAL lock_timeout = '5s';
+    FOR particao IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'orders'::regclass
+          AND c.relname ~ '^orders_\d{4}_\d{2}$'
+          AND (to_date(substr(c.relname, 8), 'YYYY_MM') + INTERVAL '1 month')::DATE <= antes
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE orders DETACH PARTITION %I', particao.relname);
+        EXECUTE format('ALTER TABLE %I SET SCHEMA arquivo', particao.relname);
+        arquivadas := arquivadas + 1;
+    END LOOP;
+    RETURN arquivadas;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE SCHEMA IF NOT EXISTS arquivo;
+
+-- A sequência pertence à tabela antiga e seria removida junto com ela
+ALTER SEQUENCE orders_id_seq OWNED BY NONE;
+ALTER TABLE orders RENAME TO orders_legado;
+
+CREATE TABLE orders (
+    id            BIGINT          NOT NULL DEFAULT nextval('orders_id_seq'),
+    product_id    BIGINT          NOT NULL,
+    product_name  VARCHAR(150)    NOT NULL,
+    product_price DECIMAL(10, 2)  NOT NULL,
+    status        VARCHAR(50)     NOT NULL DEFAULT 'PENDING',
+    created_at    TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at    TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    stock_pending BOOLEAN         NOT NULL DEFAULT FALSE
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE orders_id_seq OWNED BY orders.id;
+
+-- Do mês do pedido mais antigo até três meses à frente (o job mantém a folga)
+SELECT orders_criar_particoes(
+    COALESCE((SELECT MIN(created_at) FROM orders_legado), CURRENT_TIMESTAMP)::DATE,
+    GREATEST((SELECT MAX(created_at) FROM orders_legado), CURRENT_TIMESTAMP + INTERVAL '3 months')::DATE);
+
+INSERT INTO orders (id, product_id, product_name, product_price, status, created_at, updated_at, stock_pending)
+SELECT id, product_id, product_name, product_price, status, created_at, updated_at, stock_pending
+FROM orders_legado;
+
+DROP TABLE orders_legado;
+
+-- Restrições e índices depois da carga (mais rápido que mantê-los linha a linha)
+ALTER TABLE orders ADD CONSTRAINT orders_pkey PRIMARY KEY (id, created_at);
+ALTER TABLE orders ADD CONSTRAINT fk_orders_product FOREIGN KEY (product_id) REFERENCES products (id);
+
+CREATE INDEX idx_orders_created_id ON orders (created_at, id);
+CREATE INDEX idx_orders_status_created_id ON orders (status, created_at, id);
+CREATE INDEX idx_orders_stock_pending ON orders (product_id) WHERE stock_pending;
+
+ANALYZE orders;
@@ -0,0 +1,31 @@
+-- V12__Order_status_history.sql
+-- Histórico de transições de status dos pedidos (auditoria de disputas). Os registros
+-- chegam em lote por um escritor em segundo plano (OrderHistoryService), por isso a
+-- sequência reserva 50 IDs por vez, como orders_id_seq.
+
+CREATE SEQUENCE IF NOT EXISTS order_status_history_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS order_status_history (
+    id              BIGINT       NOT NULL DEFAULT nextval('order_status_history_id_seq') PRIMARY KEY,
+    order_id        BIGINT       NOT NULL,
+    previous_status VARCHAR(50)  NOT NULL,
+    new_status      VARCHAR(50)  NOT NULL,
+    changed_by      VARCHAR(150) NOT NULL,
+    changed_at      TIMESTAMP    NOT NULL
+);
+
+ALTER SEQUENCE order_status_history_id_seq OWNED BY order_status_history.id;
+
+-- Sem FK para orders: a PK de lá é (id, created_at) e meses antigos podem ser arquivados
+CREATE INDEX IF NOT EXISTS idx_order_status_history_order ON order_status_history (order_id, changed_at);
+
+-- Somente inserção: o próprio banco recusa UPDATE, DELETE e TRUNCATE
+CREATE OR REPLACE FUNCTION order_status_history_somente_insercao() RETURNS TRIGGER AS $$
+BEGIN
+    RAISE EXCEPTION 'order_status_history aceita apenas INSERT';
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_order_status_history_somente_insercao
+    BEFORE UPDATE OR DELETE OR TRUNCATE ON order_status_history
+    FOR EACH STATEMENT EXECUTE FUNCTION order_status_history_somente_insercao();
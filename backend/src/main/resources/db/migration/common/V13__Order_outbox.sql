@@ -0,0 +1,34 @@
+-- V13__Order_outbox.sql
+-- Outbox de eventos de pedido: gravado na mesma transação que cria ou altera o
+-- pedido e entregue aos sistemas externos por um despachante separado
+-- (OrderOutboxDispatcher). Uma linha por evento e por destino (sink), para que
+-- cada destino tenha suas próprias tentativas.
+
+-- Cada pedido gera uma ou mais linhas no flush do pedido: a sequência reserva 50 IDs por vez
+CREATE SEQUENCE IF NOT EXISTS order_outbox_id_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS order_outbox (
+    id              BIGINT       NOT NULL DEFAULT nextval('order_outbox_id_seq') PRIMARY KEY,
+    event_id        UUID         NOT NULL,
+    event_type      VARCHAR(50)  NOT NULL,
+    order_id        BIGINT       NOT NULL,
+    sink            VARCHAR(50)  NOT NULL,
+    payload         TEXT         NOT NULL,
+    created_at      TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    attempts        INTEGER      NOT NULL DEFAULT 0,
+    -- Próxima tentativa; enquanto um despachante entrega a linha, é o fim da reserva
+    next_attempt_at TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    dispatched_at   TIMESTAMP,
+    -- Preenchido quando as tentativas se esgotam; a linha para de ser reenviada
+    failed_at       TIMESTAMP,
+    last_error      TEXT
+);
+
+ALTER SEQUENCE order_outbox_id_seq OWNED BY order_outbox.id;
+
+-- Só as linhas ainda a entregar; as entregues não pesam na busca do despachante
+CREATE INDEX IF NOT EXISTS idx_order_outbox_pendentes ON order_outbox (next_attempt_at, id)
+    WHERE dispatched_at IS NULL AND failed_at IS NULL;
+
+-- Limpeza das entregues antigas
+CREATE INDEX IF NOT EXISTS idx_order_outbox_dispatched ON order_outbox (dispatched_at) WHERE dispatched_at IS NOT NULL;
@@ -0,0 +1,31 @@
+-- V14__Product_change_version.sql
+-- Versão de alteração dos produtos para o feed GET /api/products/changes?since=.
+-- A versão é o ID da transação que gravou a linha (pg_current_xact_id(), xid8 de
+-- 64 bits, sem wraparound), preenchido por
+-- trigger: assim vale também para os UPDATEs em lote e nativos (reserva de estoque,
+-- liquidação da flash sale) que não passam pelo @PreUpdate da entidade.
+--
+-- O cursor devolvido ao cliente é o xmin do snapshot da consulta: toda transação
+-- com ID menor já terminou, então nada com versão menor que o cursor pode aparecer
+-- depois. Transações ainda abertas têm ID >= xmin e entram no próximo poll.
+--
+-- Sem índice em change_version de propósito: o trigger reescreve a coluna em toda
+-- reserva de estoque, e um índice nela tiraria esses UPDATEs do caminho HOT (cada
+-- um passaria a gravar também em todos os índices da tabela). O feed varre a
+-- tabela de produtos, que é pequena.
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS change_version BIGINT NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION products_change_version() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.change_version := pg_current_xact_id()::text::bigint;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_products_change_version
+    BEFORE INSERT OR UPDATE ON products
+    FOR EACH ROW EXECUTE FUNCTION products_change_version();
+
+-- Linhas existentes ganham a versão desta migração
+UPDATE products SET change_version = pg_current_xact_id()::text::bigint;
@@ -0,0 +1,16 @@
+-- V15__Product_name_search.sql
+-- Busca por nome do catálogo (GET /api/products/search): prefixo e substring,
+-- sem diferenciar acentos nem maiúsculas, com índice GIN de trigramas.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() é STABLE (depende do dicionário) e não pode ser usada em índice.
+-- Esta versão fixa o dicionário e por isso pode ser IMMUTABLE.
+CREATE OR REPLACE FUNCTION products_nome_busca(nome TEXT) RETURNS TEXT AS $$
+    SELECT lower(public.unaccent('public.unaccent'::regdictionary, nome));
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT;
+
+-- Só produtos ativos: a busca é pública e nunca retorna inativos
+CREATE INDEX IF NOT EXISTS idx_products_nome_trgm ON products
+    USING gin (products_nome_busca(name) gin_trgm_ops) WHERE active;
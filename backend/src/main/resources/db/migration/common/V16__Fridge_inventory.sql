@@ -0,0 +1,45 @@
+-- V16__Fridge_inventory.sql
+-- Estoque por geladeira. Pedidos com fridgeId reservam só na linha
+-- (fridge_id, product_id), então pedidos do mesmo produto em geladeiras diferentes
+-- não disputam mais a mesma linha de products. products.stock continua sendo o
+-- estoque central (pedidos sem geladeira, flash sale, importação) e o catálogo
+-- mostra o total: products.stock + soma das geladeiras.
+
+CREATE TABLE IF NOT EXISTS fridges (
+    id         BIGSERIAL    PRIMARY KEY,
+    name       VARCHAR(100) NOT NULL,
+    active     BOOLEAN      NOT NULL DEFAULT TRUE,
+    created_at TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS fridge_inventory (
+    fridge_id      BIGINT    NOT NULL REFERENCES fridges (id),
+    product_id     BIGINT    NOT NULL REFERENCES products (id),
+    stock          INTEGER   NOT NULL DEFAULT 0 CHECK (stock >= 0),
+    change_version BIGINT    NOT NULL DEFAULT 0,
+    updated_at     TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (fridge_id, product_id)
+);
+
+-- Soma por produto no catálogo
+CREATE INDEX IF NOT EXISTS idx_fridge_inventory_product ON fridge_inventory (product_id);
+
+-- Mesma versão de alteração de products (V14): o feed de alterações também vê
+-- produtos cujo estoque mudou só em uma geladeira, sem precisar tocar em products.
+-- Também sem índice em change_version, para as reservas continuarem HOT
+CREATE TRIGGER trg_fridge_inventory_change_version
+    BEFORE INSERT OR UPDATE ON fridge_inventory
+    FOR EACH ROW EXECUTE FUNCTION products_change_version();
+
+-- Geladeira de onde saiu o pedido (NULL: estoque central), para devolver o
+-- estoque ao lugar certo no cancelamento. ADD CONSTRAINT não tem IF NOT EXISTS:
+-- o bloco confere pg_constraint para o script poder rodar de novo
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS fridge_id BIGINT;
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conname = 'fk_orders_fridge' AND conrelid = 'orders'::regclass) THEN
+        ALTER TABLE orders ADD CONSTRAINT fk_orders_fridge FOREIGN KEY (fridge_id) REFERENCES fridges (id);
+    END IF;
+END
+$$;
@@ -0,0 +1,9 @@
+-- V17__Product_low_stock.sql
+-- Limite de estoque baixo por produto. O alerta compara o estoque total (central +
+-- geladeiras ativas) com o limite, então não há índice parcial sobre products.stock:
+-- ele refletiria só o central e, por indexar stock, tiraria toda reserva de estoque
+-- do caminho HOT. A recarga do monitor (ProductRepository.listarEstoqueBaixo) varre
+-- os produtos ativos, uma vez por minuto.
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS low_stock_threshold INTEGER NOT NULL DEFAULT 5
+    CHECK (low_stock_threshold >= 0);
@@ -0,0 +1,12 @@
+-- V18__Flash_sale_epoch.sql
+-- Época da flash sale. Quando o admin redefine o estoque de um produto em flash
+-- sale, a época avança; os pedidos reservados em um pool anterior (inclusive os que
+-- só commitam depois da redefinição) são marcados pela liquidação sem descontar o
+-- estoque, que já os considera.
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS flash_sale_epoch BIGINT NOT NULL DEFAULT 0;
+
+-- Época do pool que reservou a unidade; só preenchida em pedidos stock_pending
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS flash_sale_epoch BIGINT;
+
+UPDATE orders SET flash_sale_epoch = 0 WHERE stock_pending AND flash_sale_epoch IS NULL;
@@ -0,0 +1,55 @@
+-- V19__Orders_default_partition.sql
+-- Partição padrão de orders. Sem ela, um pedido com created_at fora dos meses
+-- criados (job parado por mais de months-ahead meses, relógio errado) falhava no
+-- INSERT. Agora ele cai em orders_padrao e a manutenção cria o mês e move as linhas.
+
+CREATE TABLE IF NOT EXISTS orders_padrao PARTITION OF orders DEFAULT;
+
+-- Mesma função da V11. Com a partição padrão, CREATE TABLE ... PARTITION OF falha se
+-- a padrão já tem linhas do mês; nesse caso a partição é montada fora de orders com
+-- essas linhas e anexada em seguida, na mesma transação.
+CREATE OR REPLACE FUNCTION orders_criar_particoes(de DATE, ate DATE) RETURNS INTEGER AS $$
+DECLARE
+    mes     DATE := date_trunc('month', de);
+    fim     DATE;
+    nome    TEXT;
+    criadas INTEGER := 0;
+BEGIN
+    -- Serializa a manutenção entre instâncias
+    PERFORM pg_advisory_xact_lock(6012, 0);
+    WHILE mes <= ate LOOP
+        nome := 'orders_' || to_char(mes, 'YYYY_MM');
+        fim := (mes + INTERVAL '1 month')::DATE;
+        IF to_regclass(nome) IS NULL THEN
+            IF EXISTS (SELECT 1 FROM orders_padrao WHERE created_at >= mes AND created_at < fim) THEN
+                EXECUTE format('CREATE TABLE %I (LIKE orders INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', nome);
+                EXECUTE format('INSERT INTO %I SELECT * FROM orders_padrao WHERE created_at >= %L AND created_at < %L',
+                               nome, mes, fim);
+                DELETE FROM orders_padrao WHERE created_at >= mes AND created_at < fim;
+                EXECUTE format('ALTER TABLE orders ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                               nome, mes, fim);
+            ELSE
+                EXECUTE format('CREATE TABLE %I PARTITION OF orders FOR VALUES FROM (%L) TO (%L)',
+                               nome, mes, fim);
+            END IF;
+            criadas := criadas + 1;
+        END IF;
+        mes := fim;
+    END LOOP;
+    RETURN criadas;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Cria (e preenche) o mês de cada pedido que caiu na partição padrão. Devolve quantos
+-- meses saíram dela: acima de zero, a folga de months-ahead não foi suficiente.
+CREATE OR REPLACE FUNCTION orders_esvaziar_padrao() RETURNS INTEGER AS $$
+DECLARE
+    mes     DATE;
+    criadas INTEGER := 0;
+BEGIN
+    FOR mes IN SELECT DISTINCT date_trunc('month', created_at)::DATE FROM orders_padrao ORDER BY 1 LOOP
+        criadas := criadas + orders_criar_particoes(mes, mes);
+    END LOOP;
+    RETURN criadas;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,14 @@
+-- V20__Product_low_stock_index.sql
+-- Índice parcial da recarga do monitor de estoque baixo (LowStockMonitor). O alerta
+-- compara o estoque total (central + geladeiras ativas) com o limite; como o estoque
+-- das geladeiras nunca é negativo, todo produto com total baixo também tem
+-- products.stock <= low_stock_threshold. O índice cobre esse subconjunto e a soma
+-- das geladeiras só é calculada para ele (ProductRepository.listarEstoqueBaixo).
+--
+-- Não há coluna de estoque total em products: mantê-la por trigger faria cada
+-- reserva em geladeira atualizar a linha do produto, e pedidos do mesmo produto em
+-- geladeiras diferentes voltariam a disputar essa linha (ver V16). O custo deste
+-- índice é que reservas do estoque central deixam de ser HOT.
+
+CREATE INDEX IF NOT EXISTS idx_products_estoque_baixo ON products (id)
+    WHERE active AND stock <= low_stock_threshold;
@@ -0,0 +1,11 @@
+-- V21__Change_version_indexes.sql
+-- Índices do feed GET /api/products/changes?since= (V14/V16 não indexam
+-- change_version). O feed busca os IDs alterados com um UNION das duas tabelas,
+-- cada lado pelo próprio índice, em vez de varrer products e fridge_inventory a
+-- cada poll. As versões crescem com o ID da transação, então as inserções caem
+-- sempre na borda direita do índice. O custo é que as reservas de estoque, que
+-- reescrevem change_version pelo trigger, deixam de ser HOT.
+
+CREATE INDEX IF NOT EXISTS idx_products_change_version ON products (change_version);
+
+CREATE INDEX IF NOT EXISTS idx_fridge_inventory_change_version ON fridge_inventory (change_version);
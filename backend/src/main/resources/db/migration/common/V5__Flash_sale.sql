@@ -0,0 +1,9 @@
+-- V5__Flash_sale.sql
+-- Modo flash sale: pedidos consomem tokens em memória e o estoque é baixado em lote
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS flash_sale BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Pedidos criados em flash sale cuja unidade ainda não foi descontada de products.stock
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS stock_pending BOOLEAN NOT NULL DEFAULT FALSE;
+
+CREATE INDEX IF NOT EXISTS idx_orders_stock_pending ON orders (product_id) WHERE stock_pending;
@@ -0,0 +1,5 @@
+-- V6__Orders_sequence_batching.sql
+-- Order passa de IDENTITY para SEQUENCE com allocationSize = 50, permitindo que o
+-- Hibernate agrupe os INSERTs de pedidos em lotes JDBC (pedidos de carrinho)
+
+ALTER SEQUENCE orders_id_seq INCREMENT BY 50;
@@ -0,0 +1,12 @@
+-- V7__Idempotency_keys.sql
+-- Chaves de idempotência do POST /api/orders (sobrevivem a restarts do backend)
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(100) PRIMARY KEY,
+    request_hash    VARCHAR(100) NOT NULL,
+    response        TEXT         NOT NULL,
+    created_at      TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at      TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
@@ -0,0 +1,18 @@
+-- V8__Order_stats.sql
+-- Contadores por status mantidos a cada pedido/transição (GET /api/admin/orders/stats em O(1)).
+-- Cada status é dividido em slots para que pedidos concorrentes não disputem a mesma linha;
+-- a leitura soma os poucos slots de cada status.
+
+CREATE TABLE IF NOT EXISTS order_stats (
+    status       VARCHAR(50)     NOT NULL,
+    slot         SMALLINT        NOT NULL,
+    order_count  BIGINT          NOT NULL DEFAULT 0,
+    total_amount DECIMAL(14, 2)  NOT NULL DEFAULT 0,
+    CONSTRAINT pk_order_stats PRIMARY KEY (status, slot)
+);
+
+INSERT INTO order_stats (status, slot, order_count, total_amount)
+SELECT status, 0, COUNT(*), COALESCE(SUM(product_price), 0)
+FROM orders
+GROUP BY status
+ON CONFLICT DO NOTHING;
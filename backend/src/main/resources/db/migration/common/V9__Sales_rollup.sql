@@ -0,0 +1,21 @@
+-- V9__Sales_rollup.sql
+-- Consolidado de vendas por hora e produto, mantido a cada pedido/transição de status.
+-- As horas são atribuídas pelo created_at do pedido; "vendido" = PAID ou RELEASED.
+-- Como em order_stats, cada chave é dividida em slots para espalhar a contenção.
+
+CREATE TABLE IF NOT EXISTS sales_rollup (
+    bucket_hour    TIMESTAMP       NOT NULL,
+    product_id     BIGINT          NOT NULL,
+    slot           SMALLINT        NOT NULL,
+    orders_created BIGINT          NOT NULL DEFAULT 0,
+    units_sold     BIGINT          NOT NULL DEFAULT 0,
+    revenue        DECIMAL(14, 2)  NOT NULL DEFAULT 0,
+    CONSTRAINT pk_sales_rollup PRIMARY KEY (bucket_hour, product_id, slot)
+);
+
+CREATE INDEX IF NOT EXISTS idx_sales_rollup_product ON sales_rollup (product_id, bucket_hour);
+
+-- O backfill recalcula um dia de cada vez a partir de orders
+CREATE INDEX IF NOT EXISTS idx_orders_created_at ON orders (created_at);
+
+-- O histórico existente é carregado pelo backfill (POST /api/admin/reports/rollup/backfill)
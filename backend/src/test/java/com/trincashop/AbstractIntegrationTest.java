@@ -0,0 +1,55 @@
+package com.trincashop;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Base dos testes de integração: contexto completo da aplicação sobre um PostgreSQL
+ * de verdade, com as migrations do Flyway.
+ * <p>
+ * Por padrão o banco é um container (Testcontainers, precisa de Docker), iniciado
+ * uma vez por JVM. Sem Docker (ou no CI, com um serviço PostgreSQL), aponte para um
+ * banco vazio de PostgreSQL 13+ com as extensões {@code pg_trgm} e {@code unaccent}:
+ * <pre>
+ * mvn verify -Dtrincashop.test.datasource.url=jdbc:postgresql://localhost:5432/trincashop_test \
+ *     -Dtrincashop.test.datasource.username=postgres -Dtrincashop.test.datasource.password=postgres
+ * </pre>
+ * Todas as subclasses usam a mesma configuração, então o Spring reaproveita o mesmo
+ * contexto entre as classes. O banco também é compartilhado: cada teste cria os
+ * próprios produtos e pedidos e compara diferenças, em vez de contar com um banco vazio.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public abstract class AbstractIntegrationTest {
+
+    private static final String URL_EXTERNA = System.getProperty("trincashop.test.datasource.url");
+
+    private static PostgreSQLContainer<?> postgres;
+
+    @DynamicPropertySource
+    static void banco(DynamicPropertyRegistry registry) {
+        if (URL_EXTERNA != null && !URL_EXTERNA.isBlank()) {
+            registry.add("spring.datasource.url", () -> URL_EXTERNA);
+            registry.add("spring.datasource.username",
+                    () -> System.getProperty("trincashop.test.datasource.username", "postgres"));
+            registry.add("spring.datasource.password",
+                    () -> System.getProperty("trincashop.test.datasource.password", ""));
+            return;
+        }
+        PostgreSQLContainer<?> container = container();
+        registry.add("spring.datasource.url", container::getJdbcUrl);
+        registry.add("spring.datasource.username", container::getUsername);
+        registry.add("spring.datasource.password", container::getPassword);
+    }
+
+    private static synchronized PostgreSQLContainer<?> container() {
+        if (postgres == null) {
+            postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+            postgres.start();
+        }
+        return postgres;
+    }
+}
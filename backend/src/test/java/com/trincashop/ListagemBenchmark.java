@@ -0,0 +1,146 @@
+package com.trincashop;
+
+import com.trincashop.features.orders.dto.OrderResponse;
+import com.trincashop.features.orders.repository.OrderRepository;
+import com.trincashop.features.products.dto.ProductResponse;
+import com.trincashop.features.products.model.Product;
+import com.trincashop.features.products.repository.FridgeInventoryRepository;
+import com.trincashop.features.products.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Uma página de 100 produtos e uma de 100 pedidos lidas de três formas: entidades
+ * gerenciadas em transação de escrita mapeadas com fromEntity (como antes das
+ * projeções), as mesmas entidades em transação readOnly, e a projeção por
+ * construtor em transação readOnly (como as listagens fazem hoje).
+ * <p>
+ * Precisa de um banco com dados (o resultado depende do volume); as migrations
+ * rodam no startup. Não roda no {@code mvn test}. Para rodar, com a alocação por
+ * operação do profiler de GC:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-Dtrincashop.bench.datasource.url=jdbc:postgresql://localhost:5432/trincashop_bench \
+ *     -cp %classpath com.trincashop.ListagemBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListagemBenchmark {
+
+    // Página 10, ordenada por id: OFFSET 1000 LIMIT 100 mais o COUNT
+    private static final Pageable PAGINA = PageRequest.of(10, 100, Sort.by("id"));
+
+    private ConfigurableApplicationContext contexto;
+    private ProductRepository productRepository;
+    private FridgeInventoryRepository fridgeInventoryRepository;
+    private OrderRepository orderRepository;
+    private TransactionTemplate escrita;
+    private TransactionTemplate leitura;
+
+    @Setup
+    public void preparar() {
+        String url = System.getProperty("trincashop.bench.datasource.url");
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("Informe -Dtrincashop.bench.datasource.url");
+        }
+        // Argumentos de linha de comando têm precedência sobre os YAMLs, e o perfil
+        // ativo é só o de teste: nada de application-dev.yml
+        contexto = new SpringApplicationBuilder(TrincaShopApplication.class).run(
+                "--spring.profiles.active=test",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + System.getProperty("trincashop.bench.datasource.username", "postgres"),
+                "--spring.datasource.password=" + System.getProperty("trincashop.bench.datasource.password", ""),
+                "--server.port=0",
+                "--logging.level.root=WARN");
+        productRepository = contexto.getBean(ProductRepository.class);
+        fridgeInventoryRepository = contexto.getBean(FridgeInventoryRepository.class);
+        orderRepository = contexto.getBean(OrderRepository.class);
+        PlatformTransactionManager transactionManager = contexto.getBean(PlatformTransactionManager.class);
+        escrita = new TransactionTemplate(transactionManager);
+        leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+    }
+
+    @TearDown
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public List<ProductResponse> produtosEntidades() {
+        return escrita.execute(status -> produtosPorEntidade());
+    }
+
+    @Benchmark
+    public List<ProductResponse> produtosEntidadesReadOnly() {
+        return leitura.execute(status -> produtosPorEntidade());
+    }
+
+    @Benchmark
+    public List<ProductResponse> produtosProjecao() {
+        return leitura.execute(status -> productRepository.listarTodos(PAGINA).getContent());
+    }
+
+    @Benchmark
+    public List<OrderResponse> pedidosEntidades() {
+        return escrita.execute(status -> orderRepository.findAll(PAGINA).map(OrderResponse::fromEntity).getContent());
+    }
+
+    @Benchmark
+    public List<OrderResponse> pedidosEntidadesReadOnly() {
+        return leitura.execute(status -> orderRepository.findAll(PAGINA).map(OrderResponse::fromEntity).getContent());
+    }
+
+    @Benchmark
+    public List<OrderResponse> pedidosProjecao() {
+        return leitura.execute(status -> orderRepository.listarResumo(PAGINA).getContent());
+    }
+
+    // O estoque das geladeiras vem em uma segunda consulta, como na busca por nome
+    private List<ProductResponse> produtosPorEntidade() {
+        Page<Product> pagina = productRepository.findAll(PAGINA);
+        Map<Long, Integer> geladeiras = fridgeInventoryRepository
+                .somarPorProdutos(pagina.map(Product::getId).getContent()).stream()
+                .collect(Collectors.toMap(FridgeInventoryRepository.EstoquePorProduto::getProductId,
+                        soma -> soma.getStock().intValue()));
+        return pagina.map(product -> ProductResponse.fromEntity(product,
+                geladeiras.getOrDefault(product.getId(), 0))).getContent();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ListagemBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
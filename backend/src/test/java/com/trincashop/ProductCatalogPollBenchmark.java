@@ -0,0 +1,127 @@
+package com.trincashop;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trincashop.features.products.controller.ProductController;
+import com.trincashop.features.products.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Um poll do catálogo pelo quiosque ({@code GET /api/products}, página padrão de 20
+ * por nome) nas três respostas possíveis: {@code 304} com o If-None-Match do último
+ * poll, {@code 200} com gzip e {@code 200} sem compressão, os dois saindo do cache de
+ * respostas. Chama o controller direto: mede o trabalho do backend por poll, sem o
+ * Tomcat e a rede. O tamanho de cada corpo sai no log do setup. Para comparar, a
+ * mesma página montada sem nenhum cache: consulta no banco, JSON e gzip por poll.
+ * <p>
+ * Precisa de um banco com dados; as migrations rodam no startup. Não roda no
+ * {@code mvn test}. Para rodar, com a alocação por operação do profiler de GC:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-Dtrincashop.bench.datasource.url=jdbc:postgresql://localhost:5432/trincashop_bench \
+ *     -cp %classpath com.trincashop.ProductCatalogPollBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductCatalogPollBenchmark {
+
+    private static final Pageable PAGINA = PageRequest.of(0, 20, Sort.by("name"));
+
+    private ConfigurableApplicationContext contexto;
+    private ProductController productController;
+    private ProductRepository productRepository;
+    private ObjectMapper objectMapper;
+    private List<String> etagGzip;
+
+    @Setup
+    public void preparar() {
+        String url = System.getProperty("trincashop.bench.datasource.url");
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("Informe -Dtrincashop.bench.datasource.url");
+        }
+        // Argumentos de linha de comando têm precedência sobre os YAMLs, e o perfil
+        // ativo é só o de teste: nada de application-dev.yml
+        contexto = new SpringApplicationBuilder(TrincaShopApplication.class).run(
+                "--spring.profiles.active=test",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + System.getProperty("trincashop.bench.datasource.username", "postgres"),
+                "--spring.datasource.password=" + System.getProperty("trincashop.bench.datasource.password", ""),
+                "--server.port=0",
+                "--logging.level.root=WARN");
+        productController = contexto.getBean(ProductController.class);
+        productRepository = contexto.getBean(ProductRepository.class);
+        objectMapper = contexto.getBean(ObjectMapper.class);
+
+        ResponseEntity<byte[]> gzip = productController.listarProdutosAtivos(PAGINA, null, "gzip");
+        ResponseEntity<byte[]> identidade = productController.listarProdutosAtivos(PAGINA, null, null);
+        etagGzip = List.of(gzip.getHeaders().getETag());
+        System.out.printf("%nCorpo: gzip %d bytes, sem compressão %d bytes, ETag %s%n",
+                gzip.getBody().length, identidade.getBody().length, etagGzip.get(0));
+    }
+
+    @TearDown
+    public void encerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> naoModificado() {
+        return productController.listarProdutosAtivos(PAGINA, etagGzip, "gzip");
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> completoGzip() {
+        return productController.listarProdutosAtivos(PAGINA, null, "gzip");
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> completoSemCompressao() {
+        return productController.listarProdutosAtivos(PAGINA, null, null);
+    }
+
+    @Benchmark
+    public byte[] semCache() throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(productRepository.listarAtivos(PAGINA));
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(json);
+        }
+        return saida.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductCatalogPollBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -1,10 +1,8 @@
 package com.trincashop;
 
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
-class TrincaShopApplicationTests {
+class TrincaShopApplicationTests extends AbstractIntegrationTest {
 
     @Test
     void contextLoads() {
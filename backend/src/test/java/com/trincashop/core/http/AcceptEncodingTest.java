@@ -0,0 +1,38 @@
+package com.trincashop.core.http;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AcceptEncodingTest {
+
+    @Test
+    void aceitaGzipListado() {
+        assertThat(AcceptEncoding.aceitaGzip("gzip")).isTrue();
+        assertThat(AcceptEncoding.aceitaGzip("deflate, gzip;q=0.5, br")).isTrue();
+        assertThat(AcceptEncoding.aceitaGzip("GZIP")).isTrue();
+        assertThat(AcceptEncoding.aceitaGzip("x-gzip")).isTrue();
+    }
+
+    @Test
+    void qZeroRecusaGzip() {
+        assertThat(AcceptEncoding.aceitaGzip("gzip;q=0")).isFalse();
+        assertThat(AcceptEncoding.aceitaGzip("br, gzip ; q=0.000")).isFalse();
+        assertThat(AcceptEncoding.aceitaGzip("*, gzip;q=0")).isFalse();
+    }
+
+    @Test
+    void curingaValeQuandoGzipNaoAparece() {
+        assertThat(AcceptEncoding.aceitaGzip("*")).isTrue();
+        assertThat(AcceptEncoding.aceitaGzip("br, *;q=0")).isFalse();
+    }
+
+    @Test
+    void semHeaderOuValorInvalidoNaoAceita() {
+        assertThat(AcceptEncoding.aceitaGzip(null)).isFalse();
+        assertThat(AcceptEncoding.aceitaGzip("")).isFalse();
+        assertThat(AcceptEncoding.aceitaGzip("identity")).isFalse();
+        assertThat(AcceptEncoding.aceitaGzip("gzip;q=abc")).isFalse();
+        assertThat(AcceptEncoding.aceitaGzip("gzip;q=2")).isFalse();
+    }
+}
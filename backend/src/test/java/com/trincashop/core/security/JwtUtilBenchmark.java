@@ -0,0 +1,91 @@
+package com.trincashop.core.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verificação de um access token por requisição (JwtAuthFilter), com chave e
+ * parser prontos, com o cache de tokens verificados desligado (maxTokensVerificados
+ * 0) e ligado: o mesmo token em uma e em oito threads, e 1000 tokens diferentes em
+ * rodízio (o cache cabe todos).
+ * <p>
+ * Não roda no {@code mvn test}. Para rodar:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath com.trincashop.core.security.JwtUtilBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final int TOKENS_EM_RODIZIO = 1000;
+
+    @Param({"0", "10000"})
+    public int maxTokensVerificados;
+
+    private JwtUtil jwtUtil;
+    private String token;
+    private String[] tokens;
+    private final AtomicInteger proximo = new AtomicInteger();
+
+    @Setup
+    public void preparar() {
+        jwtUtil = JwtUtilTest.novoJwtUtil("segredo-de-benchmark-com-pelo-menos-32-bytes");
+        ReflectionTestUtils.setField(jwtUtil, "maxTokensVerificados", maxTokensVerificados);
+        token = jwtUtil.generateToken(new User("admin@trinca.com", "",
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+        tokens = new String[TOKENS_EM_RODIZIO];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = jwtUtil.generateToken(new User("usuario" + i + "@trinca.com", "",
+                    List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        }
+    }
+
+    @Benchmark
+    public JwtUtil.TokenVerificado verificar() {
+        return jwtUtil.verificar(token);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public JwtUtil.TokenVerificado verificarOitoThreads() {
+        return jwtUtil.verificar(token);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public JwtUtil.TokenVerificado verificarTokensEmRodizio() {
+        return jwtUtil.verificar(tokens[Math.floorMod(proximo.getAndIncrement(), TOKENS_EM_RODIZIO)]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtUtilBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
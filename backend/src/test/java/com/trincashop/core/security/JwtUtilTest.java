@@ -0,0 +1,138 @@
+package com.trincashop.core.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private static final String SEGREDO = "segredo-de-teste-com-pelo-menos-32-bytes!!";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = novoJwtUtil(SEGREDO);
+    }
+
+    static JwtUtil novoJwtUtil(String segredo) {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secretKey", segredo);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationMs", 60_000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpirationMs", 120_000L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    @Test
+    void verificaTokenGerado() {
+        String token = jwtUtil.generateToken(new User("admin@trinca.com", "",
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+
+        JwtUtil.TokenVerificado verificado = jwtUtil.verificar(token);
+
+        assertThat(verificado.email()).isEqualTo("admin@trinca.com");
+        assertThat(verificado.roles()).containsExactly("ROLE_ADMIN");
+    }
+
+    @Test
+    void semRolesDevolveListaVazia() {
+        assertThat(jwtUtil.verificar(assinar(Map.of())).roles()).isEmpty();
+    }
+
+    @Test
+    void rolesQueNaoSaoListaDeTextosSaoTokenMalformado() {
+        assertThatThrownBy(() -> jwtUtil.verificar(assinar(Map.of("roles", "ROLE_ADMIN"))))
+                .isInstanceOf(MalformedJwtException.class);
+        assertThatThrownBy(() -> jwtUtil.verificar(assinar(Map.of("roles", List.of(1, 2)))))
+                .isInstanceOf(MalformedJwtException.class);
+        assertThatThrownBy(() -> jwtUtil.verificar(assinar(Map.of("roles", List.of("ROLE_USER", "")))))
+                .isInstanceOf(MalformedJwtException.class);
+        assertThatThrownBy(() -> jwtUtil.verificar(assinar(Map.of("roles", List.of(Map.of("a", "b"))))))
+                .isInstanceOf(MalformedJwtException.class);
+    }
+
+    @Test
+    void rejeitaAssinaturaDeOutraChave() {
+        String token = novoJwtUtil("outro-segredo-de-teste-com-32-bytes-ou-mais").generateToken(
+                new User("x@trinca.com", "", List.of()));
+
+        assertThatThrownBy(() -> jwtUtil.verificar(token)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void rejeitaTokenExpirado() {
+        String token = Jwts.builder()
+                .subject("x@trinca.com")
+                .expiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(Keys.hmacShaKeyFor(SEGREDO.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertThatThrownBy(() -> jwtUtil.verificar(token)).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    @Test
+    void cacheRespeitaAExpiracaoDoToken() throws InterruptedException {
+        // exp tem precisão de segundos: o token vence no próximo segundo cheio
+        long expiraEm = (System.currentTimeMillis() / 1000 + 2) * 1000;
+        String token = Jwts.builder()
+                .subject("x@trinca.com")
+                .expiration(new Date(expiraEm))
+                .signWith(Keys.hmacShaKeyFor(SEGREDO.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertThat(jwtUtil.verificar(token).email()).isEqualTo("x@trinca.com");
+        assertThat(jwtUtil.verificar(token).email()).isEqualTo("x@trinca.com");
+        assertThat(jwtUtil.tokensEmCache()).isEqualTo(1);
+
+        Thread.sleep(expiraEm - System.currentTimeMillis() + 50);
+        assertThatThrownBy(() -> jwtUtil.verificar(token)).isInstanceOf(ExpiredJwtException.class);
+        assertThat(jwtUtil.tokensEmCache()).isZero();
+    }
+
+    @Test
+    void cacheTemLimiteDeEntradas() {
+        ReflectionTestUtils.setField(jwtUtil, "maxTokensVerificados", 1);
+
+        jwtUtil.verificar(assinar(Map.of("roles", List.of("ROLE_USER"))));
+        String segundo = assinar(Map.of("roles", List.of("ROLE_ADMIN")));
+
+        assertThat(jwtUtil.verificar(segundo).roles()).containsExactly("ROLE_ADMIN");
+        assertThat(jwtUtil.tokensEmCache()).isEqualTo(1);
+    }
+
+    @Test
+    void tokenRevogadoSaiDoCache() {
+        String token = assinar(Map.of());
+        jwtUtil.verificar(token);
+
+        jwtUtil.blacklistToken(token);
+
+        assertThat(jwtUtil.tokensEmCache()).isZero();
+        assertThat(jwtUtil.isBlacklisted(token)).isTrue();
+    }
+
+    private static String assinar(Map<String, ?> claims) {
+        return Jwts.builder()
+                .subject("x@trinca.com")
+                .claims(claims)
+                .expiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SEGREDO.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
@@ -0,0 +1,71 @@
+package com.trincashop.core.sse;
+
+import com.trincashop.core.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SseBroadcasterTest {
+
+    private static final int MAX_ASSINANTES = 5;
+
+    private final SseBroadcaster broadcaster = new SseBroadcaster("teste", 16, 60_000, MAX_ASSINANTES);
+
+    @AfterEach
+    void encerrar() {
+        broadcaster.encerrar();
+    }
+
+    @Test
+    void assinaturasSimultaneasRespeitamOLimite() throws Exception {
+        int tentativas = 40;
+        ExecutorService executor = Executors.newFixedThreadPool(tentativas);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<Boolean>> resultados = new ArrayList<>();
+        try {
+            for (int i = 0; i < tentativas; i++) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    try {
+                        broadcaster.assinar();
+                        return true;
+                    } catch (ServiceUnavailableException e) {
+                        return false;
+                    }
+                }));
+            }
+            largada.countDown();
+            int aceitas = 0;
+            for (Future<Boolean> resultado : resultados) {
+                if (resultado.get()) {
+                    aceitas++;
+                }
+            }
+            assertThat(aceitas).isEqualTo(MAX_ASSINANTES);
+            assertThat(broadcaster.quantidadeAssinantes()).isEqualTo(MAX_ASSINANTES);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void depoisDoEncerrarRecusaAssinaturasSemFalharQuemPublica() {
+        broadcaster.assinar();
+        broadcaster.encerrar();
+
+        assertThatCode(() -> broadcaster.publicar("evento", "dados")).doesNotThrowAnyException();
+        assertThatCode(broadcaster::heartbeat).doesNotThrowAnyException();
+        assertThat(broadcaster.quantidadeAssinantes()).isZero();
+        assertThatThrownBy(broadcaster::assinar).isInstanceOf(ServiceUnavailableException.class);
+    }
+}
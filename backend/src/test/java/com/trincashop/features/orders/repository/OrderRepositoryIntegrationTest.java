@@ -0,0 +1,154 @@
+package com.trincashop.features.orders.repository;
+
+import com.trincashop.AbstractIntegrationTest;
+import com.trincashop.features.orders.dto.OrderExportRow;
+import com.trincashop.features.orders.dto.OrderResponse;
+import com.trincashop.features.orders.model.OrderStatus;
+import com.trincashop.features.orders.service.OrderService;
+import com.trincashop.features.products.dto.FridgeRequest;
+import com.trincashop.features.products.dto.ProductRequest;
+import com.trincashop.features.products.model.Product;
+import com.trincashop.features.products.service.FridgeInventoryService;
+import com.trincashop.features.products.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+// Projeções de OrderRepository no PostgreSQL (tabela particionada por mês): campos
+// mapeados, filtros por status, ordem do cursor e a exportação em Stream
+class OrderRepositoryIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private FridgeInventoryService fridgeInventoryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void resumoTrazTodosOsCampos() {
+        Product product = novoProduto();
+        FridgeRequest geladeira = new FridgeRequest();
+        geladeira.setName("Geladeira resumo " + System.nanoTime());
+        Long fridgeId = fridgeInventoryService.criarGeladeira(geladeira).getId();
+        fridgeInventoryService.definirEstoque(fridgeId, product.getId(), 1);
+        Long id = orderService.criarPedido(product.getId(), fridgeId).getId();
+
+        OrderResponse resumo = orderRepository.buscarResumo(id).orElseThrow();
+
+        assertThat(resumo.getId()).isEqualTo(id);
+        assertThat(resumo.getProductId()).isEqualTo(product.getId());
+        assertThat(resumo.getProductName()).isEqualTo(product.getName());
+        assertThat(resumo.getProductPrice()).isEqualByComparingTo("8.90");
+        assertThat(resumo.getStatus()).isEqualTo(OrderStatus.PENDING);
+        assertThat(resumo.getFridgeId()).isEqualTo(fridgeId);
+        assertThat(resumo.getCreatedAt()).isNotNull();
+        assertThat(resumo.getUpdatedAt()).isNotNull();
+        assertThat(orderRepository.buscarResumo(Long.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void listagensPorStatusEPaginas() {
+        Long productId = novoProduto().getId();
+        Long pago = orderService.criarPedido(productId, null).getId();
+        Long pendente = orderService.criarPedido(productId, null).getId();
+        orderService.atualizarStatus(pago, OrderStatus.PAID);
+
+        PageRequest maisNovos = PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        Page<OrderResponse> pagos = orderRepository.listarResumoPorStatus(OrderStatus.PAID, maisNovos);
+        assertThat(pagos.getContent()).extracting(OrderResponse::getId).containsExactly(pago);
+        assertThat(pagos.getContent()).extracting(OrderResponse::getStatus).containsExactly(OrderStatus.PAID);
+
+        Page<OrderResponse> todos = orderRepository.listarResumo(maisNovos);
+        assertThat(todos.getContent()).extracting(OrderResponse::getId).containsExactly(pendente);
+        assertThat(todos.getTotalElements()).isEqualTo(orderRepository.count());
+
+        assertThat(orderRepository.buscarStatus(List.of(pago, pendente, Long.MAX_VALUE)))
+                .extracting(OrderRepository.StatusPorId::getId, OrderRepository.StatusPorId::getStatus)
+                .containsExactlyInAnyOrder(
+                        tuple(pago, OrderStatus.PAID),
+                        tuple(pendente, OrderStatus.PENDING));
+    }
+
+    @Test
+    void cursorContinuaDepoisDoUltimoItem() {
+        Long productId = novoProduto().getId();
+        OrderResponse primeiro = OrderResponse.fromEntity(orderService.criarPedido(productId, null));
+        Long segundo = orderService.criarPedido(productId, null).getId();
+        Long terceiro = orderService.criarPedido(productId, null).getId();
+        // O cursor usa o created_at gravado (microssegundos), não o do objeto em memória
+        OrderResponse posicao = orderRepository.buscarResumo(primeiro.getId()).orElseThrow();
+
+        List<OrderResponse> seguintes = orderRepository.buscarPorCursor(posicao.getCreatedAt(), posicao.getId(),
+                PageRequest.of(0, 10));
+        assertThat(seguintes).extracting(OrderResponse::getId).containsExactly(segundo, terceiro);
+
+        List<OrderResponse> pendentes = orderRepository.buscarPorStatusECursor(OrderStatus.PENDING,
+                posicao.getCreatedAt(), posicao.getId(), PageRequest.of(0, 1));
+        assertThat(pendentes).extracting(OrderResponse::getId).containsExactly(segundo);
+    }
+
+    @Test
+    void exportacaoLeOPeriodoEmStream() {
+        Long productId = novoProduto().getId();
+        FridgeRequest geladeira = new FridgeRequest();
+        geladeira.setName("Geladeira exportação " + System.nanoTime());
+        Long fridgeId = fridgeInventoryService.criarGeladeira(geladeira).getId();
+        fridgeInventoryService.definirEstoque(fridgeId, productId, 1);
+        Long cancelado = orderService.criarPedido(productId, null).getId();
+        Long pendente = orderService.criarPedido(productId, fridgeId).getId();
+        orderService.atualizarStatus(cancelado, OrderStatus.CANCELLED);
+        OrderResponse inicio = orderRepository.buscarResumo(cancelado).orElseThrow();
+        OrderResponse fim = orderRepository.buscarResumo(pendente).orElseThrow();
+
+        // O Stream (cursor do PostgreSQL) só vale dentro de uma transação
+        TransactionTemplate leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+        List<OrderExportRow> periodo = leitura.execute(status -> {
+            try (Stream<OrderExportRow> linhas = orderRepository.exportar(inicio.getCreatedAt(),
+                    fim.getCreatedAt().plusNanos(1_000))) {
+                return linhas.toList();
+            }
+        });
+        List<OrderExportRow> cancelados = leitura.execute(status -> {
+            try (Stream<OrderExportRow> linhas = orderRepository.exportarPorStatus(OrderStatus.CANCELLED,
+                    inicio.getCreatedAt(), fim.getCreatedAt().plusNanos(1_000))) {
+                return linhas.toList();
+            }
+        });
+
+        assertThat(periodo).extracting(OrderExportRow::id).containsExactly(cancelado, pendente);
+        assertThat(periodo.get(0).status()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(periodo.get(0).productId()).isEqualTo(productId);
+        assertThat(periodo.get(0).productPrice()).isEqualByComparingTo("8.90");
+        assertThat(periodo).extracting(OrderExportRow::fridgeId).containsExactly(null, fridgeId);
+        assertThat(cancelados).extracting(OrderExportRow::id).containsExactly(cancelado);
+    }
+
+    private Product novoProduto() {
+        ProductRequest request = new ProductRequest();
+        request.setName("Produto resumo " + System.nanoTime());
+        request.setPrice(new BigDecimal("8.90"));
+        request.setStock(10);
+        return productService.criarDeRequest(request);
+    }
+}
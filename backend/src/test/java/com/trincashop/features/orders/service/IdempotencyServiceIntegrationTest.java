@@ -0,0 +1,118 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.AbstractIntegrationTest;
+import com.trincashop.core.exception.BadRequestException;
+import com.trincashop.features.orders.repository.IdempotencyKeyRepository;
+import com.trincashop.features.products.dto.ProductRequest;
+import com.trincashop.features.products.repository.ProductRepository;
+import com.trincashop.features.products.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyServiceIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void repeticaoDevolveOMesmoPedidoSemNovaReserva() {
+        Long productId = novoProduto(5);
+        String chave = UUID.randomUUID().toString();
+
+        PedidoIdempotente primeiro = idempotencyService.criarPedido(chave, productId, null);
+        PedidoIdempotente repetido = idempotencyService.criarPedido(chave, productId, null);
+
+        assertThat(primeiro.repetido()).isFalse();
+        assertThat(repetido.repetido()).isTrue();
+        assertThat(repetido.resposta().getId()).isEqualTo(primeiro.resposta().getId());
+        assertThat(idempotencyKeyRepository.findById(chave)).isPresent();
+        assertThat(estoque(productId)).isEqualTo(4);
+    }
+
+    @Test
+    void mesmaChaveComOutraRequisicaoERecusada() {
+        Long productId = novoProduto(5);
+        Long outroProduto = novoProduto(5);
+        String chave = UUID.randomUUID().toString();
+        idempotencyService.criarPedido(chave, productId, null);
+
+        assertThatThrownBy(() -> idempotencyService.criarPedido(chave, outroProduto, null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Idempotency-Key já utilizada com outra requisição");
+        assertThat(estoque(outroProduto)).isEqualTo(5);
+    }
+
+    @Test
+    void repeticoesConcorrentesCriamUmSoPedido() throws Exception {
+        Long productId = novoProduto(10);
+        String chave = UUID.randomUUID().toString();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<PedidoIdempotente>> resultados = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    return idempotencyService.criarPedido(chave, productId, null);
+                }));
+            }
+            largada.countDown();
+
+            List<PedidoIdempotente> pedidos = new ArrayList<>();
+            for (Future<PedidoIdempotente> resultado : resultados) {
+                pedidos.add(resultado.get(30, TimeUnit.SECONDS));
+            }
+            assertThat(pedidos).extracting(pedido -> pedido.resposta().getId()).containsOnly(
+                    pedidos.get(0).resposta().getId());
+            assertThat(pedidos).filteredOn(pedido -> !pedido.repetido()).hasSize(1);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(estoque(productId)).isEqualTo(9);
+    }
+
+    @Test
+    void semEstoqueAChaveNaoEGravada() {
+        Long productId = novoProduto(0);
+        String chave = UUID.randomUUID().toString();
+
+        assertThatThrownBy(() -> idempotencyService.criarPedido(chave, productId, null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Produto sem estoque");
+        assertThat(idempotencyKeyRepository.findById(chave)).isEmpty();
+    }
+
+    private Long novoProduto(int estoque) {
+        ProductRequest request = new ProductRequest();
+        request.setName("Produto idempotência " + System.nanoTime());
+        request.setPrice(new BigDecimal("3.00"));
+        request.setStock(estoque);
+        return productService.criarDeRequest(request).getId();
+    }
+
+    private int estoque(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getStock();
+    }
+}
@@ -0,0 +1,89 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.AbstractIntegrationTest;
+import com.trincashop.core.exception.TooManyRequestsException;
+import com.trincashop.features.orders.dto.OrderResponse;
+import com.trincashop.features.orders.model.OrderStatus;
+import com.trincashop.features.products.dto.ProductRequest;
+import com.trincashop.features.products.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Long-poll público do quiosque: a espera é concluída pelo evento depois do commit,
+// e os limites por pedido e por IP respondem 429. Fora de um container web o
+// DeferredResult não roda onCompletion, então as vagas ocupadas aqui não voltam;
+// cada teste usa os próprios pedidos e IPs.
+class OrderAwaitServiceIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int MAX_POR_IP = 20;
+    private static final int MAX_POR_PEDIDO = 5;
+
+    @Autowired
+    private OrderAwaitService orderAwaitService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void esperaConcluiQuandoOPedidoChegaAoStatus() {
+        Long orderId = novoPedido();
+
+        DeferredResult<OrderResponse> espera = orderAwaitService.aguardar(orderId, OrderStatus.PAID, "30s", "10.1.0.1");
+        assertThat(espera.hasResult()).isFalse();
+
+        orderService.atualizarStatus(orderId, OrderStatus.PAID);
+
+        assertThat(espera.hasResult()).isTrue();
+        assertThat(((OrderResponse) espera.getResult()).getStatus()).isEqualTo(OrderStatus.PAID);
+    }
+
+    @Test
+    void limitePorPedido() {
+        Long orderId = novoPedido();
+        for (int i = 0; i < MAX_POR_PEDIDO; i++) {
+            orderAwaitService.aguardar(orderId, OrderStatus.PAID, "30s", "10.2.0." + i);
+        }
+
+        assertThatThrownBy(() -> orderAwaitService.aguardar(orderId, OrderStatus.PAID, "30s", "10.2.1.0"))
+                .isInstanceOf(TooManyRequestsException.class);
+        // A vaga do IP recusado foi devolvida: ele ainda espera por outro pedido
+        assertThat(orderAwaitService.aguardar(novoPedido(), OrderStatus.PAID, "30s", "10.2.1.0").hasResult())
+                .isFalse();
+    }
+
+    @Test
+    void limitePorIp() {
+        List<Long> pedidos = new ArrayList<>();
+        for (int i = 0; i <= MAX_POR_IP; i++) {
+            pedidos.add(novoPedido());
+        }
+        for (int i = 0; i < MAX_POR_IP; i++) {
+            orderAwaitService.aguardar(pedidos.get(i), OrderStatus.PAID, "30s", "10.3.0.1");
+        }
+
+        assertThatThrownBy(() -> orderAwaitService.aguardar(pedidos.get(MAX_POR_IP), OrderStatus.PAID, "30s", "10.3.0.1"))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(orderAwaitService.aguardar(pedidos.get(MAX_POR_IP), OrderStatus.PAID, "30s", "10.3.0.2").hasResult())
+                .isFalse();
+    }
+
+    private Long novoPedido() {
+        ProductRequest request = new ProductRequest();
+        request.setName("Produto await " + System.nanoTime());
+        request.setPrice(new BigDecimal("3.00"));
+        request.setStock(1);
+        Long productId = productService.criarDeRequest(request).getId();
+        return orderService.criarPedido(productId, null).getId();
+    }
+}
@@ -0,0 +1,50 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.AbstractIntegrationTest;
+import com.trincashop.core.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Vagas da exportação (max-concurrent = 2): tomadas no preparar, devolvidas uma
+// única vez pelo corpo ou, se ele não começou, pelo fim do processamento assíncrono
+class OrderExportServiceIntegrationTest extends AbstractIntegrationTest {
+
+    private static final int MAX_SIMULTANEAS = 2;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Test
+    void vagaTomadaNoPrepararEDevolvidaUmaVez() throws IOException {
+        LocalDateTime ate = LocalDateTime.now();
+        LocalDateTime de = ate.minusMinutes(1);
+
+        OrderExportService.Exportacao abandonada = orderExportService.preparar(null, de, ate,
+                OrderExportService.Formato.CSV, false);
+        OrderExportService.Exportacao concluida = orderExportService.preparar(null, de, ate,
+                OrderExportService.Formato.CSV, false);
+        assertThat(orderExportService.vagasLivres()).isZero();
+        assertThatThrownBy(() -> orderExportService.preparar(null, de, ate, OrderExportService.Formato.CSV, false))
+                .isInstanceOf(TooManyRequestsException.class);
+
+        // Timeout antes de o corpo rodar: a vaga volta e o corpo não exporta mais
+        abandonada.afterCompletion(null, null);
+        assertThat(orderExportService.vagasLivres()).isEqualTo(1);
+        assertThatThrownBy(() -> abandonada.writeTo(new ByteArrayOutputStream())).isInstanceOf(IOException.class);
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        concluida.writeTo(saida);
+        concluida.afterCompletion(null, null);
+        assertThat(saida.toString(StandardCharsets.UTF_8))
+                .startsWith("id,product_id,product_name,product_price,fridge_id,status,created_at,updated_at\n");
+        assertThat(orderExportService.vagasLivres()).isEqualTo(MAX_SIMULTANEAS);
+    }
+}
@@ -0,0 +1,316 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.AbstractIntegrationTest;
+import com.trincashop.core.outbox.OutboxMessage;
+import com.trincashop.core.outbox.OutboxSink;
+import com.trincashop.features.orders.model.OutboxEntry;
+import com.trincashop.features.orders.repository.OutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Reserva, reagendamento e marcação do outbox no PostgreSQL, e o despachante de
+// ponta a ponta com um destino de teste. No perfil de teste nenhum destino está
+// configurado, então só estes testes gravam em order_outbox e o despachante do
+// contexto fica parado.
+class OrderOutboxDispatcherIntegrationTest extends AbstractIntegrationTest {
+
+    private static final String DESTINO = "teste";
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        outboxRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void reservasConcorrentesPulamAsLinhasTravadas() throws Exception {
+        LocalDateTime agora = agora();
+        LocalDateTime reservaAte = agora.plusMinutes(1);
+        List<Long> gravadas = gravar(10, agora);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch primeiraReservou = new CountDownLatch(1);
+        CountDownLatch liberarPrimeira = new CountDownLatch(1);
+        try {
+            // A primeira transação segura as travas das linhas que reservou
+            Future<List<Long>> primeira = executor.submit(() -> transactionTemplate.execute(status -> {
+                List<Long> lote = ids(outboxRepository.reservar(agora, reservaAte, 6));
+                primeiraReservou.countDown();
+                aguardar(liberarPrimeira);
+                return lote;
+            }));
+            assertThat(primeiraReservou.await(10, TimeUnit.SECONDS)).isTrue();
+
+            // Sem SKIP LOCKED esta reserva esperaria o commit da primeira
+            Future<List<Long>> segunda = executor.submit(() -> transactionTemplate.execute(status ->
+                    ids(outboxRepository.reservar(agora, reservaAte, 6))));
+            List<Long> loteSegunda = segunda.get(10, TimeUnit.SECONDS);
+            liberarPrimeira.countDown();
+            List<Long> lotePrimeira = primeira.get(10, TimeUnit.SECONDS);
+
+            assertThat(lotePrimeira).hasSize(6);
+            assertThat(loteSegunda).hasSize(4).doesNotContainAnyElementsOf(lotePrimeira);
+            Set<Long> todas = new HashSet<>(lotePrimeira);
+            todas.addAll(loteSegunda);
+            assertThat(todas).containsExactlyInAnyOrderElementsOf(gravadas);
+        } finally {
+            liberarPrimeira.countDown();
+            executor.shutdownNow();
+        }
+
+        assertThat(outboxRepository.findAllById(gravadas)).allSatisfy(linha -> {
+            assertThat(linha.getAttempts()).isEqualTo(1);
+            assertThat(linha.getNextAttemptAt()).isEqualTo(reservaAte);
+        });
+        // Reservadas não vencem de novo antes do fim da reserva
+        assertThat(reservar(agora.plusSeconds(30), 100)).isEmpty();
+    }
+
+    @Test
+    void falhaReagendaComEsperaExponencialAteDesistir() {
+        LocalDateTime agora = agora();
+        Long id = gravar(1, agora).get(0);
+
+        // 1ª tentativa: espera entre 50% e 100% de 1s
+        LocalDateTime reserva1 = agora.plusMinutes(1);
+        assertThat(reservar(agora, reserva1, 10)).containsExactly(id);
+        assertThat(marcarFalha(id, agora, reserva1)).isEqualTo(1);
+        OutboxEntry linha = buscar(id);
+        assertThat(linha.getAttempts()).isEqualTo(1);
+        assertThat(linha.getFailedAt()).isNull();
+        assertThat(linha.getLastError()).isEqualTo("destino fora do ar");
+        assertThat(Duration.between(agora, linha.getNextAttemptAt()))
+                .isBetween(Duration.ofMillis(500), Duration.ofMillis(1000));
+        assertThat(reservar(agora, 10)).isEmpty();
+
+        // 2ª tentativa: a espera dobra
+        LocalDateTime agora2 = agora.plusSeconds(2);
+        LocalDateTime reserva2 = agora2.plusMinutes(1);
+        assertThat(reservar(agora2, reserva2, 10)).containsExactly(id);
+        // Resultado de uma reserva anterior (vencida) não mexe na linha
+        assertThat(marcarFalha(id, agora2, reserva1)).isZero();
+        assertThat(marcarFalha(id, agora2, reserva2)).isEqualTo(1);
+        linha = buscar(id);
+        assertThat(linha.getAttempts()).isEqualTo(2);
+        assertThat(Duration.between(agora2, linha.getNextAttemptAt()))
+                .isBetween(Duration.ofMillis(1000), Duration.ofMillis(2000));
+
+        // 3ª tentativa, a última: a linha para de ser reenviada
+        LocalDateTime agora3 = agora.plusSeconds(10);
+        LocalDateTime reserva3 = agora3.plusMinutes(1);
+        assertThat(reservar(agora3, reserva3, 10)).containsExactly(id);
+        assertThat(marcarFalha(id, agora3, reserva3)).isEqualTo(1);
+        linha = buscar(id);
+        assertThat(linha.getAttempts()).isEqualTo(3);
+        assertThat(linha.getFailedAt()).isEqualTo(agora3);
+        assertThat(reservar(agora.plusDays(1), 10)).isEmpty();
+
+        // Reenfileirar recomeça a contagem
+        int reenfileiradas = transactionTemplate.execute(status -> outboxRepository.reenfileirarFalhas(agora3));
+        assertThat(reenfileiradas).isEqualTo(1);
+        linha = buscar(id);
+        assertThat(linha.getAttempts()).isZero();
+        assertThat(linha.getFailedAt()).isNull();
+        assertThat(reservar(agora3, 10)).containsExactly(id);
+    }
+
+    @Test
+    void entregueEMarcadaUmaVezENaoVoltaParaAFila() {
+        LocalDateTime agora = agora();
+        Long id = gravar(1, agora).get(0);
+        LocalDateTime reserva = agora.plusMinutes(1);
+        assertThat(reservar(agora, reserva, 10)).containsExactly(id);
+
+        LocalDateTime entregueEm = agora.plusSeconds(1);
+        assertThat(marcarEntregues(id, entregueEm)).isEqualTo(1);
+        assertThat(marcarEntregues(id, entregueEm.plusSeconds(5))).isZero();
+        // Uma falha ou devolução atrasada da mesma reserva não desfaz a entrega
+        assertThat(marcarFalha(id, entregueEm, reserva)).isZero();
+        int liberadas = transactionTemplate.execute(status -> outboxRepository.liberar(List.of(id), reserva, agora));
+        assertThat(liberadas).isZero();
+
+        OutboxEntry linha = buscar(id);
+        assertThat(linha.getDispatchedAt()).isEqualTo(entregueEm);
+        assertThat(linha.getAttempts()).isEqualTo(1);
+        assertThat(linha.getFailedAt()).isNull();
+        assertThat(reservar(agora.plusDays(1), 10)).isEmpty();
+    }
+
+    @Test
+    void despachanteReenviaAsFalhasEEntregaCadaEventoUmaVez() {
+        List<Long> gravadas = gravar(5, agora());
+        DestinoDeTeste destino = new DestinoDeTeste(2);
+        OrderOutboxDispatcher despachante = despachante(destino, 5);
+
+        despachante.start();
+        try {
+            aguardarAte(() -> outboxRepository.findAllById(gravadas).stream()
+                    .allMatch(linha -> linha.getDispatchedAt() != null));
+        } finally {
+            despachante.stop();
+        }
+
+        List<OutboxEntry> linhas = outboxRepository.findAllById(gravadas);
+        assertThat(linhas).allSatisfy(linha -> {
+            assertThat(linha.getAttempts()).isEqualTo(3);
+            assertThat(linha.getLastError()).isNull();
+            assertThat(linha.getFailedAt()).isNull();
+        });
+        assertThat(destino.entregues).extracting(OutboxMessage::eventId)
+                .containsExactlyInAnyOrderElementsOf(linhas.stream().map(OutboxEntry::getEventId).toList());
+        assertThat(destino.entregues).extracting(OutboxMessage::tentativa).containsOnly(3);
+    }
+
+    @Test
+    void despachanteDesisteDepoisDoMaximoDeTentativas() {
+        Long id = gravar(1, agora()).get(0);
+        DestinoDeTeste destino = new DestinoDeTeste(Integer.MAX_VALUE);
+        OrderOutboxDispatcher despachante = despachante(destino, 3);
+
+        despachante.start();
+        try {
+            aguardarAte(() -> buscar(id).getFailedAt() != null);
+        } finally {
+            despachante.stop();
+        }
+
+        OutboxEntry linha = buscar(id);
+        assertThat(linha.getAttempts()).isEqualTo(3);
+        assertThat(linha.getDispatchedAt()).isNull();
+        assertThat(linha.getLastError()).isEqualTo("IllegalStateException: destino fora do ar");
+        assertThat(destino.chamadas.get(linha.getEventId())).hasValue(3);
+        assertThat(destino.entregues).isEmpty();
+    }
+
+    // Falha as primeiras "falhasPorEvento" chamadas de cada evento
+    private static final class DestinoDeTeste implements OutboxSink {
+
+        private final int falhasPorEvento;
+        private final Map<UUID, AtomicInteger> chamadas = new ConcurrentHashMap<>();
+        private final List<OutboxMessage> entregues = new CopyOnWriteArrayList<>();
+
+        DestinoDeTeste(int falhasPorEvento) {
+            this.falhasPorEvento = falhasPorEvento;
+        }
+
+        @Override
+        public String nome() {
+            return DESTINO;
+        }
+
+        @Override
+        public void entregar(OutboxMessage mensagem) {
+            int chamada = chamadas.computeIfAbsent(mensagem.eventId(), id -> new AtomicInteger()).incrementAndGet();
+            if (chamada <= falhasPorEvento) {
+                throw new IllegalStateException("destino fora do ar");
+            }
+            entregues.add(mensagem);
+        }
+    }
+
+    // Esperas curtas para o teste não depender do relógio de produção
+    private OrderOutboxDispatcher despachante(OutboxSink destino, int maxTentativas) {
+        StaticListableBeanFactory destinos = new StaticListableBeanFactory(Map.of(DESTINO, destino));
+        return new OrderOutboxDispatcher(outboxRepository, transactionManager,
+                destinos.getBeanProvider(OutboxSink.class), new SimpleMeterRegistry(),
+                true, 2, 10, 20, 60_000, maxTentativas, 50, 200, 5_000);
+    }
+
+    private List<Long> gravar(int quantidade, LocalDateTime criadoEm) {
+        List<OutboxEntry> linhas = new ArrayList<>();
+        for (int i = 0; i < quantidade; i++) {
+            linhas.add(new OutboxEntry(UUID.randomUUID(), "order-created", (long) i + 1, DESTINO, "{}", criadoEm));
+        }
+        return ids(outboxRepository.saveAll(linhas));
+    }
+
+    private List<Long> reservar(LocalDateTime agora, int tamanho) {
+        return reservar(agora, agora.plusMinutes(1), tamanho);
+    }
+
+    private List<Long> reservar(LocalDateTime agora, LocalDateTime reservaAte, int tamanho) {
+        return transactionTemplate.execute(status -> ids(outboxRepository.reservar(agora, reservaAte, tamanho)));
+    }
+
+    private int marcarFalha(Long id, LocalDateTime agora, LocalDateTime reservaAte) {
+        return transactionTemplate.execute(status -> outboxRepository.marcarFalha(List.of(id),
+                "destino fora do ar", agora, reservaAte, 1000, 4000, 3));
+    }
+
+    private int marcarEntregues(Long id, LocalDateTime agora) {
+        return transactionTemplate.execute(status -> outboxRepository.marcarEntregues(List.of(id), agora));
+    }
+
+    private OutboxEntry buscar(Long id) {
+        return outboxRepository.findById(id).orElseThrow();
+    }
+
+    private static List<Long> ids(List<OutboxEntry> linhas) {
+        return linhas.stream().map(OutboxEntry::getId).toList();
+    }
+
+    // O PostgreSQL guarda microssegundos, e a reserva é comparada por igualdade
+    private static LocalDateTime agora() {
+        return LocalDateTime.now().minusSeconds(1).truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Tempo esgotado esperando o teste");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void aguardarAte(BooleanSupplier condicao) {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (!condicao.getAsBoolean()) {
+            if (System.nanoTime() > limite) {
+                throw new AssertionError("Condição não atingida em 15 s");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.AbstractIntegrationTest;
+import com.trincashop.core.exception.BadRequestException;
+import com.trincashop.features.orders.dto.CartItemRequest;
+import com.trincashop.features.orders.model.Order;
+import com.trincashop.features.orders.model.OrderStatus;
+import com.trincashop.features.orders.repository.OrderRepository;
+import com.trincashop.features.products.dto.FridgeRequest;
+import com.trincashop.features.products.dto.ProductRequest;
+import com.trincashop.features.products.model.Product;
+import com.trincashop.features.products.repository.FridgeInventoryRepository;
+import com.trincashop.features.products.repository.ProductRepository;
+import com.trincashop.features.products.service.FridgeInventoryService;
+import com.trincashop.features.products.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Reserva de estoque no banco: o UPDATE condicional não deixa vender além do
+// estoque, e o cancelamento devolve as unidades ao lugar de onde saíram
+class OrderServiceIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private FridgeInventoryService fridgeInventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private FridgeInventoryRepository inventoryRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void pedidosConcorrentesNaoVendemAlemDoEstoque() throws Exception {
+        Long productId = novoProduto(5).getId();
+        int pedidos = 40;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> resultados = new ArrayList<>();
+            for (int i = 0; i < pedidos; i++) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    try {
+                        orderService.criarPedido(productId, null);
+                        return true;
+                    } catch (BadRequestException e) {
+                        assertThat(e.getMessage()).isEqualTo("Produto sem estoque");
+                        return false;
+                    }
+                }));
+            }
+            largada.countDown();
+
+            int criados = 0;
+            for (Future<Boolean> resultado : resultados) {
+                if (resultado.get(30, TimeUnit.SECONDS)) {
+                    criados++;
+                }
+            }
+            assertThat(criados).isEqualTo(5);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(estoque(productId)).isZero();
+    }
+
+    @Test
+    void cancelamentoDevolveOEstoqueUmaVez() {
+        Long productId = novoProduto(2).getId();
+        Order pedido = orderService.criarPedido(productId, null);
+        assertThat(pedido.getStatus()).isEqualTo(OrderStatus.PENDING);
+        assertThat(estoque(productId)).isEqualTo(1);
+
+        orderService.atualizarStatus(pedido.getId(), OrderStatus.CANCELLED);
+        assertThat(estoque(productId)).isEqualTo(2);
+
+        // Cancelar de novo é aceito e não devolve outra vez
+        assertThat(orderService.atualizarStatus(pedido.getId(), OrderStatus.CANCELLED).getStatus())
+                .isEqualTo(OrderStatus.CANCELLED);
+        assertThat(estoque(productId)).isEqualTo(2);
+    }
+
+    // Regras do PUT de um pedido: qualquer status volta para PENDING, e reabrir um
+    // cancelado reserva de novo o estoque que o cancelamento devolveu. O lote não reabre
+    @Test
+    void adminReabrePedidoComoPendente() {
+        Long productId = novoProduto(1).getId();
+        Order pedido = orderService.criarPedido(productId, null);
+        orderService.atualizarStatus(pedido.getId(), OrderStatus.PAID);
+        orderService.atualizarStatus(pedido.getId(), OrderStatus.PENDING);
+        assertThat(estoque(productId)).isZero();
+
+        orderService.atualizarStatus(pedido.getId(), OrderStatus.CANCELLED);
+        assertThat(estoque(productId)).isEqualTo(1);
+        assertThat(orderService.atualizarStatus(pedido.getId(), OrderStatus.PENDING).getStatus())
+                .isEqualTo(OrderStatus.PENDING);
+        assertThat(estoque(productId)).isZero();
+
+        assertThat(orderService.atualizarStatusEmLote(List.of(pedido.getId()), OrderStatus.PENDING).getResultados())
+                .singleElement()
+                .satisfies(resultado -> assertThat(resultado.sucesso()).isFalse());
+    }
+
+    @Test
+    void reabrirCanceladoSemEstoqueFalha() {
+        Long productId = novoProduto(1).getId();
+        Order cancelado = orderService.criarPedido(productId, null);
+        orderService.atualizarStatus(cancelado.getId(), OrderStatus.CANCELLED);
+        orderService.criarPedido(productId, null);
+
+        assertThatThrownBy(() -> orderService.atualizarStatus(cancelado.getId(), OrderStatus.PENDING))
+                .isInstanceOf(BadRequestException.class);
+        assertThat(orderRepository.findById(cancelado.getId()).orElseThrow().getStatus())
+                .isEqualTo(OrderStatus.CANCELLED);
+        assertThat(estoque(productId)).isZero();
+    }
+
+    @Test
+    void carrinhoSemEstoqueEmUmItemNaoGravaNada() {
+        Long comEstoque = novoProduto(10).getId();
+        Long semEstoque = novoProduto(1).getId();
+        long pedidosAntes = orderRepository.count();
+
+        assertThatThrownBy(() -> orderService.criarPedidoCarrinho(
+                List.of(item(comEstoque, 3), item(semEstoque, 2)), null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessageContaining("produto ID: " + semEstoque);
+
+        assertThat(estoque(comEstoque)).isEqualTo(10);
+        assertThat(estoque(semEstoque)).isEqualTo(1);
+        assertThat(orderRepository.count()).isEqualTo(pedidosAntes);
+    }
+
+    @Test
+    void pedidoDeGeladeiraReservaEDevolveNaGeladeira() {
+        Long productId = novoProduto(4).getId();
+        FridgeRequest geladeira = new FridgeRequest();
+        geladeira.setName("Geladeira teste");
+        Long fridgeId = fridgeInventoryService.criarGeladeira(geladeira).getId();
+        fridgeInventoryService.definirEstoque(fridgeId, productId, 1);
+
+        Order pedido = orderService.criarPedido(productId, fridgeId);
+        assertThat(pedido.getFridgeId()).isEqualTo(fridgeId);
+        assertThat(estoqueGeladeira(fridgeId, productId)).isZero();
+        assertThat(estoque(productId)).isEqualTo(4);
+
+        assertThatThrownBy(() -> orderService.criarPedido(productId, fridgeId))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Produto sem estoque nesta geladeira");
+
+        orderService.atualizarStatus(pedido.getId(), OrderStatus.CANCELLED);
+        assertThat(estoqueGeladeira(fridgeId, productId)).isEqualTo(1);
+        assertThat(estoque(productId)).isEqualTo(4);
+    }
+
+    @Test
+    void produtoInativoNaoReserva() {
+        ProductRequest request = requisicao(3);
+        request.setActive(false);
+        Long productId = productService.criarDeRequest(request).getId();
+
+        assertThatThrownBy(() -> orderService.criarPedido(productId, null))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Produto não está disponível");
+        assertThat(estoque(productId)).isEqualTo(3);
+    }
+
+    private Product novoProduto(int estoque) {
+        return productService.criarDeRequest(requisicao(estoque));
+    }
+
+    private static ProductRequest requisicao(int estoque) {
+        ProductRequest request = new ProductRequest();
+        request.setName("Produto pedidos " + System.nanoTime());
+        request.setPrice(new BigDecimal("4.50"));
+        request.setStock(estoque);
+        return request;
+    }
+
+    private static CartItemRequest item(Long productId, int quantidade) {
+        CartItemRequest item = new CartItemRequest();
+        item.setProductId(productId);
+        item.setQuantidade(quantidade);
+        return item;
+    }
+
+    private int estoque(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getStock();
+    }
+
+    private int estoqueGeladeira(Long fridgeId, Long productId) {
+        return inventoryRepository.buscar(fridgeId, productId).orElseThrow().getStock();
+    }
+}
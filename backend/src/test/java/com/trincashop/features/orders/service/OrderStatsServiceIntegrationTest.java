@@ -0,0 +1,97 @@
+package com.trincashop.features.orders.service;
+
+import com.trincashop.AbstractIntegrationTest;
+import com.trincashop.features.orders.dto.BulkUpdateOrderStatusResponse;
+import com.trincashop.features.orders.model.OrderStatus;
+import com.trincashop.features.products.dto.ProductRequest;
+import com.trincashop.features.products.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Contadores de order_stats mantidos pelas transições, comparados com o estado
+// anterior (o banco é compartilhado com as outras classes de teste)
+class OrderStatsServiceIntegrationTest extends AbstractIntegrationTest {
+
+    private static final BigDecimal PRECO = new BigDecimal("2.00");
+
+    @Autowired
+    private OrderStatsService orderStatsService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void transicoesMovemQuantidadeEValorEntreStatus() {
+        Long productId = novoProduto(10);
+        Map<OrderStatus, OrderStatsService.Totais> antes = orderStatsService.totaisPorStatus();
+
+        Long pago = orderService.criarPedido(productId, null).getId();
+        Long cancelado = orderService.criarPedido(productId, null).getId();
+        Long pendente = orderService.criarPedido(productId, null).getId();
+        orderService.atualizarStatus(pago, OrderStatus.PAID);
+        orderService.atualizarStatus(cancelado, OrderStatus.CANCELLED);
+
+        Map<OrderStatus, OrderStatsService.Totais> depois = orderStatsService.totaisPorStatus();
+        assertDiferenca(antes, depois, OrderStatus.PENDING, 1);
+        assertDiferenca(antes, depois, OrderStatus.PAID, 1);
+        assertDiferenca(antes, depois, OrderStatus.CANCELLED, 1);
+        assertDiferenca(antes, depois, OrderStatus.RELEASED, 0);
+        assertThat(orderService.calcularTotalArrecadado())
+                .isEqualByComparingTo(antes.get(OrderStatus.PAID).valor().add(PRECO));
+
+        // Em lote: só o pago pode ser liberado; o pendente e o inexistente são reportados
+        BulkUpdateOrderStatusResponse lote = orderService.atualizarStatusEmLote(
+                List.of(pago, pendente, Long.MAX_VALUE), OrderStatus.RELEASED);
+        assertThat(lote.getResultados()).extracting(BulkUpdateOrderStatusResponse.Resultado::sucesso)
+                .containsExactly(true, false, false);
+
+        Map<OrderStatus, OrderStatsService.Totais> aposLote = orderStatsService.totaisPorStatus();
+        assertDiferenca(antes, aposLote, OrderStatus.PENDING, 1);
+        assertDiferenca(antes, aposLote, OrderStatus.PAID, 0);
+        assertDiferenca(antes, aposLote, OrderStatus.RELEASED, 1);
+    }
+
+    @Test
+    void reconstrucaoConfereComOsContadores() {
+        Long productId = novoProduto(5);
+        Long pedido = orderService.criarPedido(productId, null).getId();
+        orderService.atualizarStatus(pedido, OrderStatus.PAID);
+        orderService.criarPedido(productId, null);
+
+        Map<OrderStatus, OrderStatsService.Totais> incrementais = orderStatsService.totaisPorStatus();
+        orderStatsService.reconstruir();
+        Map<OrderStatus, OrderStatsService.Totais> reconstruidos = orderStatsService.totaisPorStatus();
+
+        for (OrderStatus status : OrderStatus.values()) {
+            assertThat(reconstruidos.get(status).quantidade()).as("quantidade %s", status)
+                    .isEqualTo(incrementais.get(status).quantidade());
+            assertThat(reconstruidos.get(status).valor()).as("valor %s", status)
+                    .isEqualByComparingTo(incrementais.get(status).valor());
+        }
+    }
+
+    private static void assertDiferenca(Map<OrderStatus, OrderStatsService.Totais> antes,
+            Map<OrderStatus, OrderStatsService.Totais> depois, OrderStatus status, long quantidade) {
+        assertThat(depois.get(status).quantidade() - antes.get(status).quantidade())
+                .as("quantidade %s", status).isEqualTo(quantidade);
+        assertThat(depois.get(status).valor().subtract(antes.get(status).valor()))
+                .as("valor %s", status).isEqualByComparingTo(PRECO.multiply(BigDecimal.valueOf(quantidade)));
+    }
+
+    private Long novoProduto(int estoque) {
+        ProductRequest request = new ProductRequest();
+        request.setName("Produto contadores " + System.nanoTime());
+        request.setPrice(PRECO);
+        request.setStock(estoque);
+        return productService.criarDeRequest(request).getId();
+    }
+}
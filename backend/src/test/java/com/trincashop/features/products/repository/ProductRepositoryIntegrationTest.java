@@ -0,0 +1,141 @@
+package com.trincashop.features.products.repository;
+
+import com.trincashop.AbstractIntegrationTest;
+import com.trincashop.features.products.dto.FridgeRequest;
+import com.trincashop.features.products.dto.ProductRequest;
+import com.trincashop.features.products.dto.ProductResponse;
+import com.trincashop.features.products.model.Product;
+import com.trincashop.features.products.service.FridgeInventoryService;
+import com.trincashop.features.products.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// As projeções (JPQL com construtor e interfaces) rodam no PostgreSQL e chegam
+// com os campos certos, incluindo o estoque das geladeiras ativas
+class ProductRepositoryIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private FridgeInventoryService fridgeInventoryService;
+
+    @Test
+    void respostaSomaSoAsGeladeirasAtivas() {
+        Product product = novoProduto(4, 10, true);
+        estocar(novaGeladeira(true), product.getId(), 3);
+        estocar(novaGeladeira(false), product.getId(), 100);
+
+        List<ProductResponse> respostas = productRepository.listarAtivosPorIds(List.of(product.getId()));
+
+        assertThat(respostas).singleElement().satisfies(resposta -> {
+            assertThat(resposta.getId()).isEqualTo(product.getId());
+            assertThat(resposta.getName()).isEqualTo(product.getName());
+            assertThat(resposta.getPrice()).isEqualByComparingTo("2.75");
+            assertThat(resposta.getCentralStock()).isEqualTo(4);
+            assertThat(resposta.getFridgeStock()).isEqualTo(3);
+            assertThat(resposta.getStock()).isEqualTo(7);
+            assertThat(resposta.getLowStockThreshold()).isEqualTo(10);
+            assertThat(resposta.getActive()).isTrue();
+            assertThat(resposta.getFlashSale()).isFalse();
+            assertThat(resposta.getCreatedAt()).isNotNull();
+            assertThat(resposta.getUpdatedAt()).isNotNull();
+        });
+    }
+
+    @Test
+    void listagensFiltramInativosEPaginam() {
+        Product ativo = novoProduto(1, 5, true);
+        Product inativo = novoProduto(1, 5, false);
+        List<Long> ids = List.of(ativo.getId(), inativo.getId());
+
+        // Sem geladeira, o estoque das geladeiras vem 0 (COALESCE), não null
+        assertThat(productRepository.listarAtivosPorIds(ids)).extracting(ProductResponse::getId)
+                .containsExactly(ativo.getId());
+        assertThat(productRepository.listarAtivosPorIds(ids)).extracting(ProductResponse::getFridgeStock)
+                .containsExactly(0);
+        assertThat(productRepository.listarTodosAtivos()).extracting(ProductResponse::getId)
+                .contains(ativo.getId()).doesNotContain(inativo.getId());
+
+        Page<ProductResponse> ativos = productRepository.listarAtivos(
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id")));
+        assertThat(ativos.getContent()).extracting(ProductResponse::getId).first().isEqualTo(ativo.getId());
+        assertThat(ativos.getTotalElements()).isEqualTo(productRepository.listarTodosAtivos().size());
+
+        Page<ProductResponse> todos = productRepository.listarTodos(
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id")));
+        assertThat(todos.getContent()).extracting(ProductResponse::getId)
+                .containsExactly(inativo.getId(), ativo.getId());
+        assertThat(todos.getTotalElements()).isEqualTo(productRepository.count());
+    }
+
+    @Test
+    void alteradosDesdeIncluiMudancasSoNaGeladeira() {
+        Product product = novoProduto(2, 5, true);
+        Long fridgeId = novaGeladeira(true);
+        long versao = productRepository.buscarVersaoCatalogo();
+
+        // Não toca em products: só a linha de fridge_inventory ganha versão nova
+        estocar(fridgeId, product.getId(), 6);
+
+        List<Long> ids = productRepository.buscarIdsAlteradosDesde(versao, 500);
+        assertThat(ids).contains(product.getId());
+        assertThat(productRepository.listarPorIds(ids))
+                .filteredOn(resposta -> resposta.getId().equals(product.getId()))
+                .singleElement()
+                .satisfies(resposta -> assertThat(resposta.getStock()).isEqualTo(8));
+        assertThat(productRepository.buscarVersaoCatalogo()).isGreaterThanOrEqualTo(versao);
+    }
+
+    @Test
+    void niveisDeEstoqueUsamOTotal() {
+        Product baixo = novoProduto(2, 5, true);
+        Product comGeladeira = novoProduto(2, 5, true);
+        estocar(novaGeladeira(true), comGeladeira.getId(), 10);
+
+        List<ProductRepository.NivelEstoque> niveis = productRepository.buscarNiveisEstoque(
+                List.of(baixo.getId(), comGeladeira.getId()));
+        assertThat(niveis).hasSize(2).allSatisfy(nivel -> {
+            assertThat(nivel.getThreshold()).isEqualTo(5);
+            assertThat(nivel.getActive()).isTrue();
+            assertThat(nivel.getName()).isNotBlank();
+        });
+        assertThat(niveis).filteredOn(nivel -> nivel.getId().equals(comGeladeira.getId()))
+                .extracting(ProductRepository.NivelEstoque::getStock).containsExactly(12);
+
+        assertThat(productRepository.listarEstoqueBaixo()).extracting(ProductRepository.NivelEstoque::getId)
+                .contains(baixo.getId()).doesNotContain(comGeladeira.getId());
+    }
+
+    private Product novoProduto(int estoque, int limite, boolean ativo) {
+        ProductRequest request = new ProductRequest();
+        request.setName("Produto projeção " + System.nanoTime());
+        request.setPrice(new BigDecimal("2.75"));
+        request.setStock(estoque);
+        request.setLowStockThreshold(limite);
+        request.setActive(ativo);
+        return productService.criarDeRequest(request);
+    }
+
+    private Long novaGeladeira(boolean ativa) {
+        FridgeRequest request = new FridgeRequest();
+        request.setName("Geladeira projeção " + System.nanoTime());
+        request.setActive(ativa);
+        return fridgeInventoryService.criarGeladeira(request).getId();
+    }
+
+    private void estocar(Long fridgeId, Long productId, int estoque) {
+        fridgeInventoryService.definirEstoque(fridgeId, productId, estoque);
+    }
+}
@@ -0,0 +1,158 @@
+package com.trincashop.features.products.service;
+
+import com.trincashop.AbstractIntegrationTest;
+import com.trincashop.core.exception.BadRequestException;
+import com.trincashop.features.orders.model.Order;
+import com.trincashop.features.orders.model.OrderStatus;
+import com.trincashop.features.orders.repository.OrderRepository;
+import com.trincashop.features.orders.service.OrderService;
+import com.trincashop.features.products.dto.ProductRequest;
+import com.trincashop.features.products.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Flash sale contra o banco: o pool em memória limita as vendas, os pedidos ficam
+// pendentes de baixa e a liquidação desconta de products.stock. A liquidação
+// agendada fica desligada no perfil de teste; cada teste chama liquidar()
+class FlashSaleServiceIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void poolLimitaAsVendasEALiquidacaoBaixaOEstoque() throws Exception {
+        Long productId = novoProdutoEmFlashSale(3);
+        assertThat(flashSaleService.disponivel(productId)).isEqualTo(3);
+
+        List<Order> criados = new ArrayList<>();
+        int falhas = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<Order>> resultados = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                resultados.add(executor.submit(() -> {
+                    largada.await();
+                    try {
+                        return orderService.criarPedido(productId, null);
+                    } catch (BadRequestException e) {
+                        return null;
+                    }
+                }));
+            }
+            largada.countDown();
+            for (Future<Order> resultado : resultados) {
+                Order pedido = resultado.get(30, TimeUnit.SECONDS);
+                if (pedido != null) {
+                    criados.add(pedido);
+                } else {
+                    falhas++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(criados).hasSize(3);
+        assertThat(falhas).isEqualTo(17);
+        assertThat(flashSaleService.disponivel(productId)).isZero();
+        // Até a liquidação, a linha do produto não é tocada pelos pedidos
+        assertThat(estoque(productId)).isEqualTo(3);
+        assertThat(criados).allSatisfy(pedido -> assertThat(pendente(pedido.getId())).isTrue());
+
+        flashSaleService.liquidar();
+
+        assertThat(estoque(productId)).isZero();
+        assertThat(criados).allSatisfy(pedido -> assertThat(pendente(pedido.getId())).isFalse());
+    }
+
+    @Test
+    void cancelamentoAntesDaLiquidacaoDevolveOToken() {
+        Long productId = novoProdutoEmFlashSale(2);
+        Long cancelado = orderService.criarPedido(productId, null).getId();
+        orderService.criarPedido(productId, null);
+        assertThat(flashSaleService.disponivel(productId)).isZero();
+
+        orderService.atualizarStatus(cancelado, OrderStatus.CANCELLED);
+        assertThat(flashSaleService.disponivel(productId)).isEqualTo(1);
+
+        flashSaleService.liquidar();
+        // 2 iniciais + 1 devolvida - 2 pedidos liquidados (o cancelado também estava pendente)
+        assertThat(estoque(productId)).isEqualTo(1);
+    }
+
+    @Test
+    void redefinirEstoqueDescartaAsBaixasDaEpocaAnterior() {
+        Long productId = novoProdutoEmFlashSale(5);
+        orderService.criarPedido(productId, null);
+        orderService.criarPedido(productId, null);
+
+        // O novo valor já considera as unidades vendidas
+        ProductRequest request = requisicao(10);
+        productService.atualizarDeRequest(productId, request);
+        assertThat(flashSaleService.disponivel(productId)).isEqualTo(10);
+
+        flashSaleService.liquidar();
+        assertThat(estoque(productId)).isEqualTo(10);
+    }
+
+    @Test
+    void desligarOModoLiquidaEDescarregaOPool() {
+        Long productId = novoProdutoEmFlashSale(4);
+        orderService.criarPedido(productId, null);
+
+        productService.alterarFlashSale(productId, false);
+
+        assertThat(flashSaleService.carregado(productId)).isFalse();
+        assertThat(estoque(productId)).isEqualTo(3);
+        // Sem pool, o pedido volta ao UPDATE condicional na linha do produto
+        orderService.criarPedido(productId, null);
+        assertThat(estoque(productId)).isEqualTo(2);
+    }
+
+    private Long novoProdutoEmFlashSale(int estoque) {
+        Long productId = productService.criarDeRequest(requisicao(estoque)).getId();
+        productService.alterarFlashSale(productId, true);
+        return productId;
+    }
+
+    private static ProductRequest requisicao(int estoque) {
+        ProductRequest request = new ProductRequest();
+        request.setName("Produto flash " + System.nanoTime());
+        request.setPrice(new BigDecimal("1.99"));
+        request.setStock(estoque);
+        return request;
+    }
+
+    private int estoque(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getStock();
+    }
+
+    private boolean pendente(Long orderId) {
+        return orderRepository.findById(orderId).orElseThrow().getStockPending();
+    }
+}
@@ -0,0 +1,164 @@
+package com.trincashop.features.products.service;
+
+import com.trincashop.features.products.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class FlashSaleServiceTest {
+
+    private static final Long PRODUTO = 1L;
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private FlashSaleService flashSaleService;
+
+    @BeforeEach
+    void setUp() {
+        flashSaleService = new FlashSaleService(productRepository, mock(ProductCatalogCache.class),
+                mock(LowStockMonitor.class), mock(PlatformTransactionManager.class));
+    }
+
+    @AfterEach
+    void limparTransacao() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reservarSemPoolFalhaSemIrAoBanco() {
+        assertThat(flashSaleService.reservar(PRODUTO, 1)).isNull();
+        assertThat(flashSaleService.carregado(PRODUTO)).isFalse();
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void poolSoEhInstaladoDepoisDoCommit() {
+        estoqueNoBanco(10, 3L);
+        List<TransactionSynchronization> transacao = emTransacao(() -> flashSaleService.iniciar(PRODUTO));
+
+        assertThat(flashSaleService.reservar(PRODUTO, 1)).isNull();
+        commit(transacao);
+
+        assertThat(flashSaleService.reservar(PRODUTO, 1)).isEqualTo(3L);
+        assertThat(flashSaleService.disponivel(PRODUTO)).isEqualTo(9);
+    }
+
+    @Test
+    void reservasConcorrentesNuncaPassamDoPool() throws Exception {
+        estoqueNoBanco(1_000, 0L);
+        commit(emTransacao(() -> flashSaleService.iniciar(PRODUTO)));
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Callable<Integer>> tarefas = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            tarefas.add(() -> {
+                largada.await();
+                int reservados = 0;
+                for (int i = 0; i < 500; i++) {
+                    if (flashSaleService.reservar(PRODUTO, 1) != null) {
+                        reservados++;
+                    }
+                }
+                return reservados;
+            });
+        }
+        try {
+            List<Future<Integer>> resultados = new ArrayList<>();
+            tarefas.forEach(tarefa -> resultados.add(executor.submit(tarefa)));
+            largada.countDown();
+            int total = 0;
+            for (Future<Integer> resultado : resultados) {
+                total += resultado.get();
+            }
+            assertThat(total).isEqualTo(1_000);
+            assertThat(flashSaleService.disponivel(PRODUTO)).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void descargaNaoEhDesfeitaPorInstalacaoAtrasada() {
+        estoqueNoBanco(10, 0L);
+        List<TransactionSynchronization> carga = emTransacao(() -> flashSaleService.iniciar(PRODUTO));
+        List<TransactionSynchronization> descarga = emTransacao(() -> flashSaleService.descarregar(PRODUTO));
+
+        commit(descarga);
+        commit(carga);
+
+        assertThat(flashSaleService.carregado(PRODUTO)).isFalse();
+        assertThat(flashSaleService.reservar(PRODUTO, 1)).isNull();
+    }
+
+    @Test
+    void rollbackDevolveTokensSoAoPoolQueOsEmitiu() {
+        estoqueNoBanco(5, 0L);
+        commit(emTransacao(() -> flashSaleService.iniciar(PRODUTO)));
+
+        List<TransactionSynchronization> pedido = emTransacao(() -> flashSaleService.reservar(PRODUTO, 2));
+        rollback(pedido);
+        assertThat(flashSaleService.disponivel(PRODUTO)).isEqualTo(5);
+
+        // Pedido em voo durante a redefinição: o rollback não infla o pool novo
+        List<TransactionSynchronization> emVoo = emTransacao(() -> flashSaleService.reservar(PRODUTO, 2));
+        estoqueNoBanco(7, 1L);
+        commit(emTransacao(() -> flashSaleService.reiniciar(PRODUTO)));
+        rollback(emVoo);
+
+        assertThat(flashSaleService.disponivel(PRODUTO)).isEqualTo(7);
+        assertThat(flashSaleService.reservar(PRODUTO, 1)).isEqualTo(1L);
+    }
+
+    private void estoqueNoBanco(int disponivel, long epoca) {
+        when(productRepository.buscarEstoqueFlashSale(PRODUTO)).thenReturn(new ProductRepository.EstoqueFlashSale() {
+            @Override
+            public Integer getDisponivel() {
+                return disponivel;
+            }
+
+            @Override
+            public Long getEpoca() {
+                return epoca;
+            }
+        });
+    }
+
+    // Executa o trecho com sincronização de transação ativa e devolve o que ele registrou
+    private static List<TransactionSynchronization> emTransacao(Runnable trecho) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            trecho.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void commit(List<TransactionSynchronization> sincronizacoes) {
+        sincronizacoes.forEach(TransactionSynchronization::afterCommit);
+        sincronizacoes.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    private static void rollback(List<TransactionSynchronization> sincronizacoes) {
+        sincronizacoes.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+}
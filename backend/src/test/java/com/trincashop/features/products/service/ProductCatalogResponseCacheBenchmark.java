@@ -0,0 +1,128 @@
+package com.trincashop.features.products.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trincashop.features.products.dto.ProductResponse;
+import com.trincashop.features.products.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Custo de uma página do catálogo público: acerto no cache de respostas (JSON e
+ * gzip), falha (a versão mudou, serializa e guarda) e a referência sem cache
+ * (serializar e comprimir em toda requisição, como antes do cache).
+ * <p>
+ * Não roda no {@code mvn test}. Para rodar (exec:exec, e não exec:java, para que o
+ * fork do JMH herde o classpath de teste):
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath com.trincashop.features.products.service.ProductCatalogResponseCacheBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductCatalogResponseCacheBenchmark {
+
+    @Param({"20", "100"})
+    int tamanhoPagina;
+
+    private ObjectMapper objectMapper;
+    private ProductCatalogCache catalogCache;
+    private ProductCatalogResponseCache responseCache;
+    private Pageable pageable;
+    private Page<ProductResponse> pagina;
+
+    @Setup
+    public void preparar() {
+        List<ProductResponse> produtos = new ArrayList<>();
+        LocalDateTime agora = LocalDateTime.now();
+        for (long id = 1; id <= tamanhoPagina; id++) {
+            produtos.add(new ProductResponse(id, "Produto " + id, BigDecimal.valueOf(id * 150, 2), (int) id, 0,
+                    5, true, false, agora, agora));
+        }
+        pageable = PageRequest.of(0, tamanhoPagina, Sort.by("name"));
+        pagina = new PageImpl<>(produtos, pageable, 500);
+
+        // Mesma configuração do ObjectMapper do Spring MVC
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        ProductService productService = mock(ProductService.class);
+        when(productService.listarCatalogo(any())).thenReturn(pagina);
+        catalogCache = new ProductCatalogCache(mock(ProductRepository.class), new SimpleMeterRegistry(), true);
+        responseCache = new ProductCatalogResponseCache(productService, catalogCache, objectMapper,
+                new SimpleMeterRegistry(), 256, 600_000);
+        responseCache.obter(pageable, true);
+    }
+
+    @Benchmark
+    public byte[] acertoJson() {
+        return responseCache.obter(pageable, false);
+    }
+
+    @Benchmark
+    public byte[] acertoGzip() {
+        return responseCache.obter(pageable, true);
+    }
+
+    // Fora de transação, invalidar incrementa a versão na hora: toda chamada é falha
+    @Benchmark
+    public byte[] falhaJson() {
+        catalogCache.invalidar(1L);
+        return responseCache.obter(pageable, false);
+    }
+
+    @Benchmark
+    public byte[] semCacheJson() throws IOException {
+        return objectMapper.writeValueAsBytes(pagina);
+    }
+
+    @Benchmark
+    public byte[] semCacheGzip() throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(pagina);
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(json);
+        }
+        return saida.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ProductCatalogResponseCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
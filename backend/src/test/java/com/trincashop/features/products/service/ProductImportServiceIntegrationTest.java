@@ -0,0 +1,139 @@
+package com.trincashop.features.products.service;
+
+import com.trincashop.AbstractIntegrationTest;
+import com.trincashop.core.exception.BadRequestException;
+import com.trincashop.features.products.dto.ProductImportResponse;
+import com.trincashop.features.products.dto.ProductRequest;
+import com.trincashop.features.products.model.Product;
+import com.trincashop.features.products.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Importação por COPY + merge em products, com nomes únicos por teste para achar
+// as linhas inseridas no banco compartilhado
+class ProductImportServiceIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private ProductImportService importService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void csvInsereAtualizaERejeitaPorLinha() {
+        Product existente = novoProduto(3, 4);
+        String prefixo = "Importado " + System.nanoTime();
+        String csv = """
+                id,name,price,stock,active,low_stock_threshold
+                %d,"Atualizado, com vírgula",7.5,20,,
+                ,%s A,2.00,10,true,7
+                ,%s B,3.10,1,false,
+                ,%s C,abc,1,,
+                %d,Fantasma,1.00,1,,
+                """.formatted(existente.getId(), prefixo, prefixo, prefixo, Long.MAX_VALUE);
+
+        ProductImportResponse resposta = importService.importar(entrada(csv), ProductImportService.Formato.CSV);
+
+        assertThat(resposta.getInseridos()).isEqualTo(2);
+        assertThat(resposta.getAtualizados()).isEqualTo(1);
+        assertThat(resposta.getRejeitados()).isEqualTo(2);
+        assertThat(resposta.getLinhaInterrompida()).isNull();
+        assertThat(resposta.getErros()).extracting(ProductImportResponse.Erro::linha).containsExactlyInAnyOrder(5L, 6L);
+        assertThat(resposta.getErros()).extracting(ProductImportResponse.Erro::erro).containsExactlyInAnyOrder(
+                "Preço inválido: abc", "Produto não encontrado com ID: " + Long.MAX_VALUE);
+
+        Product atualizado = productRepository.findById(existente.getId()).orElseThrow();
+        assertThat(atualizado.getName()).isEqualTo("Atualizado, com vírgula");
+        assertThat(atualizado.getPrice()).isEqualByComparingTo("7.50");
+        assertThat(atualizado.getStock()).isEqualTo(20);
+        // Coluna vazia mantém o valor do produto
+        assertThat(atualizado.getActive()).isTrue();
+        assertThat(atualizado.getLowStockThreshold()).isEqualTo(4);
+
+        Map<String, Object> a = linha(prefixo + " A");
+        assertThat(a.get("stock")).isEqualTo(10);
+        assertThat(a.get("active")).isEqualTo(true);
+        assertThat(a.get("low_stock_threshold")).isEqualTo(7);
+        Map<String, Object> b = linha(prefixo + " B");
+        assertThat(b.get("active")).isEqualTo(false);
+        assertThat(b.get("low_stock_threshold")).isEqualTo(5);
+    }
+
+    @Test
+    void aspasNaoFechadasGravamOQueFoiLidoEInformamALinha() {
+        String prefixo = "Interrompido " + System.nanoTime();
+        String csv = """
+                name,price,stock
+                %s A,1.00,2
+                "%s B,1.00,3
+                %s C,1.00,4
+                """.formatted(prefixo, prefixo, prefixo);
+
+        ProductImportResponse resposta = importService.importar(entrada(csv), ProductImportService.Formato.CSV);
+
+        assertThat(resposta.getInseridos()).isEqualTo(1);
+        assertThat(resposta.getLinhaInterrompida()).isEqualTo(3L);
+        assertThat(resposta.getRejeitados()).isEqualTo(1);
+        assertThat(linha(prefixo + " A").get("stock")).isEqualTo(2);
+    }
+
+    @Test
+    void ndjsonValidaComAsRegrasDoProductRequest() {
+        String prefixo = "NDJSON " + System.nanoTime();
+        String ndjson = """
+                {"name": "%s A", "price": 4.25, "stock": 6, "lowStockThreshold": 2}
+                {"name": "%s B", "price": -1, "stock": 6}
+                não é json
+                """.formatted(prefixo, prefixo);
+
+        ProductImportResponse resposta = importService.importar(entrada(ndjson),
+                ProductImportService.Formato.NDJSON);
+
+        assertThat(resposta.getInseridos()).isEqualTo(1);
+        assertThat(resposta.getRejeitados()).isEqualTo(2);
+        assertThat(resposta.getErros()).extracting(ProductImportResponse.Erro::linha).containsExactly(2L, 3L);
+        assertThat(linha(prefixo + " A").get("low_stock_threshold")).isEqualTo(2);
+    }
+
+    @Test
+    void cabecalhoSemColunaObrigatoriaERecusado() {
+        assertThatThrownBy(() -> importService.importar(entrada("name,price\nX,1.00\n"),
+                ProductImportService.Formato.CSV))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Coluna obrigatória ausente no cabeçalho: stock");
+    }
+
+    private Product novoProduto(int estoque, int limite) {
+        ProductRequest request = new ProductRequest();
+        request.setName("Produto importação " + System.nanoTime());
+        request.setPrice(BigDecimal.ONE);
+        request.setStock(estoque);
+        request.setLowStockThreshold(limite);
+        return productService.criarDeRequest(request);
+    }
+
+    private Map<String, Object> linha(String nome) {
+        return jdbcTemplate.queryForMap("SELECT stock, active, low_stock_threshold FROM products WHERE name = ?",
+                nome);
+    }
+
+    private static InputStream entrada(String conteudo) {
+        return new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+}